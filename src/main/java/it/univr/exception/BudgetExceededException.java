@@ -0,0 +1,15 @@
+package it.univr.exception;
+
+/**
+ * Thrown when an operation on automata exceeds the limits of its operation context,
+ * passes its deadline or is cancelled.
+ */
+public class BudgetExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BudgetExceededException(String message) {
+		super(message);
+	}
+
+}
@@ -6,4 +6,8 @@ public class MalformedInputException extends RuntimeException {
 		super();
 	}
 
+	public MalformedInputException(String message){
+		super(message);
+	}
+
 }
@@ -0,0 +1,143 @@
+package it.univr.fsm.equations;
+
+import java.util.BitSet;
+import java.util.Vector;
+
+import it.univr.fsm.machine.State;
+
+/**
+ * Regular expression denoting the symbols of the code points in an interval, each one a string of a
+ * single code point, as read by a transition of a range. It is printed as <code>[a-z]</code>.
+ */
+public class CharRange extends RegularExpression {
+
+	/**
+	 * The characters escaped when printed as bounds, besides those escaped in a string.
+	 */
+	private static final String SPECIAL = "-]";
+
+	private final int first;
+	private final int last;
+
+	public CharRange(int first, int last) {
+		this.first = first;
+		this.last = last;
+	}
+
+	/**
+	 * Returns the first code point.
+	 */
+	public int getFirst() {
+		return first;
+	}
+
+	/**
+	 * Returns the last code point, included.
+	 */
+	public int getLast() {
+		return last;
+	}
+
+	/**
+	 * Returns true if the interval contains a code point.
+	 */
+	public boolean contains(int codePoint) {
+		return codePoint >= first && codePoint <= last;
+	}
+
+	@Override
+	public RegularExpression remove(RegularExpression e) {
+		return this.equals(e) ? new GroundCoeff("") : this;
+	}
+
+	@Override
+	public RegularExpression factorize(RegularExpression e) {
+		return this.equals(e) ? this : null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		appendBound(result, first);
+		result.append('-');
+		appendBound(result, last);
+		return result.append(']').toString();
+	}
+
+	private static void appendBound(StringBuilder result, int codePoint) {
+		if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT && (SPECIAL.indexOf(codePoint) >= 0
+				|| GroundCoeff.SPECIAL.indexOf(codePoint) >= 0 || Character.isWhitespace(codePoint)))
+			result.append('\\');
+
+		result.appendCodePoint(codePoint);
+	}
+
+	@Override
+	public RegularExpression replace(State s, RegularExpression e) {
+		return this;
+	}
+
+	@Override
+	public RegularExpression syntetize(State s) {
+		return this;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * first + last;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof CharRange && first == ((CharRange) other).first && last == ((CharRange) other).last;
+	}
+
+	@Override
+	public boolean containsOnly(State s) {
+		return true;
+	}
+
+	@Override
+	public boolean contains(State s) {
+		return false;
+	}
+
+	@Override
+	public Vector<RegularExpression> getTermsWithState(State s) {
+		return new Vector<RegularExpression>();
+	}
+
+	@Override
+	public Vector<RegularExpression> getGroundTerms() {
+		Vector<RegularExpression> v = new Vector<RegularExpression>();
+		v.add(this);
+		return v;
+	}
+
+	@Override
+	public boolean isGround() {
+		return true;
+	}
+
+	@Override
+	BitSet getVariables() {
+		return NO_VARIABLES;
+	}
+
+	@Override
+	public Vector<RegularExpression> inSinglePart() {
+		Vector<RegularExpression> v = new Vector<RegularExpression>();
+		v.add(this);
+		return v;
+	}
+
+	@Override
+	public Vector<RegularExpression> inBlockPart() {
+		return inSinglePart();
+	}
+
+	@Override
+	public RegularExpression simplify() {
+		return this;
+	}
+}
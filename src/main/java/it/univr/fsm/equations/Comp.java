@@ -1,16 +1,21 @@
 package it.univr.fsm.equations;
 
+import java.util.BitSet;
 import java.util.Vector;
 
 import it.univr.fsm.machine.State;
 
 public class Comp extends RegularExpression {
-	private RegularExpression first;
-	private RegularExpression second;
+	private final RegularExpression first;
+	private final RegularExpression second;
+	private final int hash;
+	private BitSet variables;
+	private RegularExpression simplified;
 
 	public Comp(RegularExpression first, RegularExpression second) {
 		this.first = first;
 		this.second = second;
+		this.hash = first.hashCode() * second.hashCode();
 	}
 
 	public RegularExpression getFirst() {
@@ -28,6 +33,9 @@ public class Comp extends RegularExpression {
 
 	@Override
 	public RegularExpression replace(State s, RegularExpression e) {
+		if (!hasVariable(s))
+			return this;
+
 		return new Comp(first.replace(s, e), second.replace(s, e));
 	}
 
@@ -44,12 +52,14 @@ public class Comp extends RegularExpression {
 
 	@Override
 	public int hashCode() {
-		return first.hashCode() * second.hashCode();
+		return hash;
 	}
 
 	@Override
 	public boolean equals(Object other) {
-		if(other instanceof Comp) {
+		if (this == other)
+			return true;
+		if(other instanceof Comp && hash == other.hashCode()) {
 			return first.equals(((Comp) other).first) && second.equals(((Comp) other).second);
 		}
 		return false;
@@ -57,13 +67,13 @@ public class Comp extends RegularExpression {
 
 	@Override
 	public boolean containsOnly(State s) {
-		return  first.containsOnly(s) && second.containsOnly(s);
+		return hasOnlyVariable(s);
 	}
 
 	@Override
 	public RegularExpression remove(RegularExpression e) {
-		first = first.remove(e);
-		second = second.remove(e);
+		RegularExpression first = this.first.remove(e);
+		RegularExpression second = this.second.remove(e);
 
 
 		if(second instanceof GroundCoeff && ((GroundCoeff) second).getString().equals("")){
@@ -72,20 +82,25 @@ public class Comp extends RegularExpression {
 			return second;
 		}
 
-		return this;
+		return first == this.first && second == this.second ? this : new Comp(first, second);
 	}
 
 	@Override
 	public RegularExpression factorize(RegularExpression e) {
-		return first.factorize(e) != null ? first.factorize(e) :
-			second.factorize(e) != null ? second.factorize(e) :
-				e.factorize(first) != null ? e.factorize(first) :
-					e.factorize(second) != null ? e.factorize(second) : null;
+		RegularExpression result;
+
+		if ((result = first.factorize(e)) != null)
+			return result;
+		if ((result = second.factorize(e)) != null)
+			return result;
+		if ((result = e.factorize(first)) != null)
+			return result;
+		return e.factorize(second);
 	}
 
 	@Override
 	public boolean contains(State s) {
-		return  first.contains(s) || second.contains(s);
+		return hasVariable(s);
 	}
 
 	@Override
@@ -101,25 +116,29 @@ public class Comp extends RegularExpression {
 	public Vector<RegularExpression> getGroundTerms() {
 		Vector<RegularExpression> v = new Vector<RegularExpression>();
 
-		if (first.isGround() && second.isGround())
+		if (isGround())
 			v.add(this);
 		return v;
 	}
 
 	@Override
 	public boolean isGround() {
-		return first.isGround() && second.isGround();
+		return getVariables().isEmpty();
+	}
+
+	@Override
+	BitSet getVariables() {
+		if (variables == null)
+			variables = union(first.getVariables(), second.getVariables());
+		return variables;
 	}
 
 	@Override
 	public Vector<RegularExpression> inSinglePart() {
 		Vector<RegularExpression> v = new Vector<RegularExpression>();
 
-		for (int i = 0; i < first.inSinglePart().size(); ++i)
-			v.add(first.inSinglePart().get(i));
-
-		for (int i = 0; i < second.inSinglePart().size(); ++i)
-			v.add(second.inSinglePart().get(i));
+		v.addAll(first.inSinglePart());
+		v.addAll(second.inSinglePart());
 
 		return v;
 	}
@@ -138,12 +157,21 @@ public class Comp extends RegularExpression {
 
 	@Override
 	public RegularExpression simplify() {
+		if (simplified == null)
+			simplified = simplifyOnce();
+		return simplified;
+	}
+
+	private RegularExpression simplifyOnce() {
 
 		/**
 		 * This fixes the "unsoundness problem"
 		 */
 		if (this.second instanceof Or) {
-			return new Or(new Comp(this.first, ((Or)this.second.simplify()).first), new Comp(this.first, ((Or)this.second.simplify()).second));
+			RegularExpression second = this.second.simplify();
+
+			if (second instanceof Or)
+				return new Or(new Comp(this.first, ((Or) second).first), new Comp(this.first, ((Or) second).second));
 		}
 
 
@@ -173,8 +201,9 @@ public class Comp extends RegularExpression {
 			if (((Or) ((Star) second).getOperand()).getFirst() instanceof GroundCoeff 
 					&& ((Or) ((Star) second).getOperand()).getSecond() instanceof GroundCoeff) {
 
-				Or newOr = new Or(getFirst(), new Or(new GroundCoeff(getFirst().toString() + ((Or) ((Star) second).getOperand()).getFirst().toString()), 
-						new GroundCoeff(getFirst().toString() + ((Or) ((Star) second).getOperand()).getSecond().toString())));
+				String prefix = ((GroundCoeff) first).getString();
+				Or newOr = new Or(getFirst(), new Or(new GroundCoeff(prefix + ((GroundCoeff) ((Or) ((Star) second).getOperand()).getFirst()).getString()), 
+						new GroundCoeff(prefix + ((GroundCoeff) ((Or) ((Star) second).getOperand()).getSecond()).getString())));
 
 				return new Comp(newOr, second);
 			}
@@ -0,0 +1,193 @@
+package it.univr.fsm.equations;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.TreeMap;
+
+import it.univr.exception.MalformedInputException;
+
+/**
+ * Matcher of strings against a regular expression by Brzozowski derivatives.
+ *
+ * The derivative of an expression by a character denotes the suffixes of the strings of the expression
+ * that begin with that character, so that a string matches if the expression derived by all its characters
+ * accepts the empty string. Derivatives are built by a hash-consing factory and their unions are kept in a
+ * normal form, sorted and without repetitions, so that the derivatives of an expression are finitely many
+ * shared terms. Each derivative is computed once and memoized: the derivatives are the states of a
+ * deterministic automaton, built lazily as the strings are matched.
+ */
+public class DerivativeMatcher {
+
+	private final RegularExpressionFactory factory = new RegularExpressionFactory();
+	private final RegularExpression expression;
+
+	/**
+	 * Transitions of the lazy automaton: derivatives by each character met so far.
+	 */
+	private final IdentityHashMap<RegularExpression, HashMap<Character, RegularExpression>> derivatives = new IdentityHashMap<RegularExpression, HashMap<Character, RegularExpression>>();
+
+	private final IdentityHashMap<RegularExpression, Boolean> nullable = new IdentityHashMap<RegularExpression, Boolean>();
+
+	/**
+	 * Order of the terms, by creation, used to sort the alternatives of the unions.
+	 */
+	private final IdentityHashMap<RegularExpression, Integer> order = new IdentityHashMap<RegularExpression, Integer>();
+
+	/**
+	 * Constructs a matcher.
+	 *
+	 * @param e the regular expression, without variables.
+	 */
+	public DerivativeMatcher(RegularExpression e) {
+		this.expression = factory.intern(e);
+	}
+
+	/**
+	 * Returns true if a string belongs to the language of the expression.
+	 *
+	 * @throws MalformedInputException if the expression contains a variable.
+	 */
+	public boolean matches(String s) {
+		RegularExpression current = expression;
+
+		for (int i = 0; i < s.length() && !RegularExpressionFactory.isEmptySet(current); ++i)
+			current = derive(current, s.charAt(i));
+
+		return nullable(current);
+	}
+
+	/**
+	 * Returns the number of terms whose derivatives have been memoized so far, which include
+	 * the states of the lazy automaton and their subterms.
+	 */
+	public int size() {
+		return derivatives.size();
+	}
+
+	/**
+	 * Returns the derivative of an expression built by this matcher by a character.
+	 */
+	private RegularExpression derive(RegularExpression e, char c) {
+		HashMap<Character, RegularExpression> transitions = derivatives.get(e);
+
+		if (transitions == null)
+			derivatives.put(e, transitions = new HashMap<Character, RegularExpression>());
+
+		RegularExpression result = transitions.get(c);
+
+		if (result == null) {
+			result = computeDerivative(e, c);
+			transitions.put(c, result);
+		}
+
+		return result;
+	}
+
+	private RegularExpression computeDerivative(RegularExpression e, char c) {
+		if (e instanceof GroundCoeff) {
+			String s = ((GroundCoeff) e).getString();
+			return !s.isEmpty() && s.charAt(0) == c ? factory.string(s.substring(1)) : factory.emptySet();
+		}
+
+		if (e instanceof CharRange)
+			return deriveRange((CharRange) e, c);
+
+		if (e instanceof EmptySet)
+			return e;
+
+		if (e instanceof Or)
+			return or(derive(((Or) e).getFirst(), c), derive(((Or) e).getSecond(), c));
+
+		if (e instanceof Comp) {
+			RegularExpression first = ((Comp) e).getFirst();
+			RegularExpression second = ((Comp) e).getSecond();
+			RegularExpression result = factory.comp(derive(first, c), second);
+
+			return nullable(first) ? or(result, derive(second, c)) : result;
+		}
+
+		if (e instanceof Star)
+			return factory.comp(derive(((Star) e).getOperand(), c), e);
+
+		throw new MalformedInputException("cannot derive " + e);
+	}
+
+	/**
+	 * Returns the derivative of a range by a character: the empty string if the range contains it and,
+	 * if it is a high surrogate, the range of the low surrogates completing the code points of the range.
+	 */
+	private RegularExpression deriveRange(CharRange e, char c) {
+		RegularExpression result = e.contains(c) ? factory.emptyString() : factory.emptySet();
+
+		if (Character.isHighSurrogate(c)) {
+			int first = Math.max(e.getFirst(), Character.toCodePoint(c, Character.MIN_LOW_SURROGATE));
+			int last = Math.min(e.getLast(), Character.toCodePoint(c, Character.MAX_LOW_SURROGATE));
+
+			if (first <= last) {
+				RegularExpression low = factory.range(Character.lowSurrogate(first), Character.lowSurrogate(last));
+				result = RegularExpressionFactory.isEmptySet(result) ? low : or(result, low);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns true if the empty string belongs to the language of an expression.
+	 */
+	private boolean nullable(RegularExpression e) {
+		Boolean result = nullable.get(e);
+
+		if (result == null) {
+			if (e instanceof GroundCoeff)
+				result = ((GroundCoeff) e).getString().isEmpty();
+			else if (e instanceof CharRange)
+				result = false;
+			else if (e instanceof Or)
+				result = nullable(((Or) e).getFirst()) || nullable(((Or) e).getSecond());
+			else if (e instanceof Comp)
+				result = nullable(((Comp) e).getFirst()) && nullable(((Comp) e).getSecond());
+			else if (e instanceof Star)
+				result = true;
+			else if (e instanceof EmptySet)
+				result = false;
+			else
+				throw new MalformedInputException("cannot derive " + e);
+
+			nullable.put(e, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the union of two expressions in normal form: a right-nested union of distinct
+	 * alternatives, none of them a union, sorted by creation.
+	 */
+	private RegularExpression or(RegularExpression first, RegularExpression second) {
+		TreeMap<Integer, RegularExpression> alternatives = new TreeMap<Integer, RegularExpression>();
+		addAlternatives(first, alternatives);
+		addAlternatives(second, alternatives);
+
+		RegularExpression result = factory.emptySet();
+
+		for (RegularExpression alternative : alternatives.descendingMap().values())
+			result = factory.or(alternative, result);
+
+		return result;
+	}
+
+	private void addAlternatives(RegularExpression e, TreeMap<Integer, RegularExpression> alternatives) {
+		if (e instanceof Or) {
+			addAlternatives(((Or) e).getFirst(), alternatives);
+			addAlternatives(((Or) e).getSecond(), alternatives);
+		} else if (!RegularExpressionFactory.isEmptySet(e)) {
+			Integer position = order.get(e);
+
+			if (position == null)
+				order.put(e, position = order.size());
+
+			alternatives.put(position, e);
+		}
+	}
+}
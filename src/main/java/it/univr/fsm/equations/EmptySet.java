@@ -0,0 +1,94 @@
+package it.univr.fsm.equations;
+
+import java.util.BitSet;
+import java.util.Vector;
+
+import it.univr.fsm.machine.State;
+
+/**
+ * Regular expression denoting the empty language.
+ */
+public class EmptySet extends RegularExpression {
+
+	@Override
+	public RegularExpression replace(State s, RegularExpression e) {
+		return this;
+	}
+
+	@Override
+	public RegularExpression syntetize(State s) {
+		return this;
+	}
+
+	@Override
+	public int hashCode() {
+		return EmptySet.class.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof EmptySet;
+	}
+
+	@Override
+	public boolean containsOnly(State s) {
+		return true;
+	}
+
+	@Override
+	public boolean contains(State s) {
+		return false;
+	}
+
+	@Override
+	public RegularExpression factorize(RegularExpression e) {
+		return this.equals(e) ? this : null;
+	}
+
+	@Override
+	public RegularExpression remove(RegularExpression e) {
+		return this;
+	}
+
+	@Override
+	public Vector<RegularExpression> getTermsWithState(State s) {
+		return new Vector<RegularExpression>();
+	}
+
+	@Override
+	public Vector<RegularExpression> getGroundTerms() {
+		return new Vector<RegularExpression>();
+	}
+
+	@Override
+	public boolean isGround() {
+		return true;
+	}
+
+	@Override
+	BitSet getVariables() {
+		return NO_VARIABLES;
+	}
+
+	@Override
+	public Vector<RegularExpression> inSinglePart() {
+		Vector<RegularExpression> v = new Vector<RegularExpression>();
+		v.add(this);
+		return v;
+	}
+
+	@Override
+	public Vector<RegularExpression> inBlockPart() {
+		return inSinglePart();
+	}
+
+	@Override
+	public RegularExpression simplify() {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "∅";
+	}
+}
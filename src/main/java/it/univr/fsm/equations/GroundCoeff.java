@@ -1,12 +1,18 @@
 package it.univr.fsm.equations;
 
+import java.util.BitSet;
 import java.util.Vector;
 
 import it.univr.fsm.machine.State;
 
 public class GroundCoeff extends RegularExpression {
 
-	private String string;
+	/**
+	 * The characters escaped when printed.
+	 */
+	static final String SPECIAL = "+|*()[\\ε∅";
+
+	private final String string;
 
 	public GroundCoeff(String s) {
 		this.string = s;
@@ -29,14 +35,32 @@ public class GroundCoeff extends RegularExpression {
 		return string;
 	}
 
+	/**
+	 * Returns the string, with the operators, the parentheses, the opening bracket, ε, ∅, the backslash and the blanks
+	 * escaped by a backslash, as read by {@link RegularExpressionParser}, or ε if it is empty.
+	 */
 	@Override
 	public String toString() {
-		return string.isEmpty() ? "ε" : string.toString();
+		if (string.isEmpty())
+			return "ε";
+
+		StringBuilder result = new StringBuilder(string.length());
+
+		for (int i = 0; i < string.length(); ++i) {
+			char c = string.charAt(i);
+
+			if (SPECIAL.indexOf(c) >= 0 || Character.isWhitespace(c))
+				result.append('\\');
+
+			result.append(c);
+		}
+
+		return result.toString();
 	}
 
 	@Override
 	public RegularExpression replace(State s, RegularExpression e) {
-		return new GroundCoeff(string);
+		return this;
 	}
 
 	@Override
@@ -84,6 +108,11 @@ public class GroundCoeff extends RegularExpression {
 		return true;
 	}
 
+	@Override
+	BitSet getVariables() {
+		return NO_VARIABLES;
+	}
+
 	@Override
 	public Vector<RegularExpression> inSinglePart() {
 		Vector<RegularExpression> v = new Vector<RegularExpression>();
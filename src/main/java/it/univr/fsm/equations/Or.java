@@ -1,16 +1,21 @@
 package it.univr.fsm.equations;
 
+import java.util.BitSet;
 import java.util.Vector;
 
 import it.univr.fsm.machine.State;
 
 public class Or extends RegularExpression {
-	public RegularExpression first;
-	public RegularExpression second;
+	public final RegularExpression first;
+	public final RegularExpression second;
+	private final int hash;
+	private BitSet variables;
+	private RegularExpression simplified;
 
 	public Or(RegularExpression first, RegularExpression second) {
 		this.first = first;
 		this.second = second;
+		this.hash = first.hashCode() + second.hashCode();
 	}
 
 	public RegularExpression getSecond() {
@@ -28,6 +33,9 @@ public class Or extends RegularExpression {
 
 	@Override
 	public RegularExpression replace(State s, RegularExpression e) {
+		if (!hasVariable(s))
+			return this;
+
 		return new Or(first.replace(s, e), second.replace(s, e));
 	}
 
@@ -39,12 +47,14 @@ public class Or extends RegularExpression {
 
 	@Override
 	public int hashCode() {
-		return first.hashCode() + second.hashCode();
+		return hash;
 	}
 
 	@Override
 	public boolean equals(Object other) {
-		if(other instanceof Or) {
+		if (this == other)
+			return true;
+		if(other instanceof Or && hash == other.hashCode()) {
 			return (first.equals(((Or) other).first) && second.equals(((Or) other).second))
 					|| (first.equals(((Or) other).second) && second.equals(((Or) other).first));
 		}
@@ -54,29 +64,25 @@ public class Or extends RegularExpression {
 
 	@Override
 	public boolean containsOnly(State s) {
-		return first.containsOnly(s) && second.containsOnly(s);
+		return hasOnlyVariable(s);
 	}
 
 	@Override
 	public boolean contains(State s) {
-		return first.contains(s) || second.contains(s);
+		return hasVariable(s);
 	}
 
 	@Override
 	public Vector<RegularExpression> getTermsWithState(State s) {
 		Vector<RegularExpression> v = new Vector<RegularExpression>();
 
-		for (int i = 0; i < first.getTermsWithState(s).size(); ++i) {
-			if (first.getTermsWithState(s).get(i).isGround())
-				continue;
-			v.add(first.getTermsWithState(s).get(i));
-		}
+		for (RegularExpression term : first.getTermsWithState(s))
+			if (!term.isGround())
+				v.add(term);
 
-		for (int i = 0; i < second.getTermsWithState(s).size(); ++i) {
-			if (second.getTermsWithState(s).get(i).isGround())
-				continue;
-			v.addElement(second.getTermsWithState(s).get(i));
-		}
+		for (RegularExpression term : second.getTermsWithState(s))
+			if (!term.isGround())
+				v.add(term);
 
 		return v;
 	}
@@ -85,29 +91,30 @@ public class Or extends RegularExpression {
 	public Vector<RegularExpression> getGroundTerms() {
 		Vector<RegularExpression> v = new Vector<RegularExpression>();
 
-		for (int i = 0; i < first.getGroundTerms().size(); ++i)
-			v.add(first.getGroundTerms().get(i));
-
-		for (int i = 0; i < second.getGroundTerms().size(); ++i)
-			v.add(second.getGroundTerms().get(i));
+		v.addAll(first.getGroundTerms());
+		v.addAll(second.getGroundTerms());
 
 		return v;
 	}
 
 	@Override
 	public boolean isGround() {
-		return first.isGround() && second.isGround();
+		return getVariables().isEmpty();
+	}
+
+	@Override
+	BitSet getVariables() {
+		if (variables == null)
+			variables = union(first.getVariables(), second.getVariables());
+		return variables;
 	}
 
 	@Override
 	public Vector<RegularExpression> inSinglePart() {
 		Vector<RegularExpression> v = new Vector<RegularExpression>();
 
-		for (int i = 0; i < first.inSinglePart().size(); ++i)
-			v.add(first.inSinglePart().get(i));
-
-		for (int i = 0; i < second.inSinglePart().size(); ++i)
-			v.add(second.inSinglePart().get(i));
+		v.addAll(first.inSinglePart());
+		v.addAll(second.inSinglePart());
 
 		return v;
 	}
@@ -122,8 +129,8 @@ public class Or extends RegularExpression {
 
 	@Override
 	public RegularExpression remove(RegularExpression e) {
-		first = first.remove(e);
-		second = second.remove(e);
+		RegularExpression first = this.first.remove(e);
+		RegularExpression second = this.second.remove(e);
 
 
 		if(second instanceof GroundCoeff && ((GroundCoeff) second).getString().equals("")){
@@ -132,18 +139,31 @@ public class Or extends RegularExpression {
 			return second;
 		}
 
-		return this;
+		return first == this.first && second == this.second ? this : new Or(first, second);
 	}
 
 	@Override
 	public RegularExpression factorize(RegularExpression e) {
-		return first.factorize(e) != null && second.factorize(e) != null ? first.factorize(e) :
-			e.factorize(first) != null && e.factorize(second) != null ? e.factorize(first) : null;
+		RegularExpression result = first.factorize(e);
+
+		if (result != null && second.factorize(e) != null)
+			return result;
+
+		result = e.factorize(first);
+
+		if (result != null && e.factorize(second) != null)
+			return result;
+		return null;
 	}
 
 	@Override
 	public RegularExpression simplify() {
+		if (simplified == null)
+			simplified = simplifyOnce();
+		return simplified;
+	}
 
+	private RegularExpression simplifyOnce() {
 		if (first.equals(new GroundCoeff("")) && second.equals(new GroundCoeff("")) )
 			return new GroundCoeff("");
 		else if (first.equals(new GroundCoeff("")) && second instanceof Star)
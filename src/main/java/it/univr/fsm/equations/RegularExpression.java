@@ -1,5 +1,6 @@
 package it.univr.fsm.equations;
 
+import java.util.BitSet;
 import java.util.Vector;
 
 import it.univr.fsm.machine.State;
@@ -12,6 +13,12 @@ import it.univr.fsm.machine.State;
  * @since 24-10-2016
  */
 public abstract class RegularExpression {
+
+	/**
+	 * Variable set of the ground expressions.
+	 */
+	static final BitSet NO_VARIABLES = new BitSet();
+
 	public abstract RegularExpression replace(State s, RegularExpression e);
 	public abstract boolean containsOnly(State s);
 	public abstract boolean contains(State s);
@@ -30,4 +37,40 @@ public abstract class RegularExpression {
 
 	public abstract int hashCode();
 	public abstract boolean equals(Object other);
+
+	/**
+	 * Returns the indexes, given by {@link Var#indexOf(State)}, of the variables
+	 * occurring in the expression. The result is shared and must not be modified.
+	 */
+	abstract BitSet getVariables();
+
+	/**
+	 * Returns the union of the variable sets of two expressions, sharing them when possible.
+	 */
+	static BitSet union(BitSet first, BitSet second) {
+		if (second.isEmpty() || first.equals(second))
+			return first;
+		if (first.isEmpty())
+			return second;
+
+		BitSet result = (BitSet) first.clone();
+		result.or(second);
+		return result;
+	}
+
+	/**
+	 * Returns true if the variable of a state occurs in the expression.
+	 */
+	boolean hasVariable(State s) {
+		int index = Var.indexOf(s);
+		return index >= 0 && getVariables().get(index);
+	}
+
+	/**
+	 * Returns true if no variable other than the one of a state occurs in the expression.
+	 */
+	boolean hasOnlyVariable(State s) {
+		int count = getVariables().cardinality();
+		return count == 0 || (count == 1 && hasVariable(s));
+	}
 }
@@ -0,0 +1,241 @@
+package it.univr.fsm.equations;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import it.univr.fsm.machine.State;
+
+/**
+ * Hash-consing factory of regular expressions: structurally equal expressions
+ * built by the same factory are the very same object, so that they are shared
+ * and their cached hash codes, variable sets and simplifications are computed once.
+ *
+ * The smart constructors of the factory also apply the
+ * algebraic identities of union, concatenation and Kleene star
+ * while building the expressions:
+ * <ul>
+ * <li>∅ is the identity of the union and absorbs the concatenation;</li>
+ * <li>ε is the identity of the concatenation;</li>
+ * <li>r + r = r, ε + r* = r*;</li>
+ * <li>∅* = ε* = ε, (r*)* = r*, (ε + r)* = r*;</li>
+ * <li>adjacent strings are merged in a single ground coefficient.</li>
+ * </ul>
+ */
+public class RegularExpressionFactory {
+
+	private static final EmptySet EMPTY_SET = new EmptySet();
+	private static final GroundCoeff EMPTY_STRING = new GroundCoeff("");
+
+	/**
+	 * The expressions built so far, indexed by their kind and their (already shared) subterms.
+	 */
+	private final HashMap<List<Object>, RegularExpression> table = new HashMap<List<Object>, RegularExpression>();
+
+	/**
+	 * The results of the replacements so far, indexed by the node, the variable and the replacement.
+	 */
+	private final HashMap<List<Object>, RegularExpression> replacements = new HashMap<List<Object>, RegularExpression>();
+
+	/**
+	 * Returns the expression denoting the empty language.
+	 */
+	public RegularExpression emptySet() {
+		return EMPTY_SET;
+	}
+
+	/**
+	 * Returns the expression denoting the empty string.
+	 */
+	public RegularExpression emptyString() {
+		return EMPTY_STRING;
+	}
+
+	/**
+	 * Returns the expression denoting a string.
+	 */
+	public RegularExpression string(String s) {
+		if (s.isEmpty())
+			return EMPTY_STRING;
+
+		return table.computeIfAbsent(Arrays.asList(GroundCoeff.class, s), k -> new GroundCoeff(s));
+	}
+
+	/**
+	 * Returns the expression denoting the symbols of the code points in an interval, the string
+	 * of its code point if it has just one.
+	 */
+	public RegularExpression range(int first, int last) {
+		if (first == last)
+			return string(new String(Character.toChars(first)));
+
+		return table.computeIfAbsent(Arrays.asList(CharRange.class, first, last), k -> new CharRange(first, last));
+	}
+
+	/**
+	 * Returns the expression denoting the variable of a state.
+	 */
+	public RegularExpression var(State s) {
+		return table.computeIfAbsent(Arrays.asList(Var.class, s.getState()), k -> new Var(s));
+	}
+
+	/**
+	 * Returns the shared copy of an expression, built without applying any identity.
+	 *
+	 * @param e the expression.
+	 * @return the expression built by this factory structurally equal to <code>e</code>.
+	 */
+	public RegularExpression intern(RegularExpression e) {
+		if (e instanceof GroundCoeff)
+			return string(((GroundCoeff) e).getString());
+		if (e instanceof CharRange)
+			return range(((CharRange) e).getFirst(), ((CharRange) e).getLast());
+		if (e instanceof Var)
+			return var(((Var) e).getVariable());
+		if (e instanceof Or)
+			return node(Or.class, intern(((Or) e).getFirst()), intern(((Or) e).getSecond()));
+		if (e instanceof Comp)
+			return node(Comp.class, intern(((Comp) e).getFirst()), intern(((Comp) e).getSecond()));
+		if (e instanceof Star)
+			return node(Star.class, intern(((Star) e).getOperand()), null);
+
+		return EMPTY_SET;
+	}
+
+	/**
+	 * Returns an expression with the variable of a state replaced by another expression, as
+	 * {@link RegularExpression#replace(State, RegularExpression)} does, but rewriting each node
+	 * once for the same variable and replacement, so that shared subterms are rewritten once.
+	 *
+	 * @param e the expression.
+	 * @param s the state of the variable.
+	 * @param with the replacement.
+	 * @return the expression with the replaced variable, <code>e</code> if the variable does not occur in it.
+	 */
+	public RegularExpression replace(RegularExpression e, State s, RegularExpression with) {
+		if (!e.hasVariable(s))
+			return e;
+		if (e instanceof Var)
+			return with;
+
+		List<Object> key = Arrays.asList(new Identity(e), s.getState(), new Identity(with));
+		RegularExpression result = replacements.get(key);
+
+		if (result == null) {
+			if (e instanceof Or)
+				result = new Or(replace(((Or) e).getFirst(), s, with), replace(((Or) e).getSecond(), s, with));
+			else if (e instanceof Comp)
+				result = new Comp(replace(((Comp) e).getFirst(), s, with), replace(((Comp) e).getSecond(), s, with));
+			else
+				result = e.replace(s, with);
+
+			replacements.put(key, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the shared node of a given kind and subterms, which must have been built by this factory.
+	 */
+	private RegularExpression node(Class<?> kind, RegularExpression first, RegularExpression second) {
+		List<Object> key = Arrays.asList(kind, new Identity(first), new Identity(second));
+		RegularExpression result = table.get(key);
+
+		if (result == null) {
+			if (kind == Or.class)
+				result = new Or(first, second);
+			else if (kind == Comp.class)
+				result = new Comp(first, second);
+			else
+				result = new Star(first);
+
+			table.put(key, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reference compared by identity, since shared subterms are equal if and only if they are the same.
+	 */
+	private static class Identity {
+		private final Object reference;
+
+		Identity(Object reference) {
+			this.reference = reference;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(reference);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Identity && ((Identity) other).reference == reference;
+		}
+	}
+
+	/**
+	 * Returns the union of two expressions.
+	 */
+	public RegularExpression or(RegularExpression first, RegularExpression second) {
+		if (isEmptySet(first) || first.equals(second))
+			return second;
+		if (isEmptySet(second))
+			return first;
+		if (isEmptyString(first) && (second instanceof Star || nullableUnion(second)))
+			return second;
+		if (isEmptyString(second) && (first instanceof Star || nullableUnion(first)))
+			return first;
+
+		return node(Or.class, first, second);
+	}
+
+	/**
+	 * Returns the concatenation of two expressions.
+	 */
+	public RegularExpression comp(RegularExpression first, RegularExpression second) {
+		if (isEmptySet(first) || isEmptySet(second))
+			return EMPTY_SET;
+		if (isEmptyString(first))
+			return second;
+		if (isEmptyString(second))
+			return first;
+		if (first instanceof GroundCoeff && second instanceof GroundCoeff)
+			return string(((GroundCoeff) first).getString() + ((GroundCoeff) second).getString());
+		if (first instanceof Comp && ((Comp) first).getSecond() instanceof GroundCoeff && second instanceof GroundCoeff)
+			return comp(((Comp) first).getFirst(), comp(((Comp) first).getSecond(), second));
+
+		return node(Comp.class, first, second);
+	}
+
+	/**
+	 * Returns the Kleene star of an expression.
+	 */
+	public RegularExpression star(RegularExpression e) {
+		if (isEmptySet(e) || isEmptyString(e))
+			return EMPTY_STRING;
+		if (e instanceof Star)
+			return e;
+		if (e instanceof Or && isEmptyString(((Or) e).getFirst()))
+			return star(((Or) e).getSecond());
+		if (e instanceof Or && isEmptyString(((Or) e).getSecond()))
+			return star(((Or) e).getFirst());
+
+		return node(Star.class, e, null);
+	}
+
+	public static boolean isEmptySet(RegularExpression e) {
+		return e instanceof EmptySet;
+	}
+
+	public static boolean isEmptyString(RegularExpression e) {
+		return e instanceof GroundCoeff && ((GroundCoeff) e).getString().isEmpty();
+	}
+
+	private static boolean nullableUnion(RegularExpression e) {
+		return e instanceof Or && (isEmptyString(((Or) e).getFirst()) || isEmptyString(((Or) e).getSecond()));
+	}
+}
@@ -0,0 +1,169 @@
+package it.univr.fsm.equations;
+
+import it.univr.exception.MalformedInputException;
+
+/**
+ * Parser of regular expressions in the syntax printed by {@link RegularExpression#toString()}:
+ * <ul>
+ * <li><code>r + s</code> or <code>r | s</code> is the union;</li>
+ * <li><code>rs</code> is the concatenation;</li>
+ * <li><code>r*</code> is the Kleene star;</li>
+ * <li><code>ε</code> is the empty string, and so is an empty expression;</li>
+ * <li><code>∅</code> is the empty language;</li>
+ * <li><code>[a-z]</code> is any character from a to z, whose bounds may be escaped;</li>
+ * <li><code>\c</code> is the character c, also when it is an operator or a blank.</li>
+ * </ul>
+ * Parentheses group subexpressions and unescaped blanks are ignored.
+ */
+public class RegularExpressionParser {
+
+	private final String regex;
+	private final RegularExpressionFactory factory;
+	private int position;
+
+	private RegularExpressionParser(String regex, RegularExpressionFactory factory) {
+		this.regex = regex;
+		this.factory = factory;
+	}
+
+	/**
+	 * Parses a regular expression.
+	 *
+	 * @param regex the regular expression.
+	 * @return the parsed expression.
+	 * @throws MalformedInputException if the expression is not well-formed.
+	 */
+	public static RegularExpression parse(String regex) {
+		return parse(regex, new RegularExpressionFactory());
+	}
+
+	/**
+	 * Parses a regular expression, building its terms by a given factory.
+	 *
+	 * @param regex the regular expression.
+	 * @param factory the factory building the terms.
+	 * @return the parsed expression.
+	 * @throws MalformedInputException if the expression is not well-formed.
+	 */
+	public static RegularExpression parse(String regex, RegularExpressionFactory factory) {
+		RegularExpressionParser parser = new RegularExpressionParser(regex, factory);
+		RegularExpression result = parser.union();
+
+		if (parser.peek() != -1)
+			throw parser.error("unexpected '" + (char) parser.peek() + "'");
+
+		return result;
+	}
+
+	private RegularExpression union() {
+		RegularExpression result = concat();
+
+		while (peek() == '+' || peek() == '|') {
+			position++;
+			result = factory.or(result, concat());
+		}
+
+		return result;
+	}
+
+	private RegularExpression concat() {
+		RegularExpression result = factory.emptyString();
+		StringBuilder literal = new StringBuilder();
+
+		for (int c = peek(); c != -1 && c != '+' && c != '|' && c != ')'; c = peek()) {
+			RegularExpression e = star();
+
+			// adjacent characters are collected in a single string
+			if (e instanceof GroundCoeff)
+				literal.append(((GroundCoeff) e).getString());
+			else {
+				result = factory.comp(factory.comp(result, factory.string(literal.toString())), e);
+				literal.setLength(0);
+			}
+		}
+
+		return factory.comp(result, factory.string(literal.toString()));
+	}
+
+	private RegularExpression star() {
+		RegularExpression result = atom();
+
+		while (peek() == '*') {
+			position++;
+			result = factory.star(result);
+		}
+
+		return result;
+	}
+
+	private RegularExpression atom() {
+		char c = regex.charAt(position++);
+
+		switch (c) {
+		case '(':
+			RegularExpression result = union();
+
+			if (peek() != ')')
+				throw error("missing ')'");
+
+			position++;
+			return result;
+		case '*':
+			throw error("'*' without operand");
+		case 'ε':
+			return factory.emptyString();
+		case '∅':
+			return factory.emptySet();
+		case '[':
+			int first = bound();
+
+			if (position == regex.length() || regex.charAt(position++) != '-')
+				throw error("missing '-'");
+
+			int last = bound();
+
+			if (position == regex.length() || regex.charAt(position++) != ']')
+				throw error("missing ']'");
+			if (first > last)
+				throw error("empty range");
+
+			return factory.range(first, last);
+		case '\\':
+			if (position == regex.length())
+				throw error("incomplete escape");
+
+			return factory.string(regex.substring(position, ++position));
+		default:
+			return factory.string(String.valueOf(c));
+		}
+	}
+
+	/**
+	 * Reads a bound of a range of characters, possibly escaped, and returns its code point.
+	 */
+	private int bound() {
+		if (position < regex.length() && regex.charAt(position) == '\\')
+			position++;
+
+		if (position == regex.length())
+			throw error("incomplete range");
+
+		int c = regex.codePointAt(position);
+		position += Character.charCount(c);
+		return c;
+	}
+
+	/**
+	 * Returns the next character that is not an unescaped blank, or -1 at the end of the expression.
+	 */
+	private int peek() {
+		while (position < regex.length() && Character.isWhitespace(regex.charAt(position)))
+			position++;
+
+		return position < regex.length() ? regex.charAt(position) : -1;
+	}
+
+	private MalformedInputException error(String message) {
+		return new MalformedInputException(message + " at position " + position + " of " + regex);
+	}
+}
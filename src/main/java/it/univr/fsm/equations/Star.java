@@ -1,12 +1,14 @@
 package it.univr.fsm.equations;
 
+import java.util.BitSet;
 import java.util.Vector;
 
 import it.univr.fsm.machine.State;
 
 public class Star extends RegularExpression {
 	
-	private RegularExpression op;
+	private final RegularExpression op;
+	private RegularExpression simplified;
 
 	public Star(RegularExpression op) {
 		this.op = op;
@@ -44,6 +46,8 @@ public class Star extends RegularExpression {
 
 	@Override
 	public boolean equals(Object other) {
+		if (this == other)
+			return true;
 		if(other instanceof Star){
 			return op.equals(((Star) other).op);
 		}
@@ -52,12 +56,12 @@ public class Star extends RegularExpression {
 
 	@Override
 	public boolean containsOnly(State s) {
-		return op.containsOnly(s);
+		return hasOnlyVariable(s);
 	}
 
 	@Override
 	public boolean contains(State s) {
-		return op.contains(s);
+		return hasVariable(s);
 	}
 
 	@Override
@@ -81,8 +85,14 @@ public class Star extends RegularExpression {
 
 	@Override
 	public boolean isGround() {
-		return op.isGround();
+		return getVariables().isEmpty();
 	}
+
+	@Override
+	BitSet getVariables() {
+		return op.getVariables();
+	}
+
 	@Override
 	public Vector<RegularExpression> inSinglePart() {
 		return inBlockPart();
@@ -110,9 +120,12 @@ public class Star extends RegularExpression {
 
 	@Override
 	public RegularExpression simplify() {
-		if(op.toString().equals(""))
-			return new GroundCoeff("");
+		if (simplified == null)
+			if (op instanceof GroundCoeff && ((GroundCoeff) op).getString().isEmpty())
+				simplified = new GroundCoeff("");
+			else
+				simplified = new Star(this.op.simplify());
 
-		return new Star(this.op.simplify());
+		return simplified;
 	}
 }
@@ -1,15 +1,26 @@
 package it.univr.fsm.equations;
 
+import java.util.BitSet;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import it.univr.fsm.machine.State;
 
 public class Var extends RegularExpression {
 
-	private State variable;
+	/**
+	 * Indexes of the variables, by state name.
+	 */
+	private static final ConcurrentHashMap<String, Integer> INDEXES = new ConcurrentHashMap<String, Integer>();
+	private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+	private final State variable;
+	private final BitSet variables = new BitSet();
 
 	public Var(State s) {
 		this.variable = s;
+		this.variables.set(INDEXES.computeIfAbsent(s.getState(), name -> NEXT_INDEX.getAndIncrement()));
 	}
 
 
@@ -17,9 +28,13 @@ public class Var extends RegularExpression {
 		return variable;
 	}
 
-
-	public void setVariable(State variable) {
-		this.variable = variable;
+	/**
+	 * Returns the index of the variable of a state in the variable sets
+	 * of the expressions, or -1 if no variable of that state exists.
+	 */
+	static int indexOf(State s) {
+		Integer index = INDEXES.get(s.getState());
+		return index == null ? -1 : index;
 	}
 
 	@Override
@@ -101,6 +116,11 @@ public class Var extends RegularExpression {
 		return false;
 	}
 
+	@Override
+	BitSet getVariables() {
+		return variables;
+	}
+
 
 	@Override
 	public Vector<RegularExpression> inSinglePart() {
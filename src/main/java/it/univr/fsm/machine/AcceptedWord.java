@@ -0,0 +1,45 @@
+package it.univr.fsm.machine;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A word read by an automaton, with the states of a run reading it.
+ */
+public class AcceptedWord {
+
+	private final String word;
+	private final List<State> path;
+
+	AcceptedWord(String word, List<State> path) {
+		this.word = word;
+		this.path = Collections.unmodifiableList(path);
+	}
+
+	/**
+	 * Returns the word.
+	 */
+	public String getWord() {
+		return word;
+	}
+
+	/**
+	 * Returns the length of the word, namely its number of symbols.
+	 */
+	public int getLength() {
+		return word.length();
+	}
+
+	/**
+	 * Returns the states of the run, from an initial state, including those
+	 * reached by epsilon transitions.
+	 */
+	public List<State> getPath() {
+		return path;
+	}
+
+	@Override
+	public String toString() {
+		return word + " " + path;
+	}
+}
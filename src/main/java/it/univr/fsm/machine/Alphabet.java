@@ -0,0 +1,133 @@
+package it.univr.fsm.machine;
+
+/**
+ * Alphabet of the automata, as an interval of Unicode code points, each read as a symbol of a single
+ * code point. The alphabet is the set of the symbols read by the implicit accepting sink, by the
+ * complements and by the top language, and the symbols added by {@link Automaton#totalize(Automaton)}
+ * and by the automata of the strings of a length.
+ *
+ * The missing transitions of an automaton with an implicit accepting sink stand for a transition to
+ * the sink reading the symbols of the alphabet not read by their state, so the top language, the
+ * empty language and the complements of deterministic automata take space independent of the size
+ * of the alphabet. Making the sink explicit, as minimizations do, adds a transition reading a range
+ * of code points for each interval of the alphabet not read by a state, see
+ * {@link Transition#Transition(State, State, int, int)}, so it does not enumerate the alphabet either.
+ *
+ * Each automaton has its own alphabet, see {@link Automaton#getAlphabet()}, so that building automata
+ * over an alphabet never changes the language of the automata built over another one.
+ */
+public final class Alphabet {
+
+	/**
+	 * The printable ASCII characters but space, from '!' to '~'.
+	 */
+	public static final Alphabet PRINTABLE_ASCII = new Alphabet('!', '~');
+
+	/**
+	 * The ASCII characters.
+	 */
+	public static final Alphabet ASCII = new Alphabet(0, 0x7F);
+
+	/**
+	 * The characters of the basic multilingual plane, namely the single UTF-16 code units.
+	 */
+	public static final Alphabet BMP = new Alphabet(0, 0xFFFF);
+
+	/**
+	 * All the Unicode code points.
+	 */
+	public static final Alphabet UNICODE = new Alphabet(0, Character.MAX_CODE_POINT);
+
+	private final int first;
+	private final int last;
+
+	/**
+	 * Constructs the alphabet of the code points in an interval.
+	 *
+	 * @param first the first code point.
+	 * @param last the last code point, included.
+	 */
+	public Alphabet(int first, int last) {
+		if (first < 0 || last > Character.MAX_CODE_POINT || first > last)
+			throw new IllegalArgumentException("invalid interval of code points [" + first + ", " + last + "]");
+
+		this.first = first;
+		this.last = last;
+	}
+
+	/**
+	 * Returns the number of symbols.
+	 */
+	public int size() {
+		return last - first + 1;
+	}
+
+	/**
+	 * Returns the symbol of an index, from 0 to {@link #size()} excluded.
+	 */
+	public String getSymbol(int index) {
+		return new String(Character.toChars(first + index));
+	}
+
+	/**
+	 * Returns the index of a symbol, or -1 if it is not in the alphabet.
+	 */
+	public int indexOf(String symbol) {
+		int c = SymbolTable.codePoint(symbol);
+		return c < first || c > last ? -1 : c - first;
+	}
+
+	/**
+	 * Returns true if a symbol is in the alphabet.
+	 */
+	public boolean contains(String symbol) {
+		return indexOf(symbol) >= 0;
+	}
+
+	/**
+	 * Returns true if all the code points of a symbol or range, given by its number in the
+	 * {@link SymbolTable}, are in the alphabet.
+	 */
+	boolean containsSymbol(int symbol) {
+		return SymbolTable.firstCodePoint(symbol) >= first && SymbolTable.lastCodePoint(symbol) <= last;
+	}
+
+	/**
+	 * Returns the first code point.
+	 */
+	int getFirst() {
+		return first;
+	}
+
+	/**
+	 * Returns the last code point.
+	 */
+	int getLast() {
+		return last;
+	}
+
+	/**
+	 * Returns the smallest alphabet including this alphabet and another one.
+	 */
+	public Alphabet span(Alphabet other) {
+		if (other.first >= first && other.last <= last)
+			return this;
+
+		return new Alphabet(Math.min(first, other.first), Math.max(last, other.last));
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof Alphabet && first == ((Alphabet) other).first && last == ((Alphabet) other).last;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * first + last;
+	}
+
+	@Override
+	public String toString() {
+		return SymbolTable.rangeName(first, last);
+	}
+}
@@ -0,0 +1,18 @@
+package it.univr.fsm.machine;
+
+/**
+ * Coarsening of the automata that grow past a number of states, applied by an {@link OperationContext}
+ * to the results of the operations.
+ *
+ * @see Coarsening
+ */
+public interface ApproximationPolicy {
+
+	/**
+	 * Returns an automaton with at most a number of states, recognizing a superset of the language of an automaton.
+	 *
+	 * @param a the automaton, which is not modified.
+	 * @param maxStates the maximum number of states, at least 1.
+	 */
+	Automaton approximate(Automaton a, int maxStates);
+}
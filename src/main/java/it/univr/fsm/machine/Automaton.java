@@ -24,6 +24,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.util.*;
 
 /**
@@ -55,6 +56,34 @@ public class Automaton {
 	 */
 	private HashMap<State, HashSet<Transition>> adjacencyListOutgoing;
 
+	/**
+	 * Adjacency list Incoming, kept consistent with the outgoing one
+	 */
+	private HashMap<State, HashSet<Transition>> adjacencyListIncoming;
+
+	/**
+	 * Index of the transitions by source state and symbol, null if not built yet.
+	 */
+	private TransitionIndex transitionIndex;
+
+	/**
+	 * Whether the missing transitions lead to an implicit accepting sink.
+	 * The sink reads any symbol of the alphabet and it is used only by deterministic automata,
+	 * the structural operations make it explicit by {@link #materializeSink()}.
+	 */
+	private boolean acceptingSink;
+
+	/**
+	 * The alphabet of the automaton: the symbols read by its implicit accepting sink, by its
+	 * complement and by the transitions added by totalization.
+	 */
+	private Alphabet alphabet = Alphabet.PRINTABLE_ASCII;
+
+	/**
+	 * Whether the automaton has no cycles, null if not computed yet.
+	 */
+	private Boolean acyclic;
+
 	/**
 	 * Constructs a new automaton.
 	 * 
@@ -74,6 +103,7 @@ public class Automaton {
 
 	private void computeAdjacencyList() {	
 		adjacencyListOutgoing = new HashMap<State, HashSet<Transition>>();
+		acyclic = null;
 
 		for (Transition t : getDelta()) {
 			if (!adjacencyListOutgoing.containsKey(t.getFrom()))
@@ -81,6 +111,17 @@ public class Automaton {
 
 			adjacencyListOutgoing.get(t.getFrom()).add(t);	
 		}
+
+		computeIncomingAdjacencyList();
+	}
+
+	private void computeIncomingAdjacencyList() {
+		adjacencyListIncoming = new HashMap<State, HashSet<Transition>>();
+		transitionIndex = null;
+
+		for (HashSet<Transition> outgoing : adjacencyListOutgoing.values())
+			for (Transition t : outgoing)
+				adjacencyListIncoming.computeIfAbsent(t.getTo(), k -> new HashSet<Transition>()).add(t);
 	}
 
 	/**
@@ -90,17 +131,11 @@ public class Automaton {
 	 * @return a boolean
 	 */
 	public static boolean isDeterministic(Automaton a){
-		for(State s: a.states){
-			HashSet<Transition> outgoingTranisitions = a.getOutgoingTransitionsFrom(s);
-			for(Transition t: outgoingTranisitions){
-				if (t.getInput().isEmpty()) return false;
-
-				for(Transition t2: outgoingTranisitions) {
-					if (t2.getInput().isEmpty()) return false;
-					if(!t.getTo().equals(t2.getTo()) && t.getInput().equals(t2.getInput())) return false; 
-				}
-			}
-		}
+		TransitionIndex index = a.getTransitionIndex();
+
+		for(State s: a.states)
+			if (!index.getRow(s).isDeterministic())
+				return false;
 		return true;
 	}
 
@@ -114,7 +149,7 @@ public class Automaton {
 	 */
 	public static boolean isContained(Automaton first, Automaton second){
 		// first is contained in second if (first intersect !second) accepts empty language
-		return Automaton.isEmptyLanguageAccepted(Automaton.intersection(first, Automaton.complement(second)));
+		return Automaton.isEmptyLanguageAccepted(Automaton.product(first, OperationContext.exactly(() -> Automaton.complement(second, false))));
 	}
 
 	public static Automaton chars(Automaton a) {
@@ -131,9 +166,10 @@ public class Automaton {
 		states.add(qf);
 
 		for (Transition t : a.getDelta())
-			delta.add(new Transition(q0, qf, t.getInput()));
+			delta.add(t.copy(q0, qf));
 
 		Automaton aut = new Automaton(delta, states);
+		aut.alphabet = a.alphabet;
 		aut.minimize();
 		return aut;
 	}
@@ -146,21 +182,24 @@ public class Automaton {
 	 * @return a boolean
 	 */
 	public static boolean isReachable(State f, Automaton a ){
-		HashSet<Transition> transitionSet;
+		HashSet<State> visited = new HashSet<State>();
+		LinkedList<State> worklist = new LinkedList<State>();
+		visited.add(f);
+		worklist.add(f);
 
-		if (f.isInitialState()) {
-			return true;
-		} else {
-			for(State s: a.states){
-				transitionSet = a.getTransitionFrom(s, f);
+		// backward visit from f
+		while (!worklist.isEmpty()) {
+			State s = worklist.removeFirst();
 
-				if( transitionSet != null)
-					for(Transition t: transitionSet)
-						if(isReachable(t.getFrom(),a)) return true;
-			}
+			if (s.isInitialState())
+				return true;
 
-			return false;
+			for (Transition t : a.getIncomingTransitionsTo(s))
+				if (visited.add(t.getFrom()))
+					worklist.addLast(t.getFrom());
 		}
+
+		return false;
 	}
 
 	/**
@@ -170,8 +209,22 @@ public class Automaton {
 	 * @return a boolean
 	 */
 	public static boolean isEmptyLanguageAccepted(Automaton automaton) {
-		automaton.minimize();
-		return automaton.getFinalStates().isEmpty(); //&& !automaton.states.isEmpty();
+		HashSet<State> visited = new HashSet<State>();
+		LinkedList<State> worklist = new LinkedList<State>(automaton.getInitialStates());
+		visited.addAll(worklist);
+
+		while (!worklist.isEmpty()) {
+			State s = worklist.removeFirst();
+
+			if (s.isFinalState() || (automaton.acceptingSink && !automaton.isTotal(s)))
+				return false;
+
+			for (Transition t : automaton.getOutgoingTransitionsFrom(s))
+				if (visited.add(t.getTo()))
+					worklist.addLast(t.getTo());
+		}
+
+		return true;
 	}
 
 	/**
@@ -181,17 +234,53 @@ public class Automaton {
 	 * @return the intersection
 	 */
 	public static Automaton intersection(Collection<Automaton> collection) {
-		Automaton a = null;
+		return Automaton.intersection(collection, ReductionStrategy.LEFT_FOLD);
+	}
 
-		for (Automaton aut: collection)
-			a = (a == null) ? aut : Automaton.intersection(a, aut);
+	/**
+	 * Performs an intersection between multiple automatons
+	 * 
+	 * The automatons are combined by products, which are not minimized, and the result is minimized once.
+	 * 
+	 * @param collection a collection of automatons
+	 * @param strategy the order in which the automatons are intersected
+	 * @return the intersection
+	 */
+	public static Automaton intersection(Collection<Automaton> collection, ReductionStrategy strategy) {
+		Automaton a = Reduction.reduce(new ArrayList<Automaton>(collection), Automaton::product, true, strategy);
 
-		if (a != null)
-			a.minimize();
-		return a;
+		if (a == null)
+			return null;
+
+		// a single automaton is the reduction itself
+		if (collection.size() == 1)
+			a = a.clone();
+
+		a.minimize();
+		return OperationContext.coarsen(a);
 	}
 
+	/**
+	 * Performs a union between multiple automatons
+	 * The automatons are merged by unions that are not minimized, and the result is minimized once.
+	 * 
+	 * @param collection a collection of automatons
+	 * @param strategy the order in which the automatons are merged
+	 * @return the union
+	 */
+	public static Automaton union(Collection<Automaton> collection, ReductionStrategy strategy) {
+		Automaton a = Reduction.reduce(new ArrayList<Automaton>(collection), (x, y) -> Automaton.union(Arrays.asList(x, y), false), true, strategy);
+
+		if (a == null)
+			return Automaton.makeEmptyLanguage();
+
+		// a single automaton is the reduction itself
+		if (collection.size() == 1)
+			a = a.clone();
 
+		a.minimize();
+		return OperationContext.coarsen(a);
+	}
 
 	/**
 	 * Performs a concatenation between multiple automatons
@@ -203,12 +292,117 @@ public class Automaton {
 	 * 
 	 */
 	public static Automaton concat(Collection <Automaton> collection){
-		Automaton result = null;
+		if (collection.isEmpty())
+			return null;
+
+		return Automaton.concat(collection, true);
+	}
+
+	/**
+	 * Performs a concatenation between multiple automatons
+	 * 
+	 * The automatons are concatenated without minimizing, and the result is minimized once.
+	 * 
+	 * @param collection a collection of automatons
+	 * @param strategy the order in which the automatons are concatenated, every strategy preserves the order of the collection
+	 * @return the concatenation
+	 * 
+	 * Warning: the collection should consider the order between the automatons since the concatenation is not commutative
+	 * 
+	 */
+	public static Automaton concat(Collection<Automaton> collection, ReductionStrategy strategy) {
+		Automaton a = Reduction.reduce(new ArrayList<Automaton>(collection), (x, y) -> Automaton.concat(Arrays.asList(x, y), false), false, strategy);
 
-		for (Automaton aut: collection) 
-			result = (result == null) ? aut : Automaton.concat(result, aut);
+		if (a == null)
+			return null;
 
-		return result;
+		// a single automaton is the reduction itself
+		if (collection.size() == 1)
+			a = a.clone();
+
+		a.minimize();
+		return OperationContext.coarsen(a);
+	}
+
+	/**
+	 * Performs a concatenation between multiple automatons, without epsilon transitions.
+	 * Each final state of the partial result receives a copy of the transitions leaving
+	 * the initial states of the next automaton.
+	 * 
+	 * @param collection a collection of automatons
+	 * @param minimize whether the result has to be minimized
+	 * @return the concatenation
+	 * 
+	 * Warning: the collection should consider the order between the automatons since the concatenation is not commutative
+	 * 
+	 */
+	public static Automaton concat(Collection<Automaton> collection, boolean minimize) {
+		OperationMetrics metrics = Instrumentation.start("concat", collection);
+		HashSet<Transition> newDelta = new HashSet<Transition>();
+		HashSet<State> newStates = new HashSet<State>();
+
+		// the partial result starts as the empty string automaton
+		State newInitialState = new State("q0", true, true);
+		newStates.add(newInitialState);
+
+		HashSet<State> finalStates = new HashSet<State>();
+		finalStates.add(newInitialState);
+
+		Alphabet alphabet = null;
+		int c = 1;
+
+		for (Automaton aut : collection) {
+			HashMap<State, State> mapping = new HashMap<State, State>();
+			alphabet = alphabet == null ? aut.alphabet : alphabet.span(aut.alphabet);
+
+			aut = aut.withExplicitSink();
+			HashSet<State> newFinalStates = new HashSet<State>();
+			boolean acceptsEmptyString = false;
+
+			for (State s : aut.states) {
+				mapping.put(s, new State("q" + c++, false, s.isFinalState()));
+				newStates.add(mapping.get(s));
+
+				if (s.isFinalState())
+					newFinalStates.add(mapping.get(s));
+
+				if (s.isInitialState() && s.isFinalState())
+					acceptsEmptyString = true;
+			}
+
+			for (Transition t : aut.delta) {
+				newDelta.add(t.copy(mapping.get(t.getFrom()), mapping.get(t.getTo())));
+
+				// links the final states of the partial result to the successors of the initial states
+				if (t.getFrom().isInitialState())
+					for (State f : finalStates)
+						newDelta.add(t.copy(f, mapping.get(t.getTo())));
+			}
+
+			// the final states of the partial result stay final only if the empty string is read
+			for (State f : finalStates)
+				if (acceptsEmptyString)
+					newFinalStates.add(f);
+				else
+					f.setFinalState(false);
+
+			finalStates = newFinalStates;
+		}
+
+		Automaton a = new Automaton(newDelta, newStates);
+
+		if (alphabet != null)
+			a.alphabet = alphabet;
+
+		// the copies of the initial states are kept only if reachable by some loop, and dead states are dropped
+		a.trim();
+
+		if (minimize)
+			a.minimize();
+
+		a = OperationContext.coarsen(a);
+		Instrumentation.end(metrics, a);
+		return a;
 	}
 
 	/**
@@ -229,6 +423,30 @@ public class Automaton {
 		return a;
 	}
 
+	/**
+	 * Performs a subtraction between multiple automatons, as the
+	 * subtraction of the union of the others from the first one
+	 * 
+	 * @param collection a collection of automatons
+	 * @param strategy the order in which the subtracted automatons are merged
+	 * @return the subtraction
+	 * 
+	 */
+	public static Automaton minus(Collection<Automaton> collection, ReductionStrategy strategy) {
+		if (collection.isEmpty())
+			return null;
+
+		ArrayList<Automaton> others = new ArrayList<Automaton>(collection);
+		Automaton first = others.remove(0);
+
+		if (others.isEmpty()) {
+			first.minimize();
+			return first;
+		}
+
+		return Automaton.minus(first, OperationContext.exactly(() -> Automaton.union(others, strategy)));
+	}
+
 	/**
 	 * Performs the difference between two automatons
 	 * 
@@ -238,12 +456,12 @@ public class Automaton {
 	 */
 
 	public static Automaton minus(Automaton first, Automaton second){
-		// first \ second = first intersect !second
+		// first \ second = first intersect !second, where !second cannot be over-approximated
 
-		Automaton a = Automaton.intersection(first, Automaton.complement(second));
+		Automaton a = Automaton.product(first, OperationContext.exactly(() -> Automaton.complement(second, false)));
 		a.minimize();
 
-		return a;
+		return OperationContext.coarsen(a);
 	}
 
 	/**
@@ -255,140 +473,276 @@ public class Automaton {
 	 * 
 	 */
 	public static Automaton concat(Automaton first, Automaton second){
+		return Automaton.concat(Arrays.asList(first, second), true);
+	}
 
-		HashMap<State, State> mappingFirst = new HashMap<State,State>();
-		HashMap<State, State> mappingSecond = new HashMap<State, State>();
-		HashSet<Transition> newDelta = new HashSet<Transition>();
-		HashSet<State> newStates = new HashSet<State>();
-		HashSet<State> firstFinalStates = new HashSet<>();
-		HashSet<State> secondInitialStates = new HashSet<>();
+	/**
+	 * Performs the automata complement operation
+	 * 
+	 * @param  automaton the automata input
+	 * @return the complement of the automata
+	 */
+	public static Automaton complement(Automaton automaton) {
+		return Automaton.complement(automaton, true);
+	}
 
-		int c = 0;
+	/**
+	 * Performs the automata complement operation. The automaton is determinized only 
+	 * if it is not deterministic, then its final states are swapped together with the
+	 * implicit sink reached by the missing transitions.
+	 * 
+	 * @param  automaton the automata input
+	 * @param minimize whether the result has to be minimized, otherwise its sink is left implicit
+	 * @return the complement of the automata
+	 */
+	public static Automaton complement(Automaton automaton, boolean minimize) {
+		OperationMetrics metrics = Instrumentation.start("complement", automaton);
+		Automaton a = isDeterministic(automaton) && automaton.getInitialStates().size() == 1 ? automaton.clone() : automaton.determinize();
 
-		// Add all the first automaton states
-		for (State s: first.states) {
+		for (State s : a.states)
+			s.setFinalState(!s.isFinalState());
 
-			// The first automaton states are not final, can be initial states
-			mappingFirst.put(s, new State("q" + c++, s.isInitialState(), false));
-			newStates.add(mappingFirst.get(s));
+		a.acceptingSink = !a.acceptingSink;
 
-			if (s.isFinalState())
-				firstFinalStates.add(s);
-		}
+		if (minimize)
+			a.minimize();
 
-		// Add all the second automaton states
-		for (State s: second.states) {
+		a = OperationContext.coarsen(a);
+		Instrumentation.end(metrics, a);
+		return a;
+	}
 
-			// the second automaton states are final, can't be initial states
-			mappingSecond.put(s, new State("q" + c++, false, s.isFinalState()));
-			newStates.add(mappingSecond.get(s));
+	public static Automaton totalize(Automaton automaton) {		
+		Automaton result = new Automaton(new HashSet<Transition>(automaton.getDelta()), new HashSet<State>(automaton.getStates()));
+		result.acceptingSink = automaton.acceptingSink;
+		result.alphabet = automaton.alphabet;
 
-			if(s.isInitialState())
-				secondInitialStates.add(s);
-		}
+		result.materializeSink();
+		result.addSink(false);
 
-		// Add all the first automaton transitions
-		for (Transition t: first.delta)
-			newDelta.add(new Transition(mappingFirst.get(t.getFrom()), mappingFirst.get(t.getTo()), t.getInput()));
+		return result;
+	}
 
-		// Add all the second automaton transitions
-		for (Transition t: second.delta)
-			newDelta.add(new Transition(mappingSecond.get(t.getFrom()), mappingSecond.get(t.getTo()), t.getInput()));
+	/**
+	 * Makes the implicit accepting sink of the automaton explicit, if any.
+	 */
+	public void materializeSink() {
+		if (!acceptingSink)
+			return;
 
-		// Add the links between the first automaton final states and the second automaton initial state
-		for (State f: firstFinalStates)
-			for(State s : secondInitialStates)
-				newDelta.add(new Transition(mappingFirst.get(f), mappingSecond.get(s), ""));
+		acceptingSink = false;
+		addSink(true);
+	}
 
-		Automaton a = new Automaton(newDelta, newStates);
-		a.minimize();
+	/**
+	 * Returns true if the missing transitions of the automaton lead to an implicit accepting sink.
+	 */
+	public boolean hasAcceptingSink() {
+		return acceptingSink;
+	}
 
-		return a;
+	/**
+	 * Returns the alphabet of the automaton, {@link Alphabet#PRINTABLE_ASCII} unless it is set.
+	 * The operations build their results over the alphabet of their arguments, or over the
+	 * smallest alphabet including the alphabets of all of them.
+	 */
+	public Alphabet getAlphabet() {
+		return alphabet;
+	}
 
+	/**
+	 * Sets the alphabet of the automaton. Its implicit accepting sink, if any, is made explicit
+	 * over the previous alphabet first, so that the language of the automaton does not change.
+	 */
+	public void setAlphabet(Alphabet alphabet) {
+		materializeSink();
+		this.alphabet = alphabet;
 	}
 
 	/**
-	 * Performs the automata complement operation
+	 * Adds a sink state, reached by every missing transition of the automaton. Each state
+	 * reaches it by a range for each interval of the alphabet that the state does not read.
 	 * 
-	 * @param  automaton the automata input
-	 * @return the complement of the automata
+	 * @param isFinal whether the sink is a final state.
 	 */
-	public static Automaton complement(Automaton automaton) {
-		HashMap<State, State> mapping = new HashMap<State,State>();
-		HashSet<Transition> newDelta = new HashSet<Transition>();
-		HashSet<State> newStates = new HashSet<State>();
+	private void addSink(boolean isFinal) {
+		String name = "qbottom";
+
+		for (int i = 0; getState(name) != null; ++i)
+			name = "qbottom" + i;
 
+		State sink = new State(name, false, isFinal);
+		TransitionIndex index = getTransitionIndex();
 
-		automaton = Automaton.totalize(automaton.clone());
+		for (State s : states) {
+			int[] gaps = index.getRow(s).gaps(alphabet.getFirst(), alphabet.getLast());
 
-		// Add states to the mapping, replacing accept states to reject
-		for(State s: automaton.states) {
-			mapping.put(s, new State(s.getState(), s.isInitialState(), !s.isFinalState()));
-			newStates.add(mapping.get(s));
+			for (int i = 0; i < gaps.length; i += 2)
+				delta.add(new Transition(s, sink, gaps[i], gaps[i + 1]));
 		}
 
-		// Copying delta set
-		for (Transition t:  automaton.delta)
-			newDelta.add(new Transition(mapping.get(t.getFrom()), mapping.get(t.getTo()), t.getInput()));
+		states.add(sink);
+		delta.add(new Transition(sink, sink, alphabet.getFirst(), alphabet.getLast()));
 
-		Automaton a = new Automaton(newDelta,newStates);
-		a.minimize();
-		return a;
+		computeAdjacencyList();
 	}
 
-	public static Automaton totalize(Automaton automaton) {		
-		HashSet<State> newState = new HashSet<>();
-		HashSet<Transition> newDelta = new HashSet<>();
+	/**
+	 * Returns true if the state has an outgoing transition for each symbol of the alphabet.
+	 */
+	private boolean isTotal(State s) {
+		return getTransitionIndex().getRow(s).gaps(alphabet.getFirst(), alphabet.getLast()).length == 0;
+	}
 
-		for (State s : automaton.getStates())
-			newState.add(s);
+	private boolean isAlphabetSymbol(String input) {
+		return alphabet.contains(input);
+	}
 
-		State qbottom = new State("qbottom", false, false);
+	/**
+	 * Does the automata intersection
+	 * 
+	 * @param first the first automata
+	 * @param second the first automata
+	 * @return a new automata, the intersection of the first and the second
+	 */
 
-		newState.add(qbottom);
+	public static Automaton intersection(Automaton first, Automaton second) {
+		Automaton result = Automaton.product(first, second);
+		result.minimize();
+		return OperationContext.coarsen(result);
+	}
 
-		for (Transition t : automaton.getDelta())
-			newDelta.add(t);
+	/**
+	 * Product construction between two automata, exploring only the reachable pairs of states.
+	 * The implicit accepting sinks of the automata are kept as a component of the pairs, numbered
+	 * after the states of their automaton. The pairs follow one symbol for each class of the
+	 * {@link Minterms} of the automata.
+	 * 
+	 * @param first the first automata
+	 * @param second the first automata
+	 * @return a new automata recognizing the intersection of the languages, not minimized
+	 */
+	private static Automaton product(Automaton first, Automaton second) {
+		OperationMetrics metrics = Instrumentation.start("product", first, second);
+		OperationContext context = OperationContext.current();
+
+		// the pair of the sinks is a sink only if they read the same symbols
+		if (first.acceptingSink && second.acceptingSink && !first.alphabet.equals(second.alphabet))
+			second = second.withExplicitSink();
+
+		Alphabet[] sinkAlphabets = { first.acceptingSink ? first.alphabet : null, second.acceptingSink ? second.alphabet : null };
+		RangePartition partition = RangePartition.of(Arrays.asList(first, second));
+		StateSet.Universe u1 = new StateSet.Universe(first, partition), u2 = new StateSet.Universe(second, partition);
+		Minterms minterms = new Minterms(Arrays.asList(u1, u2), sinkAlphabets);
+		int[] labels1 = minterms.localLabels(u1), labels2 = minterms.localLabels(u2);
+		int sink1 = u1.size(), sink2 = u2.size();
+		int classes = minterms.getClassCount();
+		boolean[] sinkClass1 = new boolean[classes], sinkClass2 = new boolean[classes];
+
+		for (int c = 0; c < classes; ++c) {
+			// the symbols of a class are all read by a sink, or none of them
+			sinkClass1[c] = first.acceptingSink && first.alphabet.containsSymbol(minterms.getRepresentative(c));
+			sinkClass2[c] = second.acceptingSink && second.alphabet.containsSymbol(minterms.getRepresentative(c));
+		}
 
-		for (char alphabet = '!'; alphabet <= '~'; ++alphabet) 
-			newDelta.add(new Transition(qbottom, qbottom, String.valueOf(alphabet)));
+		HashSet<State> newStates = new HashSet<State>();
+		HashSet<Transition> newDelta = new HashSet<Transition>();
+		HashMap<Long, State> names = new HashMap<Long, State>();
+		ArrayDeque<Long> worklist = new ArrayDeque<Long>();
+
+		for (int i1 = 0; i1 < sink1; ++i1)
+			for (int i2 = 0; i2 < sink2; ++i2)
+				if (u1.getState(i1).isInitialState() && u2.getState(i2).isInitialState())
+					productState(i1, i2, true, u1, u2, names, newStates, worklist);
+
+		int[] targets1 = new int[Math.max(1, sink1)], targets2 = new int[Math.max(1, sink2)];
+
+		while (!worklist.isEmpty()) {
+			if (metrics != null)
+				metrics.frontier(worklist.size());
+			if (context != null)
+				context.check(names.size(), newDelta.size());
+
+			long pair = worklist.removeFirst();
+			int p = (int) (pair / (sink2 + 1)), q = (int) (pair % (sink2 + 1));
+			State from = names.get(pair);
+
+			// epsilon transitions move a single component
+			if (p < sink1)
+				for (int j = u1.firstEpsilonTransition(p); j < u1.firstEpsilonTransition(p + 1); ++j)
+					newDelta.add(new Transition(from, productState(u1.getEpsilonTarget(j), q, false, u1, u2, names, newStates, worklist), ""));
+			if (q < sink2)
+				for (int j = u2.firstEpsilonTransition(q); j < u2.firstEpsilonTransition(q + 1); ++j)
+					newDelta.add(new Transition(from, productState(p, u2.getEpsilonTarget(j), false, u1, u2, names, newStates, worklist), ""));
+
+			for (int c = 0; c < classes; ++c) {
+				int n1 = targets(u1, p, labels1[c], sinkClass1[c], targets1);
+
+				if (n1 == 0)
+					continue;
 
+				int n2 = targets(u2, q, labels2[c], sinkClass2[c], targets2);
 
-		Automaton result = new Automaton(newDelta, newState);
+				for (int t1 = 0; t1 < n1; ++t1)
+					for (int t2 = 0; t2 < n2; ++t2) {
+						State to = productState(targets1[t1], targets2[t2], false, u1, u2, names, newStates, worklist);
 
-		for (State s : newState)
-			for (char alphabet = '!'; alphabet <= '~'; ++alphabet) {
-				HashSet<State> states = new HashSet<>();
-				states.add(s);
+						for (int symbol : minterms.members(c))
+							newDelta.add(Transition.withSymbol(from, to, symbol));
+					}
+			}
+		}
 
-				if (!result.readableCharFromState(states).contains(String.valueOf(alphabet)))
-					newDelta.add(new Transition(s, qbottom, String.valueOf(alphabet)));
+		Automaton a = new Automaton(Transition.mergeRanges(newDelta), newStates);
 
-			}
+		// the pairs made of the two sinks are the sink of the product
+		a.acceptingSink = first.acceptingSink && second.acceptingSink;
+		a.alphabet = first.alphabet.span(second.alphabet);
+		a.trim();
 
-		return new Automaton(newDelta, newState);
+		Instrumentation.end(metrics, a);
+		return a;
 	}
 
 	/**
-	 * Does the automata intersection
-	 * 
-	 * @param first the first automata
-	 * @param second the first automata
-	 * @return a new automata, the intersection of the first and the second
+	 * Stores the targets of a state reading a symbol into an array, returning their number. The missing
+	 * transitions lead to the sink, numbered after the states, if they are read by an implicit sink.
 	 */
+	private static int targets(StateSet.Universe u, int state, int label, boolean toSink, int[] result) {
+		if (state == u.size()) {
+			result[0] = state;
+			return toSink ? 1 : 0;
+		}
 
-	public static Automaton intersection(Automaton first, Automaton second) {
+		int j = label < 0 ? -1 : u.findTransition(state, label);
+
+		if (j < 0) {
+			result[0] = u.size();
+			return toSink ? 1 : 0;
+		}
 
-		// !(!(first) u !(second))
-		Automaton notFirst = Automaton.complement(first);
-		Automaton notSecond = Automaton.complement(second);
+		int count = 0;
 
-		Automaton union = Automaton.union(notFirst, notSecond);
-		//		union.minimize();
+		for (; j < u.firstTransition(state + 1) && u.getLabel(j) == label; ++j)
+			result[count++] = u.getTarget(j);
 
-		Automaton result = Automaton.complement(union);
-		//		result.minimize();
-		return result;
+		return count;
+	}
+
+	private static State productState(int p, int q, boolean initial, StateSet.Universe u1, StateSet.Universe u2, HashMap<Long, State> names, HashSet<State> newStates, ArrayDeque<Long> worklist) {
+		// the pairs are numbered densely, since the hash of a long mixes its halves
+		long pair = (long) p * (u2.size() + 1) + q;
+		State s = names.get(pair);
+
+		if (s == null) {
+			boolean isFinal = (p == u1.size() || u1.getState(p).isFinalState()) && (q == u2.size() || u2.getState(q).isFinalState());
+			s = new State("q" + names.size(), initial, isFinal);
+			names.put(pair, s);
+			newStates.add(s);
+			worklist.addLast(pair);
+		}
+
+		return s;
 	}
 
 	/**
@@ -844,34 +1198,29 @@ public class Automaton {
 	}
 
 	public boolean run(String s, State state){
-		ArrayList<String> input = (ArrayList<String>) toList(s);
+		HashSet<State> current = epsilonClosure(state);
 
-		return _run(input, state);
-
-	}
+		// simulates all the runs at once, so that nondeterministic choices are read only once
+		List<String> input = toList(s);
 
-	private boolean _run(ArrayList<String> s, State state){
-		boolean found = false;
+		for (int i = 0; i < input.size(); ++i) {
+			HashSet<State> next = epsilonClosure(moveNFA(current, input.get(i)));
 
-		if(state.isFinalState() && s.isEmpty())
-			return true;
-		else if(!state.isFinalState() && s.isEmpty()) //string is empty and I'm not in a final state
-			return false;
-		else{
-			ArrayList<String> scopy = new ArrayList<>(s);
-			String ch = scopy.get(0);
-
-			for(Transition t : getOutgoingTransitionsFrom(state)){
-				if(t.isFirable(state, ch) && !t.getInput().equals("")) {
-					scopy.remove(0);
-					found = found || _run(scopy, t.fire(ch));
-				}else if(t.getInput().equals("")){
-					found = found || _run(scopy, t.fire(ch));
-				}
+			// the implicit sink reads the rest of the string
+			if (next.isEmpty() && acceptingSink) {
+				for (String ch : input.subList(i, input.size()))
+					if (!isAlphabetSymbol(ch))
+						return false;
+				return true;
 			}
+
+			if (next.isEmpty())
+				return false;
+
+			current = next;
 		}
 
-		return found;
+		return isPartitionFinalState(current);
 	}
 
 	/**
@@ -919,22 +1268,52 @@ public class Automaton {
 	 */
 	public void setDelta(HashSet<Transition> delta) {
 		this.delta = delta;
+		this.computeAdjacencyList();
 	}
 
 	/**
-	 * Returns the string as an array of chars.
+	 * Returns the string as a list of symbols, one for each code point.
 	 */
 	public static List<String> toList(String s) {
 		ArrayList<String> result = new ArrayList<String>();
 
-		for (int i = 0; i < s.length(); ++i)
-			result.add(s.substring(i, i+1));
+		// a code point outside the basic multilingual plane is a single symbol
+		for (int i = 0, next; i < s.length(); i = next) {
+			next = i + Character.charCount(s.codePointAt(i));
+			result.add(s.substring(i, next));
+		}
 
 		return result;
 	}
 
 	public void removeTransition(Transition t) {
-		this.delta.remove(t);
+		if (!this.delta.remove(t))
+			return;
+
+		removeFromAdjacencyList(adjacencyListOutgoing, t.getFrom(), t);
+		removeFromAdjacencyList(adjacencyListIncoming, t.getTo(), t);
+		this.transitionIndex = null;
+		this.acyclic = null;
+	}
+
+	/**
+	 * Adds a transition to the automaton.
+	 */
+	public void addTransition(Transition t) {
+		if (!this.delta.add(t))
+			return;
+
+		adjacencyListOutgoing.computeIfAbsent(t.getFrom(), k -> new HashSet<Transition>()).add(t);
+		adjacencyListIncoming.computeIfAbsent(t.getTo(), k -> new HashSet<Transition>()).add(t);
+		this.transitionIndex = null;
+		this.acyclic = null;
+	}
+
+	private static void removeFromAdjacencyList(HashMap<State, HashSet<Transition>> adjacencyList, State s, Transition t) {
+		HashSet<Transition> transitions = adjacencyList.get(s);
+
+		if (transitions != null && transitions.remove(t) && transitions.isEmpty())
+			adjacencyList.remove(s);
 	}
 
 
@@ -992,104 +1371,172 @@ public class Automaton {
 		return new Automaton(delta, states);
 	}
 
-	public HashSet<Transition> getOutgoingTransitionsFrom(State s) {
-		HashSet<Transition> result = adjacencyListOutgoing.get(s);
+	/**
+	 * Builds the minimal automaton recognizing the language of a regular expression,
+	 * by the Glushkov construction, minimized by {@link #minimizeMoore()}.
+	 *
+	 * @param e the regular expression, without variables.
+	 * @return a new minimal automaton recognizing the language of the expression.
+	 * @throws MalformedInputException if the expression contains a variable.
+	 */
+	public static Automaton makeAutomaton(RegularExpression e) {
+		Automaton a = Glushkov.toAutomaton(e);
+		a.minimizeMoore();
+		return a;
+	}
 
-		if (result == null) {
-			adjacencyListOutgoing.put(s,  new HashSet<Transition>());
-			return new HashSet<Transition>();
-		}
+	/**
+	 * Builds the minimal automaton recognizing the language of a regular expression
+	 * written in the syntax of {@link RegularExpressionParser}.
+	 *
+	 * @param regex the regular expression.
+	 * @return a new minimal automaton recognizing the language of the expression.
+	 * @throws MalformedInputException if the expression is not well-formed.
+	 */
+	public static Automaton makeAutomatonFromRegex(String regex) {
+		return makeAutomaton(RegularExpressionParser.parse(regex));
+	}
+
+	public HashSet<Transition> getOutgoingTransitionsFrom(State s) {
+		HashSet<Transition> result = adjacencyListOutgoing.get(s);
+
+		// the adjacency list is not updated here, so that automata can be read concurrently
+		if (result == null)
+			return new HashSet<Transition>();
 
 		return result;
 
 	}
 
+	/**
+	 * Returns the index of the transitions by source state and symbol, building it if needed.
+	 */
+	TransitionIndex getTransitionIndex() {
+		TransitionIndex index = transitionIndex;
+
+		// concurrent readers may build the index twice, but never see it half-built
+		if (index == null)
+			transitionIndex = index = new TransitionIndex(adjacencyListOutgoing);
+
+		return index;
+	}
+
+	/**
+	 * Returns the state reached from a state reading a symbol, in time constant or logarithmic
+	 * in the number of symbols read by the state. In nondeterministic automata, it returns
+	 * any of the reached states.
+	 *
+	 * @param s the state.
+	 * @param symbol the symbol.
+	 * @return the reached state, or null if the state cannot read the symbol.
+	 */
+	public State delta(State s, String symbol) {
+		return getTransitionIndex().successor(s, symbol);
+	}
+
 	public void setAdjacencyListOutgoing(HashMap<State, HashSet<Transition>> adjacencyListOutgoing) {
 		this.adjacencyListOutgoing = adjacencyListOutgoing;
+		this.computeIncomingAdjacencyList();
 	}
 
 
 	public static Automaton union(HashSet<Automaton> automata) {
-		Automaton result = Automaton.makeEmptyLanguage();
-
+		if (automata.isEmpty())
+			return Automaton.makeEmptyLanguage();
 
-		for (Automaton a : automata)
-			result = Automaton.union(result, a);
-
-		return result;
+		return Automaton.union(automata, true);
 	}
 
 	/**
-	 * Union operation between two automata.
+	 * Union operation between multiple automata, without epsilon transitions.
+	 * The initial states of the automata are merged into a single initial state, 
+	 * which receives a copy of their outgoing transitions.
 	 * 
-	 * @param a1 first automaton.
-	 * @param a2 second automaton.
-	 * @return the union of the two automata.
+	 * @param automata the automata.
+	 * @param minimize whether the result has to be minimized.
+	 * @return the union of the automata.
 	 */
-	public static Automaton union(Automaton a1, Automaton a2) {
-		State newInitialState = new State("initialState", true, false);
-		HashSet<Transition> newGamma = new HashSet<Transition>();
+	public static Automaton union(Collection<Automaton> automata, boolean minimize) {
+		OperationMetrics metrics = Instrumentation.start("union", automata);
+		State newInitialState = new State("q0", true, false);
+		HashSet<Transition> newDelta = new HashSet<Transition>();
 		HashSet<State> newStates = new HashSet<State>();
 
-		int c = 1;
-		HashMap<State, State> mappingA1 = new HashMap<State, State>(); 
-		HashMap<State, State> mappingA2 = new HashMap<State, State>(); 
-
 		newStates.add(newInitialState);
 
-		State initialA1 = null; 
-		State initialA2 = null;
+		Alphabet alphabet = null;
+		int c = 1;
 
-		for (State s : a1.states) {
+		for (Automaton aut : automata) {
+			HashMap<State, State> mapping = new HashMap<State, State>();
+			alphabet = alphabet == null ? aut.alphabet : alphabet.span(aut.alphabet);
 
-			mappingA1.put(s, new State("q" + c++, false, s.isFinalState()));
+			aut = aut.withExplicitSink();
 
-			newStates.add(mappingA1.get(s));
+			for (State s : aut.states) {
+				mapping.put(s, new State("q" + c++, false, s.isFinalState()));
+				newStates.add(mapping.get(s));
 
+				if (s.isInitialState() && s.isFinalState())
+					newInitialState.setFinalState(true);
+			}
 
+			for (Transition t : aut.delta) {
+				newDelta.add(t.copy(mapping.get(t.getFrom()), mapping.get(t.getTo())));
 
-			if (s.isInitialState())
-				initialA1 = mappingA1.get(s);
+				if (t.getFrom().isInitialState())
+					newDelta.add(t.copy(newInitialState, mapping.get(t.getTo())));
+			}
 		}
 
-		for (State s : a2.states) {
-			mappingA2.put(s, new State("q" + c++, false, s.isFinalState()));
-			newStates.add(mappingA2.get(s));
-
-
-
-			if (s.isInitialState())
-				initialA2 = mappingA2.get(s);
-		}
+		Automaton a = new Automaton(newDelta, newStates);
 
-		for (Transition t : a1.delta)
-			newGamma.add(new Transition(mappingA1.get(t.getFrom()), mappingA1.get(t.getTo()), t.getInput()));
+		if (alphabet != null)
+			a.alphabet = alphabet;
 
-		for (Transition t : a2.delta)
-			newGamma.add(new Transition(mappingA2.get(t.getFrom()), mappingA2.get(t.getTo()), t.getInput()));
+		// the copies of the initial states are kept only if reachable by some loop
+		a.removeUnreachableStates();
 
-		newGamma.add(new Transition(newInitialState, initialA1, ""));
-		newGamma.add(new Transition(newInitialState, initialA2, ""));
+		if (minimize)
+			a.minimize();
 
-		Automaton a =  new Automaton(newGamma, newStates);
-		a.minimize();
+		a = OperationContext.coarsen(a);
+		Instrumentation.end(metrics, a);
 		return a;
 	}
 
 	/**
-	 * Returns an automaton recognize any string.
+	 * Union operation between two automata.
+	 * 
+	 * @param a1 first automaton.
+	 * @param a2 second automaton.
+	 * @return the union of the two automata.
+	 */
+	public static Automaton union(Automaton a1, Automaton a2) {
+		return Automaton.union(Arrays.asList(a1, a2), true);
+	}
+
+	/**
+	 * Returns an automaton recognize any string over {@link Alphabet#PRINTABLE_ASCII}.
 	 */
 	public static Automaton makeTopLanguage() {
+		return makeTopLanguage(Alphabet.PRINTABLE_ASCII);
+	}
+
+	/**
+	 * Returns an automaton recognize any string over an alphabet, made of a final state whose
+	 * missing transitions lead to the implicit accepting sink.
+	 */
+	public static Automaton makeTopLanguage(Alphabet alphabet) {
 		HashSet<State> newStates = new HashSet<State>();
-		HashSet<Transition> newGamma = new HashSet<Transition>();
 		State initialState = new State("q0", true, true);
 
 		newStates.add(initialState);
 
-		for (char alphabet = '!'; alphabet <= '~'; ++alphabet) 
-			newGamma.add(new Transition(initialState, initialState, String.valueOf(alphabet)));
-
-		return new Automaton(newGamma, newStates);
+		Automaton a = new Automaton(new HashSet<Transition>(), newStates);
+		a.acceptingSink = true;
+		a.alphabet = alphabet;
+		return a;
 	}
 
 	/**
@@ -1103,9 +1550,6 @@ public class Automaton {
 
 		newStates.add(initialState);
 
-		for (char alphabet = '!'; alphabet <= '~'; ++alphabet) 
-			newGamma.add(new Transition(initialState, initialState, String.valueOf(alphabet)));
-
 		return new Automaton(newGamma, newStates);
 	}
 
@@ -1131,25 +1575,10 @@ public class Automaton {
 	 * @return an HashSet of states reachable from the states by using only epsilon transition.
 	 */
 	public HashSet<State> epsilonClosure(State s) {
-		HashSet<State> paths = new HashSet<State>();
-		HashSet<State> previous = new HashSet<State>();
-		HashSet<State> partial;
-		paths.add(s);
-
-		while (!paths.equals(previous)) {
-			previous = (HashSet<State>) paths.clone();
-			partial = new HashSet<State>();
-			// partial.add(s);
-
-			for (State reached : paths) 
-				for (Transition t : this.getOutgoingTransitionsFrom(reached)) 
-					if (t.isEpsilonTransition())
-						partial.add(t.getTo());
-
-			paths.addAll(partial);
-		}
+		HashSet<State> set = new HashSet<State>();
+		set.add(s);
 
-		return paths;
+		return epsilonClosure(set);
 	}
 
 	/**
@@ -1159,26 +1588,34 @@ public class Automaton {
 	 *
 	 */
 	public HashSet<State> epsilonClosure(HashSet<State> set){
-		HashSet<State> solution = new HashSet<>();
-
-		for(State s : set)
-			solution.addAll(epsilonClosure(s));
+		HashSet<State> solution = new HashSet<>(set);
+		LinkedList<State> worklist = new LinkedList<>(set);
+		TransitionIndex index = getTransitionIndex();
+
+		while (!worklist.isEmpty()) {
+			TransitionIndex.Row row = index.getRow(worklist.removeFirst());
+			int position = row.find(SymbolTable.EPSILON);
+
+			if (position >= 0)
+				for (int i = 0; i < row.getTargetCount(position); ++i)
+					if (solution.add(row.getTarget(position, i)))
+						worklist.addLast(row.getTarget(position, i));
+		}
 
 		return solution;
 	}
 
-	private HashSet<State> moveNFA(HashSet<State> set, String sym){
+	/**
+	 * Returns the states reached from a set of states reading a symbol. A symbol that was never
+	 * interned in the {@link SymbolTable} is read only by the ranges including its code point.
+	 */
+	private HashSet<State> moveNFA(HashSet<State> set, String symbol){
 		HashSet<State> solution = new HashSet<>();
+		TransitionIndex index = getTransitionIndex();
+		int sym = SymbolTable.lookup(symbol), codePoint = SymbolTable.codePoint(symbol);
 
-		for(State s : set) {
-			HashSet<Transition> outgoing = getOutgoingTransitionsFrom(s);
-			for(Transition t : outgoing) {
-				if(t.getInput().equals(sym)) {
-					solution.add(t.getTo());
-				}
-			}
-
-		}
+		for(State s : set)
+			index.addSuccessors(s, sym, codePoint, solution);
 
 		return solution;
 	}
@@ -1265,51 +1702,55 @@ public class Automaton {
 	//	}
 
 	public Automaton determinize() {
+		OperationMetrics metrics = Instrumentation.start("determinize", this);
+		OperationContext context = OperationContext.current();
+		StateSet.Universe universe = new StateSet.Universe(withExplicitSink());
 		HashSet<State> newStates = new HashSet<>();
 		HashSet<Transition> newDelta = new HashSet<>();
 
-		HashMap<HashSet<State>, Boolean> statesMarked = new HashMap<>();
-		HashMap<HashSet<State>,State> statesName = new HashMap<>();
-		int num = 0;
-		LinkedList<HashSet<State>> unMarkedStates = new LinkedList<>();
-
-		HashSet<State> temp;
+		HashMap<StateSet, State> statesName = new HashMap<>();
+		LinkedList<StateSet> unMarkedStates = new LinkedList<>();
 
-		temp = epsilonClosure(this.getInitialState());
-		statesName.put(temp,new State("q" + String.valueOf(num++) , true, isPartitionFinalState(temp)));
+		StateSet initial = universe.initialClosure();
+		statesName.put(initial, new State("q0", true, initial.containsFinal()));
+		unMarkedStates.add(initial);
 
-		newStates.add(statesName.get(temp));
-		statesMarked.put(temp, false);
-		unMarkedStates.add(temp);
+		while (!unMarkedStates.isEmpty()) {
+			if (metrics != null)
+				metrics.frontier(unMarkedStates.size());
+			if (context != null)
+				context.check(statesName.size(), newDelta.size());
 
-		while(!unMarkedStates.isEmpty()){
-			HashSet<State> T = unMarkedStates.getFirst();
-			newStates.add(statesName.get(T));
+			StateSet T = unMarkedStates.removeFirst();
+			State from = statesName.get(T);
+			newStates.add(from);
 
-			// mark T
-			unMarkedStates.removeFirst();
-			statesMarked.put(T, true);
+			// the moves of T are sorted by symbol
+			long[] moves = universe.moves(T);
 
-			for (String alphabet: readableCharFromState(T)) {
-				temp = epsilonClosure(moveNFA(T, alphabet));
+			for (int first = 0, last; first < moves.length; first = last) {
+				int symbol = (int) (moves[first] >>> 32);
 
-				if(!statesName.containsKey(temp))
-					statesName.put(temp,new State("q" + String.valueOf(num++) ,false,isPartitionFinalState(temp)));
+				for (last = first; last < moves.length && (int) (moves[last] >>> 32) == symbol; ++last)
+					;
 
-				newStates.add(statesName.get(temp));
+				StateSet temp = universe.successors(moves, first, last);
+				State to = statesName.get(temp);
 
-				if (!statesMarked.containsKey(temp)) {
-					statesMarked.put(temp, false);
+				if (to == null) {
+					to = new State("q" + statesName.size(), false, temp.containsFinal());
+					statesName.put(temp, to);
 					unMarkedStates.addLast(temp);
 				}
 
-				newDelta.add(new Transition(statesName.get(T), statesName.get(temp), alphabet));
+				newDelta.add(universe.transition(from, to, symbol));
 			}
 		}
 
-		Automaton a = new Automaton(newDelta, newStates);
+		Automaton a = new Automaton(Transition.mergeRanges(newDelta), newStates);
+		a.alphabet = alphabet;
+		Instrumentation.end(metrics, a);
 		return a;
-
 	}
 
 
@@ -1327,25 +1768,11 @@ public class Automaton {
 
 	}
 
-	/**
-	 * Returns true if at least one state of the partition states is an initial state, false otherwise.
-	 * 
-	 * @param states state partition.
-	 */
-	private boolean isPartitionInitialState(HashSet<State> states) {
-
-		for (State s : states)
-			if (s.isInitialState())
-				return true;
-		return false;
-
-	}
-
 	/**
 	 * RegEx printing.
 	 */
 	public String prettyPrint() {
-		return this.toRegex().toString();
+		return this.toRegexByStateElimination().toString();
 	}
 
 	//	private String createName(HashSet<State> states) {
@@ -1361,23 +1788,6 @@ public class Automaton {
 	//		return result;
 	//	}
 
-	/**
-	 * Returns the set of strings readable from the states state partition.
-	 * 
-	 * @param states state partition.
-	 */
-	private HashSet<String> readableCharFromState(HashSet<State> states) {
-
-		HashSet<String> result = new HashSet<String>();
-
-		for (State s : states)
-			for (Transition t : this.getOutgoingTransitionsFrom(s)) 
-				if (!t.getInput().equals(""))
-					result.add(t.getInput());
-		return result;
-
-	}
-
 	//	/**
 	//	 * Returns the set of strings readable from the state s.
 	//	 * 
@@ -1400,75 +1810,271 @@ public class Automaton {
 	 * Removes the unreachable states of an automaton.
 	 */
 	public void removeUnreachableStates() {
-		HashSet<State> reachableStates = new HashSet<State>();
-		reachableStates.add(this.getInitialState());
+		removeStates(false);
+	}
 
-		HashSet<State> newStates = new HashSet<State>();
-		newStates.add(this.getInitialState());		
-
-		do {
-			HashSet<State> temp = new HashSet<State>();
-			for (State s : newStates) {
-				//				for (String alphabet : this.readableCharFromState(s))
-				for (Transition t : this.getOutgoingTransitionsFrom(s))
-					//						if (t.getFrom().equals(s)/* && t.getInput().equals(alphabet)*/)
-					temp.add(t.getTo());
+	/**
+	 * Removes the states that are not reachable from an initial state or from which no final
+	 * state is reachable, but the initial ones. If the missing transitions lead to an implicit
+	 * accepting sink, only the unreachable states are removed, since removing the others would
+	 * redirect their incoming transitions to the sink.
+	 */
+	public void trim() {
+		removeStates(!acceptingSink);
+	}
+
+	/**
+	 * Removes the unreachable states, and the dead ones if required, by a forward and a backward
+	 * visit of the numbered states.
+	 */
+	private void removeStates(boolean dead) {
+		StateSet.Universe universe = new StateSet.Universe(this);
+		int n = universe.size();
+		int[] stack = new int[n];
+		int size = 0;
+
+		boolean[] keep = new boolean[n];
+
+		for (int i = 0; i < n; ++i)
+			if (universe.getState(i).isInitialState()) {
+				keep[i] = true;
+				stack[size++] = i;
 			}
 
-			temp.removeAll(reachableStates);
-			newStates = temp;
+		while (size > 0) {
+			int p = stack[--size];
 
-			reachableStates.addAll(newStates);
+			for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j)
+				if (!keep[universe.getTarget(j)]) {
+					keep[universe.getTarget(j)] = true;
+					stack[size++] = universe.getTarget(j);
+				}
+
+			for (int j = universe.firstEpsilonTransition(p); j < universe.firstEpsilonTransition(p + 1); ++j)
+				if (!keep[universe.getEpsilonTarget(j)]) {
+					keep[universe.getEpsilonTarget(j)] = true;
+					stack[size++] = universe.getEpsilonTarget(j);
+				}
+		}
+
+		if (dead) {
+			// the predecessors of state i are sources[offsets[i]] to sources[offsets[i + 1] - 1], by any transition
+			int[] offsets = new int[n + 1];
+
+			for (int p = 0; p < n; ++p) {
+				for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j)
+					++offsets[universe.getTarget(j) + 1];
+				for (int j = universe.firstEpsilonTransition(p); j < universe.firstEpsilonTransition(p + 1); ++j)
+					++offsets[universe.getEpsilonTarget(j) + 1];
+			}
+
+			for (int i = 0; i < n; ++i)
+				offsets[i + 1] += offsets[i];
+
+			int[] sources = new int[offsets[n]];
+			int[] cursors = Arrays.copyOf(offsets, n);
+
+			for (int p = 0; p < n; ++p) {
+				for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j)
+					sources[cursors[universe.getTarget(j)]++] = p;
+				for (int j = universe.firstEpsilonTransition(p); j < universe.firstEpsilonTransition(p + 1); ++j)
+					sources[cursors[universe.getEpsilonTarget(j)]++] = p;
+			}
+
+			boolean[] live = new boolean[n];
+
+			for (int i = 0; i < n; ++i)
+				if (keep[i] && universe.getState(i).isFinalState()) {
+					live[i] = true;
+					stack[size++] = i;
+				}
 
-		} while (!newStates.isEmpty());
+			while (size > 0) {
+				int p = stack[--size];
 
+				for (int j = offsets[p]; j < offsets[p + 1]; ++j)
+					if (!live[sources[j]]) {
+						live[sources[j]] = true;
+						stack[size++] = sources[j];
+					}
+			}
+
+			for (int i = 0; i < n; ++i)
+				keep[i] &= live[i] || universe.getState(i).isInitialState();
+		}
 
-		//		int oldSize;
-		//		do {
-		//			oldSize = newStates.size();
-		//
-		//			for (State s : newStates) 
-		//				for (Transition t : this.getOutgoingTransitionsFrom(s))
-		//					newStates.add(t.getTo());
-		//
-		//		} while (newStates.size() != oldSize);
+		int kept = 0;
 
-		states.removeIf(s -> !reachableStates.contains(s));
-		delta.removeIf(t -> !reachableStates.contains(t.getFrom()));
+		for (boolean k : keep)
+			if (k)
+				++kept;
+
+		if (kept == n)
+			return;
+
+		states.removeIf(s -> !keep[universe.getId(s)]);
+		delta.removeIf(t -> !keep[universe.getId(t.getFrom())] || !keep[universe.getId(t.getTo())]);
+		computeAdjacencyList();
 	}
 
 	/**
-	 * Brzozowski's minimization algorithm.
+	 * Brzozowski's minimization algorithm. 
+	 * Acyclic automata are minimized by {@link #minimizeAcyclic()}.
 	 */
 	public void minimize() {
+		OperationMetrics metrics = Instrumentation.start("minimize", this);
+		Automaton a = withExplicitSink();
+
+		if (a.isAcyclic())
+			a.minimizeAcyclic();
+		else {
+			a.reverse();
+			a = a.determinize();
+			a.reverse();
+			a = a.determinize();
+		}
 
-		//		if (!isDeterministic(this)) {
-		//			Automaton a = this.determinize();
-		//			this.delta = a.delta;
-		//			this.states = a.states;
-		//			this.adjacencyListOutgoing = a.getAdjacencyListOutgoing();
-		//		}
+		this.replaceWith(a);
 
-		this.reverse();
-		Automaton a = this.determinize();
-		a.reverse();
-		a = a.determinize();
+		Instrumentation.end(metrics, this);
+	}
 
-		//		this.initialState = a.initialState;
+	/**
+	 * Reduces the states of the automaton, keeping it nondeterministic, by merging the states
+	 * equivalent by forward or backward simulation, as in {@link SimulationReduction}. The epsilon
+	 * transitions are removed. The result is not minimum, but it is never larger than the
+	 * automaton, while determinizing it may be exponentially larger.
+	 */
+	public void reduceBySimulation() {
+		OperationMetrics metrics = Instrumentation.start("reduceBySimulation", this);
+		this.replaceWith(SimulationReduction.reduce(withExplicitSink()));
+		Instrumentation.end(metrics, this);
+	}
+
+	/**
+	 * Replaces the states and the transitions of this automaton with the ones of another automaton,
+	 * keeping the alphabet of this automaton.
+	 */
+	private void replaceWith(Automaton a) {
 		this.delta = a.delta;
 		this.states = a.states;
-		this.adjacencyListOutgoing = a.getAdjacencyListOutgoing();
+		this.adjacencyListOutgoing = a.adjacencyListOutgoing;
+		this.adjacencyListIncoming = a.adjacencyListIncoming;
+		this.transitionIndex = a.transitionIndex;
+		this.acyclic = a.acyclic;
+		this.acceptingSink = a.acceptingSink;
+	}
+
+	/**
+	 * Revuz's minimization algorithm for acyclic automata. 
+	 * The automaton is determinized, if needed, then its states are partitioned by height
+	 * (the length of the longest path to a state without successors) and, from the lowest
+	 * height, the states with the same finality and the same transitions are merged.
+	 * States that cannot reach a final state are removed. The transitions are compared
+	 * symbol by symbol, by the pieces of their ranges in a {@link StateSet.Universe}.
+	 */
+	private void minimizeAcyclic() {
+		Automaton a = isDeterministic(this) && getInitialStates().size() == 1 ? this : this.determinize();
+		StateSet.Universe universe = new StateSet.Universe(a);
+		ArrayList<State> order = a.topologicalOrder();
+
+		HashMap<State, Integer> height = new HashMap<State, Integer>();
+		ArrayList<ArrayList<State>> heights = new ArrayList<ArrayList<State>>();
+
+		// only the states reaching a final state get a height
+		for (int i = order.size() - 1; i >= 0; --i) {
+			State s = order.get(i);
+			int h = s.isFinalState() ? 0 : -1;
+
+			for (Transition t : a.getOutgoingTransitionsFrom(s))
+				if (height.containsKey(t.getTo()))
+					h = Math.max(h, height.get(t.getTo()) + 1);
+
+			if (h >= 0) {
+				height.put(s, h);
+
+				while (heights.size() <= h)
+					heights.add(new ArrayList<State>());
+				heights.get(h).add(s);
+			}
+		}
+
+		HashMap<State, Integer> classes = new HashMap<State, Integer>();
+		int classNum = 0;
+
+		for (ArrayList<State> sameHeight : heights) {
+			HashMap<List<Object>, Integer> register = new HashMap<List<Object>, Integer>();
+
+			for (State s : sameHeight) {
+				List<Object> signature = new ArrayList<Object>();
+				signature.add(s.isFinalState());
 
+				// the transitions of a state are sorted by symbol
+				for (int p = universe.getId(s), j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j) {
+					Integer c = classes.get(universe.getState(universe.getTarget(j)));
+
+					if (c != null) {
+						signature.add(universe.getLabel(j));
+						signature.add(c);
+					}
+				}
+
+				Integer c = register.get(signature);
+
+				if (c == null) {
+					c = classNum++;
+					register.put(signature, c);
+				}
+
+				classes.put(s, c);
+			}
+		}
+
+		HashSet<State> newStates = new HashSet<State>();
+		HashSet<Transition> newDelta = new HashSet<Transition>();
+		HashMap<Integer, State> mapping = new HashMap<Integer, State>();
+		State initialState = a.getInitialState();
+
+		if (!classes.containsKey(initialState)) {
+			newStates.add(new State("q0", true, false));
+			this.replaceWith(new Automaton(newDelta, newStates));
+			return;
+		}
 
-		//				this.minimizeHopcroft();
-		//		
-		//				Automaton a = this.deMerge(++initChar); 
-		//				this.initialState = a.initialState;
-		//				this.states = a.states;
-		//				this.delta = a.delta;
-		//				this.adjacencyListOutgoing = a.getAdjacencyListOutgoing();
+		mapping.put(classes.get(initialState), new State("q0", true, initialState.isFinalState()));
+		newStates.add(mapping.get(classes.get(initialState)));
 
+		LinkedList<State> worklist = new LinkedList<State>();
+		HashSet<Integer> visited = new HashSet<Integer>();
+		worklist.add(initialState);
+		visited.add(classes.get(initialState));
 
+		while (!worklist.isEmpty()) {
+			State s = worklist.removeFirst();
+			State from = mapping.get(classes.get(s));
+
+			for (int p = universe.getId(s), j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j) {
+				State to = universe.getState(universe.getTarget(j));
+				Integer c = classes.get(to);
+
+				if (c == null)
+					continue;
+
+				if (!mapping.containsKey(c)) {
+					mapping.put(c, new State("q" + mapping.size(), false, to.isFinalState()));
+					newStates.add(mapping.get(c));
+				}
+
+				newDelta.add(universe.transition(from, mapping.get(c), universe.getLabel(j)));
+
+				if (visited.add(c))
+					worklist.addLast(to);
+			}
+		}
+
+		Automaton result = new Automaton(Transition.mergeRanges(newDelta), newStates);
+		result.acyclic = true;
+		this.replaceWith(result);
 	}
 
 	//	public void minimizeBrowozozwi() {
@@ -1495,12 +2101,16 @@ public class Automaton {
 	//		this.adjacencyListOutgoing = a.getAdjacencyListOutgoing();
 	//	}
 
+	/**
+	 * Returns the symbols read by the transitions of an automaton, enumerating their ranges,
+	 * while {@link #getAlphabet()} returns the alphabet of its implicit accepting sink.
+	 */
 	public static HashSet<String> getAlphabet(Automaton a){
 		HashSet<String> alphabet = new HashSet<String>();
 
 		for (Transition t : a.delta)
 			//			if (!alphabet.contains(t.getInput()))
-			alphabet.add(t.getInput());
+			alphabet.addAll(t.symbols());
 
 		return alphabet;
 	}
@@ -1547,262 +2157,219 @@ public class Automaton {
 		//this.adjacencyList = this.computeAdjacencyList();
 	}*/
 
-	private HashSet<Transition> getIncomingTransitionsTo(State s) {
-		HashSet<Transition> result = new HashSet<Transition>();
+	public HashSet<Transition> getIncomingTransitionsTo(State s) {
+		HashSet<Transition> result = adjacencyListIncoming.get(s);
 
-		for (Transition t : this.delta)
-			if (t.getTo().equals(s))
-				result.add(t);
+		if (result == null)
+			return new HashSet<Transition>();
 
 		return result;
 	}	
 
-	private HashSet<State> getXSet(HashSet<State> A, String c){
-		HashSet<State> xSet = new HashSet<State>();
-
-		for(State s : A){
-			HashSet<Transition> transitionsIncoming = getIncomingTransitionsTo(s);
-
-			for(Transition t : transitionsIncoming){
-				if(t.getInput().equals(c))
-					xSet.add(t.getFrom());
-			}
-
-		}
-
-		return xSet;
-	}
-
-	private LinkedList<HashSet<State>> getYList(HashSet<HashSet<State>> P, HashSet<State> X){
-		LinkedList<HashSet<State>> Ys = new LinkedList<>();
-		HashSet<State> Ytemp ;
-
-		for(HashSet<State> s : P){
-
-			//try to select a set, see if condition is respected
-			Ytemp = s;
-
-			if(!setIntersection(X,Ytemp).isEmpty() && !setSubtraction(Ytemp,X).isEmpty())
-				Ys.add(Ytemp);
-
-
-		}
-
-		return Ys;
-	}
-
-	private HashSet<State> setIntersection(HashSet<State> first, HashSet<State> second){
-		HashSet<State> intersection = (HashSet<State>) first.clone();
-		intersection.retainAll(second);
-		return intersection;
-	}
-
-	private HashSet<State> setSubtraction(HashSet<State> first, HashSet<State> second){
-		HashSet<State> firstCopy = (HashSet<State>) first.clone();
-
-		firstCopy.removeAll(second);
-		return firstCopy;
-
-	}
-
-	private HashSet<State> getSet(State s1, HashSet<HashSet<State>> P){
-		for(HashSet<State> S : P){
-			if (S.contains(s1)) 
-				return S;
-		}
-
-		return null;
-	}
-
-
-	private HashSet<HashSet<State>> moorePartition( HashSet<HashSet<State>> P, HashSet<State> S){
-		// 2 map nested : State -> (Input symbol -> next Set)
-		HashMap<State,
-		HashMap<String, HashSet<State>>> setMap = new HashMap<>();
-
-		HashSet<HashSet<State>> partitionS = new HashSet<>();
-
-		// classify states
-		for(State s : S){
-			HashSet<Transition> transitionsOutgoings = getOutgoingTransitionsFrom(s);
-
-			// for all the transition, retrieve the next state set and update the map
-			for(Transition t : transitionsOutgoings){
-				if(!setMap.containsKey(s)){
-					HashMap<String, HashSet<State>> inputstoSet = new HashMap<>();
-					inputstoSet.put(t.getInput(),getSet(t.getTo(),P));
-					setMap.put(s, inputstoSet);
-				}else{
-					HashMap<String, HashSet<State>> inputstoSet = setMap.get(s);
-					if(!inputstoSet.containsKey(t.getInput())){
-						inputstoSet.put(t.getInput(),getSet(t.getTo(),P));
-					}
-				}
-			}
-		}
-
-		// create partition
-		for(State s1 : S){
-			HashMap<String, HashSet<State>> transitions_s1 = setMap.get(s1);
-			HashSet<State> candidateSet = new HashSet<>();
-			candidateSet.add(s1);
-
-
-			for(State s2 : S){
-				if(!s1.equals(s2) ){
-					HashMap<String, HashSet<State>> transitions_s2 = setMap.get(s2);
+	/**
+	 * Moore's minimization algorithm, refining the partition of the states
+	 * by the signatures of {@link MooreRefinement}.
+	 */
+	public void minimizeMoore(){
+		OperationMetrics metrics = Instrumentation.start("minimizeMoore", this);
+		Automaton explicit = withExplicitSink();
+		this.replaceWith(isDeterministic(explicit) ? explicit : explicit.determinize());
 
+		this.trim();
 
-					if ( (transitions_s1 == null && transitions_s2 == null) || transitions_s1.equals(transitions_s2)) {
+		State[] stateArray = states.toArray(new State[states.size()]);
+		int[] blocks = new int[stateArray.length];
 
-						candidateSet.add(s2);
-					}
-
-				}
-			}
+		for (int i = 0; i < stateArray.length; ++i)
+			blocks[i] = stateArray[i].isFinalState() ? 1 : 0;
 
-			partitionS.add(candidateSet);
+		MooreRefinement refinement = new MooreRefinement(stateArray, getTransitionIndex());
+		blocks = refinement.refine(blocks, Integer.MAX_VALUE);
 
-		}
+		constructMinimumAutomatonFromBlocks(stateArray, blocks);
 
-		return partitionS;
+		if (metrics != null)
+			metrics.rounds(refinement.getRounds());
 
+		Instrumentation.end(metrics, this);
 	}
 
+	/**
+	 * Hopcroft's minimization algorithm, splitting the blocks of the partition of the states
+	 * by the predecessors of the splitters, symbol by symbol. The automaton may be partial, so
+	 * it is trimmed and both the final and the non-final states are splitters at the start
+	 * (Valmari and Lehtinen), which keeps the smaller half of a split block enough as a splitter.
+	 */
+	public void minimizeHopcroft(){
+		OperationMetrics metrics = Instrumentation.start("minimizeHopcroft", this);
+		Automaton explicit = withExplicitSink();
+		this.replaceWith(isDeterministic(explicit) ? explicit : explicit.determinize());
 
+		this.trim();
 
-	public void minimizeMoore(){
-		if (!isDeterministic(this)) {
-			Automaton a = this.determinize();
-			this.delta = a.delta;
-			this.states = a.states;
-			this.adjacencyListOutgoing = a.getAdjacencyListOutgoing();
-		}
+		StateSet.Universe universe = new StateSet.Universe(this);
+		int[][] predecessors = universe.predecessors();
+		int[] predecessorOffsets = predecessors[0], sources = predecessors[1], sourceLabels = predecessors[2];
+		int n = universe.size();
 
-		this.removeUnreachableStates();
+		// the partition P, with the block of each state
+		ArrayList<StateSet> P = new ArrayList<>();
+		int[] blocks = new int[n];
+		BitSet finalStates = new BitSet(n);
 
-		HashSet<HashSet<State>> Pnew = new HashSet<>();
-		Pnew.add(setSubtraction(states, getFinalStates()));
-		Pnew.add(getFinalStates());
+		for (int i = 0; i < n; ++i)
+			if (universe.getState(i).isFinalState())
+				finalStates.set(i);
 
-		HashSet<HashSet<State>> P ;
+		BitSet nonFinalStates = (BitSet) finalStates.clone();
+		nonFinalStates.flip(0, n);
 
-		do{
-			P = new HashSet<>(Pnew);
-			Pnew = new HashSet<>(Collections.<HashSet<State>>emptySet());
+		for (BitSet block : Arrays.asList(finalStates, nonFinalStates))
+			if (!block.isEmpty()) {
+				for (int i = block.nextSetBit(0); i >= 0; i = block.nextSetBit(i + 1))
+					blocks[i] = P.size();
 
-			for(HashSet<State> S : P) {
-				Pnew.addAll(moorePartition(P, S));
+				P.add(universe.toStateSet(block));
 			}
 
+		// the splitters W, by block
+		LinkedList<Integer> W = new LinkedList<>();
+		BitSet inW = new BitSet();
 
-		}while(!P.equals(Pnew));
-
-
-		constructMinimumAutomatonFromPartition(P);
-	}
-
-
-	public void minimizeHopcroft(){
-		if (!isDeterministic(this)) {
-			Automaton a = this.determinize();
-			this.delta = a.delta;
-			this.states = a.states;
-			this.adjacencyListOutgoing = a.getAdjacencyListOutgoing();
+		for (int b = 0; b < P.size(); ++b) {
+			W.add(b);
+			inW.set(b);
 		}
 
-		this.removeUnreachableStates();
+		int[] marked = new int[n];
+		int[] touched = new int[n];
+		boolean[] inX = new boolean[n];
 
+		// a round for each splitter
+		int rounds = 0;
 
-		// the partition P
-		HashSet<HashSet<State>> P = new HashSet<>();
-		P.add(this.getFinalStates());
-		P.add(setSubtraction(this.states, this.getFinalStates()) );
+		while (!W.isEmpty()) {
+			int a = W.removeFirst();
+			inW.clear(a);
+			++rounds;
 
-		//the partition W
-		HashSet<HashSet<State>> W = new HashSet<>();
-		W.add(this.getFinalStates());
+			// the predecessors of A, sorted by symbol
+			StateSet A = P.get(a);
+			int size = 0;
 
-		HashSet<State> A = new HashSet<>();
-		HashSet<State> X;
-		List<HashSet<State>> listYs;
-		//Random r = new Random();
+			for (int i = 0; i < A.size(); ++i)
+				size += predecessorOffsets[A.get(i) + 1] - predecessorOffsets[A.get(i)];
 
-		while(!W.isEmpty()){
-			//choose and remove a set A from W
+			long[] moves = new long[size];
+			int k = 0;
 
-			for(HashSet<State> s : W){
-				A = s;
-				//	if(r.nextInt(2) == 0)
-				break;
-			}
-			W.remove(A);
+			for (int i = 0; i < A.size(); ++i)
+				for (int j = predecessorOffsets[A.get(i)]; j < predecessorOffsets[A.get(i) + 1]; ++j)
+					moves[k++] = ((long) sourceLabels[j] << 32) | sources[j];
 
-			for(String c : getAlphabet(this)){
-				// select a X set for which a transition in c leads to a state in A
-				X = getXSet(A,c);
+			Arrays.sort(moves);
 
-				// list of set Y in P such that X intersect Y != empty and Y \ X != empty
-				listYs = getYList(P, X);
+			for (int first = 0, last; first < moves.length; first = last) {
+				int c = (int) (moves[first] >>> 32);
+				int touchedBlocks = 0;
 
-				for(HashSet<State> Y : listYs){
-					HashSet<State> xyintersection = setIntersection(X,Y);
-					HashSet<State> yxsubtraction = setSubtraction(Y,X);
+				// X is the set of the states with a transition reading c to a state in A
+				for (last = first; last < moves.length && (int) (moves[last] >>> 32) == c; ++last) {
+					int x = (int) moves[last];
 
-					P.remove(Y);
-					P.add(xyintersection);
-					P.add(yxsubtraction);
+					if (!inX[x]) {
+						inX[x] = true;
 
-					if(W.contains(Y)){
-						W.remove(Y);
-						W.add(xyintersection);
-						W.add(yxsubtraction);
+						if (marked[blocks[x]]++ == 0)
+							touched[touchedBlocks++] = blocks[x];
+					}
+				}
 
-					}else{
-						if(xyintersection.size() <= yxsubtraction.size()){
-							W.add(xyintersection);
-						}else
-							W.add(yxsubtraction);
+				// the blocks Y such that X intersect Y != empty and Y \ X != empty are split
+				for (int t = 0; t < touchedBlocks; ++t) {
+					int y = touched[t];
+					StateSet Y = P.get(y);
+
+					if (marked[y] < Y.size()) {
+						int[] xyintersection = new int[marked[y]];
+						int[] yxsubtraction = new int[Y.size() - marked[y]];
+
+						for (int i = 0, in = 0, out = 0; i < Y.size(); ++i)
+							if (inX[Y.get(i)])
+								xyintersection[in++] = Y.get(i);
+							else
+								yxsubtraction[out++] = Y.get(i);
+
+						int z = P.size();
+						P.set(y, universe.toStateSet(xyintersection));
+						P.add(universe.toStateSet(yxsubtraction));
+
+						for (int s : yxsubtraction)
+							blocks[s] = z;
+
+						if (inW.get(y) || yxsubtraction.length <= xyintersection.length) {
+							W.add(z);
+							inW.set(z);
+						} else {
+							W.add(y);
+							inW.set(y);
+						}
 					}
+
+					marked[y] = 0;
 				}
 
+				for (int j = first; j < last; ++j)
+					inX[(int) moves[j]] = false;
 			}
 		}
 
 		// construct the minimum automata
-		constructMinimumAutomatonFromPartition(P);
+		State[] stateArray = new State[n];
 
-	}
+		for (int i = 0; i < n; ++i)
+			stateArray[i] = universe.getState(i);
 
-	private void constructMinimumAutomatonFromPartition(HashSet<HashSet<State>> P) {
-		HashMap<State, State> automatonStateBinding = new HashMap<>();
+		constructMinimumAutomatonFromBlocks(stateArray, blocks);
 
-		int num = 0;
-		initChar++;
+		if (metrics != null)
+			metrics.rounds(rounds);
 
-		this.states = new HashSet<State>();
+		Instrumentation.end(metrics, this);
+	}
 
-		for(HashSet<State> macroState : P){
-			boolean isInitialState = isPartitionInitialState(macroState);
-			boolean isFinalState = isPartitionFinalState(macroState);
 
-			String macroStatename = (initChar) + String.valueOf(num++);
+	/**
+	 * Replaces the states of the automaton with the blocks of a partition, given by the block of each state.
+	 */
+	private void constructMinimumAutomatonFromBlocks(State[] stateArray, int[] blocks) {
+		HashMap<State, State> automatonStateBinding = new HashMap<>();
+		ArrayList<State> macroStates = new ArrayList<>();
+
+		initChar++;
 
+		for (int i = 0; i < stateArray.length; ++i) {
+			while (macroStates.size() <= blocks[i])
+				macroStates.add(new State((initChar) + String.valueOf(macroStates.size()), false, false));
 
-			State mergedMacroState = new State(macroStatename, isInitialState, isFinalState);
+			State mergedMacroState = macroStates.get(blocks[i]);
 
-			this.states.add(mergedMacroState);
+			if (stateArray[i].isInitialState())
+				mergedMacroState.setInitialState(true);
+			if (stateArray[i].isFinalState())
+				mergedMacroState.setFinalState(true);
 
-			for(State s : macroState)
-				automatonStateBinding.put(s, mergedMacroState);
+			automatonStateBinding.put(stateArray[i], mergedMacroState);
 		}
 
+		this.states = new HashSet<State>(macroStates);
+
 		HashSet<Transition> newDelta = new HashSet<>();
 
 		for(Transition t : this.delta)
-			newDelta.add(new Transition(automatonStateBinding.get(t.getFrom()), automatonStateBinding.get(t.getTo()), t.getInput()));
+			newDelta.add(t.copy(automatonStateBinding.get(t.getFrom()), automatonStateBinding.get(t.getTo())));
 
-		this.delta = newDelta;
+		this.delta = Transition.mergeRanges(newDelta);
 		this.computeAdjacencyList();
 	}
 
@@ -1819,6 +2386,7 @@ public class Automaton {
 	 */
 	public void setAdjacencyList(HashMap<State, HashSet<Transition>> adjacencyList) {
 		this.adjacencyListOutgoing = adjacencyList;
+		this.computeIncomingAdjacencyList();
 	}
 
 
@@ -1826,7 +2394,7 @@ public class Automaton {
 	 * Reverse automata operation.
 	 */
 	public void reverse() {
-
+		Automaton a = withExplicitSink();
 		HashSet<State> newStates = new HashSet<State>();
 		HashSet<Transition> newDelta = new HashSet<Transition>();
 		HashMap<State, State> mapping = new HashMap<State, State>();
@@ -1835,13 +2403,13 @@ public class Automaton {
 		newStates.add(newInitialState);
 
 		// reversing edges
-		for (Transition t : this.delta) {
+		for (Transition t : a.delta) {
 			mapping.put(t.getFrom(),t.getFrom());
 			mapping.put(t.getTo(),t.getTo());
-			newDelta.add(new Transition(mapping.get(t.getTo()) , mapping.get(t.getFrom()), t.getInput()));
+			newDelta.add(t.copy(mapping.get(t.getTo()), mapping.get(t.getFrom())));
 		}
 
-		for (State s : this.states) {
+		for (State s : a.states) {
 			State newState = mapping.containsKey(s) ? mapping.get(s) : new State(s.getState(), false, false);
 
 			if (s.isFinalState()) {
@@ -1860,40 +2428,58 @@ public class Automaton {
 
 		this.delta = newDelta;
 		this.states = newStates;
+		this.acceptingSink = false;
 		this.computeAdjacencyList();
 
 	}
 
+	/**
+	 * Returns the regular expression associated to this automaton
+	 * by state elimination, which is faster and gives smaller expressions
+	 * than the Brzozowski algebraic method.
+	 *
+	 * @return the regular expression, which is ∅ if the language is empty.
+	 */
+	public RegularExpression toRegexByStateElimination() {
+		OperationMetrics metrics = Instrumentation.start("toRegexByStateElimination", this);
+		RegularExpression result = StateElimination.toRegex(withExplicitSink(), metrics);
+		Instrumentation.end(metrics, result);
+		return result;
+	}
+
 	/**
 	 * Returns the regular expressions associated to this automaton
 	 * using the Brzozowski algebraic method.
 	 */
 	public RegularExpression toRegex() {
+		OperationMetrics metrics = Instrumentation.start("toRegex", this);
+		Automaton a = withExplicitSink();
 
 		Vector<Equation> equations = new Vector<Equation>();
+		RegularExpressionFactory factory = new RegularExpressionFactory();
 
 		HashMap<State, Equation> toSubstitute = new HashMap<>();
 		boolean equationReplaced = true;
 		boolean toSubstituteUpdated = false;
 
-		for (State s : this.getStates()) {
+		for (State s : a.getStates()) {
 			RegularExpression result = null;
 			RegularExpression resultToSameState = null;
 
-			HashSet<Transition> out = this.getOutgoingTransitionsFrom(s);
+			HashSet<Transition> out = a.getOutgoingTransitionsFrom(s);
 
 			if (out.size() > 0) {
 				for (Transition t : out) {
 					if(!t.getTo().equals(s))
 						if (result == null)
-							result = new Comp(new GroundCoeff(t.getInput()), new Var(t.getTo()));
+							result = new Comp(symbols(t), new Var(t.getTo()));
 						else
-							result = new Or(result, new Comp(new GroundCoeff(t.getInput()), new Var(t.getTo())));
+							result = new Or(result, new Comp(symbols(t), new Var(t.getTo())));
 					else{
 						if(resultToSameState == null)
-							resultToSameState = new GroundCoeff(t.getInput());
+							resultToSameState = symbols(t);
 						else
-							resultToSameState = new Or(resultToSameState, new GroundCoeff(t.getInput()));
+							resultToSameState = new Or(resultToSameState, symbols(t));
 
 					}
 				}
@@ -1906,7 +2492,7 @@ public class Automaton {
 					result = resultToSameState;
 				}
 
-				equations.add(new Equation(s, result));
+				equations.add(new Equation(s, factory.intern(result)));
 			} else
 				equations.add(new Equation(s, new GroundCoeff("")));
 		}
@@ -1941,8 +2527,15 @@ public class Automaton {
 		}
 
 
+		OperationContext context = OperationContext.current();
+
 		// Fix-point
 		while (!equations.get(indexOfInitialState).getE().isGround()) {
+			if (context != null)
+				context.check();
+
+			if (metrics != null)
+				metrics.rounds(1);
 
 
 			// syntetize all the equations
@@ -2015,7 +2608,7 @@ public class Automaton {
 
 							// substitute
 							equations.set(i, new Equation(equations.get(i).getLeftSide(),
-									equations.get(i).getE().replace(s, getFromSubstituteMap.getE() )));
+									factory.replace(equations.get(i).getE(), s, getFromSubstituteMap.getE())));
 							equationReplaced = true;
 							//System.out.println("Replaced: " + equations.get(i).getLeftSide());
 
@@ -2044,8 +2637,17 @@ public class Automaton {
 
 		}
 
-		return equations.get(indexOfInitialState).getE().simplify();
+		RegularExpression result = equations.get(indexOfInitialState).getE().simplify();
+		Instrumentation.end(metrics, result);
+		return result;
+
+	}
 
+	/**
+	 * Returns the regular expression of the symbols read by a transition.
+	 */
+	private static RegularExpression symbols(Transition t) {
+		return t.isRange() ? new CharRange(t.getFirst(), t.getLast()) : new GroundCoeff(t.getInput());
 	}
 
 	/**
@@ -2057,8 +2659,8 @@ public class Automaton {
 	 */
 	public Transition hasTransitionFrom(State s1, State s2) {
 
-		for (Transition t : this.delta)
-			if (t.getFrom().equals(s1) && t.getTo().equals(s2))
+		for (Transition t : getOutgoingTransitionsFrom(s1))
+			if (t.getTo().equals(s2))
 				return t;
 		return null;
 	}
@@ -2066,57 +2668,138 @@ public class Automaton {
 	public HashSet<Transition> getTransitionFrom(State s1, State s2) {
 		HashSet<Transition> result = new HashSet<Transition>();
 
-		for (Transition t : this.delta)
-			if (t.getFrom().equals(s1) && t.getTo().equals(s2))
+		for (Transition t : getOutgoingTransitionsFrom(s1))
+			if (t.getTo().equals(s2))
 				result.add(t);
 
 		return result;
 	}
 
 	public boolean hasCycle() {
-		Set<State> whiteSet = new HashSet<>();
-		Set<State> graySet = new HashSet<>();
-		Set<State> blackSet = new HashSet<>();
+		// the implicit accepting sink loops on itself, and it is reached by the states that are not total
+		if (acceptingSink)
+			for (State s : states)
+				if (!isTotal(s))
+					return true;
 
-		for (State vertex : getStates()) 
-			whiteSet.add(vertex);
+		return topologicalOrder() == null;
+	}
 
-		while (whiteSet.size() > 0) {
-			State current = whiteSet.iterator().next();
-			if(dfs(current, whiteSet, graySet, blackSet)) {
-				return true;
-			}
+	/**
+	 * Returns true if the automaton has no cycles. The result is cached until the automaton is changed.
+	 */
+	public boolean isAcyclic() {
+		if (acyclic == null)
+			acyclic = !hasCycle();
+
+		return acyclic;
+	}
+
+	/**
+	 * Returns the states of the automaton in topological order, by Kahn's algorithm.
+	 * 
+	 * @return the states in topological order, null if the automaton has a cycle.
+	 */
+	private ArrayList<State> topologicalOrder() {
+		HashMap<State, Integer> incoming = new HashMap<State, Integer>();
+
+		for (State s : this.states)
+			incoming.put(s, 0);
+
+		for (Transition t : this.delta) {
+			incoming.putIfAbsent(t.getFrom(), 0);
+			incoming.merge(t.getTo(), 1, Integer::sum);
 		}
-		return false;
+
+		ArrayList<State> order = new ArrayList<State>();
+
+		for (State s : incoming.keySet())
+			if (incoming.get(s) == 0)
+				order.add(s);
+
+		for (int i = 0; i < order.size(); ++i)
+			for (Transition t : getOutgoingTransitionsFrom(order.get(i)))
+				if (incoming.merge(t.getTo(), -1, Integer::sum) == 0)
+					order.add(t.getTo());
+
+		return order.size() == incoming.size() ? order : null;
 	}
 
-	private boolean dfs(State current, Set<State> whiteSet, Set<State> graySet, Set<State> blackSet ) {
-		//move current to gray set from white set and then explore it.
-		moveVertex(current, whiteSet, graySet);
-		for(Transition t : getOutgoingTransitionsFrom(current)) {
-			State neighbor = t.getTo();
+	/**
+	 * Returns the number of strings recognized by the automaton.
+	 * 
+	 * @return the number of recognized strings, null if the language is infinite.
+	 */
+	public BigInteger countStrings() {
+		Automaton a = this.clone();
+		a.minimize();
 
-			//if in black set means already explored so continue.
-			if (blackSet.contains(neighbor)) {
-				continue;
-			}
-			//if in gray set then cycle found.
-			if (graySet.contains(neighbor)) {
-				return true;
-			}
-			if(dfs(neighbor, whiteSet, graySet, blackSet)) {
-				return true;
-			}
+		// a minimal automaton has no useless states, so it is acyclic iff its language is finite
+		if (!a.isAcyclic())
+			return null;
+
+		ArrayList<State> order = a.topologicalOrder();
+		HashMap<State, BigInteger> counts = new HashMap<State, BigInteger>();
+
+		for (int i = order.size() - 1; i >= 0; --i) {
+			State s = order.get(i);
+			BigInteger count = s.isFinalState() ? BigInteger.ONE : BigInteger.ZERO;
+
+			// a range leads to the target by each of its code points
+			for (Transition t : a.getOutgoingTransitionsFrom(s))
+				count = count.add(counts.get(t.getTo()).multiply(BigInteger.valueOf(t.getSymbolCount())));
+
+			counts.put(s, count);
 		}
 
-		//move vertex from gray set to black set when done exploring.
-		moveVertex(current, graySet, blackSet);
-		return false;
+		return counts.get(a.getInitialState());
+	}
+
+	/**
+	 * Returns the number of strings of length at most k recognized by the automaton.
+	 * 
+	 * @param k the maximum length.
+	 * @return the number of recognized strings of length at most k.
+	 * @see LanguageCounter
+	 */
+	public BigInteger countStringsAtMost(int k) {
+		return new LanguageCounter(this).countAtMost(k);
 	}
 
-	private void moveVertex(State vertex, Set<State> sourceSet, Set<State> destinationSet) {
-		sourceSet.remove(vertex);
-		destinationSet.add(vertex);
+	/**
+	 * Returns the strings recognized by the automaton.
+	 * 
+	 * @return the set of recognized strings, null if the language is infinite.
+	 */
+	public HashSet<String> getStrings() {
+		Automaton a = this.clone();
+		a.minimize();
+
+		if (!a.isAcyclic())
+			return null;
+
+		HashSet<String> result = new HashSet<String>();
+		LinkedList<State> stack = new LinkedList<State>();
+		LinkedList<String> prefixes = new LinkedList<String>();
+
+		stack.push(a.getInitialState());
+		prefixes.push("");
+
+		while (!stack.isEmpty()) {
+			State s = stack.pop();
+			String prefix = prefixes.pop();
+
+			if (s.isFinalState())
+				result.add(prefix);
+
+			for (Transition t : a.getOutgoingTransitionsFrom(s))
+				for (String symbol : t.symbols()) {
+					stack.push(t.getTo());
+					prefixes.push(prefix + symbol);
+				}
+		}
+
+		return result;
 	}
 
 	public HashMap<State, String> bfs() {
@@ -2124,6 +2807,10 @@ public class Automaton {
 	}
 
 	public HashMap<State, String> bfsAux(State root) {
+		// the states are equal by name, so they are those of the copy with the explicit sink
+		if (acceptingSink)
+			return withExplicitSink().bfsAux(root);
+
 		HashMap<State, String> distance = new HashMap<State, String>();
 		HashMap<State, State> parent = new HashMap<State, State>();
 
@@ -2142,7 +2829,7 @@ public class Automaton {
 
 			for (Transition t : this.getOutgoingTransitionsFrom(current)) {
 				if (distance.get(t.getTo()) == null) {
-					distance.put(t.getTo(), distance.get(current) +  t.getInput());
+					distance.put(t.getTo(), distance.get(current) +  t.symbols().get(0));
 					parent.put(t.getTo(), current);
 					q.add(t.getTo());
 				}
@@ -2168,6 +2855,9 @@ public class Automaton {
 	}
 
 	public HashSet<String> getMaximalPrefixNumber(State s, Vector<State> visited) {
+		if (acceptingSink)
+			return withExplicitSink().getMaximalPrefixNumber(s, visited);
+
 		HashSet<String> result = new HashSet<String>();
 
 
@@ -2176,18 +2866,19 @@ public class Automaton {
 
 		visited.add(s);
 
-		for (Transition t : this.getOutgoingTransitionsFrom(s)) {
+		for (Transition t : this.getOutgoingTransitionsFrom(s))
+			for (String symbol : t.symbols()) {
 
-			if (isNumeric(t.getInput()) || ((t.getInput().equals("-") || t.getInput().equals("+")) && visited.size() == 1)) { 
-				HashSet<String> nexts = getMaximalPrefixNumber(t.getTo(), visited);
+				if (isNumeric(symbol) || ((symbol.equals("-") || symbol.equals("+")) && visited.size() == 1)) { 
+					HashSet<String> nexts = getMaximalPrefixNumber(t.getTo(), visited);
 
-				if (nexts.isEmpty()) 
-					result.add(t.getInput());
-				else				
-					for (String next : nexts) 
-						result.add(t.getInput() + next);
+					if (nexts.isEmpty()) 
+						result.add(symbol);
+					else				
+						for (String next : nexts) 
+							result.add(symbol + next);
+				}
 			}
-		}
 
 		return result;
 	}
@@ -2204,19 +2895,23 @@ public class Automaton {
 	 * @return the language of size at most n recognized from the state s.
 	 */
 	public HashSet<String> getStringsAtMost(State s, int n) {
+		if (acceptingSink)
+			return withExplicitSink().getStringsAtMost(s, n);
+
 		HashSet<String> result = new HashSet<String>();
 
 		if (n == 0)
 			return result;
 
 		for (Transition t : this.getOutgoingTransitionsFrom(s)) {
-			String partial = t.getInput();
-
-			if (getStringsAtMost(t.getTo(), n - 1).isEmpty())
-				result.add(partial);
-			else
-				for (String next : getStringsAtMost(t.getTo(), n - 1))
-					result.add(partial + next);
+			HashSet<String> suffixes = getStringsAtMost(t.getTo(), n - 1);
+
+			for (String partial : t.symbols())
+				if (suffixes.isEmpty())
+					result.add(partial);
+				else
+					for (String next : suffixes)
+						result.add(partial + next);
 		}
 
 		return result;
@@ -2227,69 +2922,76 @@ public class Automaton {
 	 * @return true if the automaton recognizes exactly one string, false otherwise.
 	 */
 	public boolean recognizesExactlyOneString() {
-		for (State f : getStates())
-			if (getAdjacencyListOutgoing().get(f) != null && getAdjacencyListOutgoing().get(f).size() > 1)
+		Automaton a = withExplicitSink();
+
+		for (State f : a.getStates())
+			if (a.getAdjacencyListOutgoing().get(f) != null && a.getAdjacencyListOutgoing().get(f).size() > 1)
+				return false;
+
+		// a range reads more than one symbol
+		for (Transition t : a.delta)
+			if (t.isRange())
 				return false;
 
 		return true;
 	}
 
-	public Automaton widening(int n) {		
-		HashMap<State, HashSet<String>> languages = new HashMap<State, HashSet<String>>();
-		HashSet<HashSet<State>> powerStates = new HashSet<HashSet<State>>();
+	/**
+	 * Widening operator: merges the states that cannot be told apart by the strings of length
+	 * at most n leaving them, namely the blocks of n rounds of Moore's refinement from a single
+	 * block, with the signatures (symbol, block of the successor) and ignoring finality.
+	 *
+	 * @param n the number of rounds.
+	 * @return a new automaton, over-approximating this one.
+	 */
+	public Automaton widening(int n) {
+		OperationMetrics metrics = Instrumentation.start("widening", this);
+		Automaton a = withExplicitSink();
 
-		for (State s : this.getStates()) 
-			languages.put(s, this.getStringsAtMost(s, n));
+		// n rounds of refinement from a single block, regardless of finality
+		State[] stateArray = a.states.toArray(new State[a.states.size()]);
+		MooreRefinement refinement = new MooreRefinement(stateArray, a.getTransitionIndex());
+		int[] blocks = refinement.refine(new int[stateArray.length], n);
 
-		for (State s1 : this.getStates()) 
-			for (State s2 : this.getStates())
-				if (languages.get(s1).equals(languages.get(s2))) {
-					boolean found = false;
-					for (HashSet<State> singlePowerState : powerStates) 
-						if (singlePowerState.contains(s1) || singlePowerState.contains(s2)) {
-							singlePowerState.add(s1);
-							singlePowerState.add(s2);
-							found = true;
-							break;
-						}
-					if (!found) {
-						HashSet<State> newPowerState = new HashSet<State>();
-						newPowerState.add(s1);
-						newPowerState.add(s2);
-						powerStates.add(newPowerState);
-					}
-				}
+		Automaton result = a.quotient(stateArray, blocks);
 
-		HashSet<State> newStates = new HashSet<State>();
-		HashMap<HashSet<State>, State> mapping = new HashMap<HashSet<State>, State>();
+		if (metrics != null)
+			metrics.rounds(refinement.getRounds());
 
+		Instrumentation.end(metrics, result);
+		return result;
+	}
 
-		int i = 0;
+	/**
+	 * Returns the quotient of this automaton by a partition of its states, given by the block of each state.
+	 * The blocks are named "q" followed by their number.
+	 */
+	Automaton quotient(State[] stateArray, int[] blocks) {
+		HashMap<State, State> mapping = new HashMap<State, State>();
+		ArrayList<State> macroStates = new ArrayList<State>();
 
-		for (HashSet<State> ps : powerStates) {
-			State ns = new State("q" + i++, isPartitionInitialState(ps), isPartitionFinalState(ps));
-			newStates.add(ns);
-			mapping.put(ps, ns);
-		}
+		for (int i = 0; i < stateArray.length; ++i) {
+			while (macroStates.size() <= blocks[i])
+				macroStates.add(new State("q" + macroStates.size(), false, false));
 
-		HashSet<Transition> newDelta = new HashSet<Transition>();
+			State ns = macroStates.get(blocks[i]);
 
-		HashSet<State> fromPartition = null;
-		HashSet<State> toPartition = null;
+			if (stateArray[i].isInitialState())
+				ns.setInitialState(true);
+			if (stateArray[i].isFinalState())
+				ns.setFinalState(true);
 
+			mapping.put(stateArray[i], ns);
+		}
 
-		for (Transition t : this.getDelta()) {
-			for (HashSet<State> ps : powerStates) {
-				if (ps.contains(t.getFrom()))
-					fromPartition = ps;
-				if (ps.contains(t.getTo()))
-					toPartition = ps;			
-			}
+		HashSet<Transition> newDelta = new HashSet<Transition>();
 
-			newDelta.add(new Transition(mapping.get(fromPartition), mapping.get(toPartition), t.getInput()));
+		for (Transition t : this.getDelta())
+			newDelta.add(t.copy(mapping.get(t.getFrom()), mapping.get(t.getTo())));
 
-		}
-		return new Automaton(newDelta, newStates);
+		Automaton result = new Automaton(Transition.mergeRanges(newDelta), new HashSet<State>(macroStates));
+		result.alphabet = alphabet;
+		return result;
 	}
 
 	/**
@@ -2334,6 +3036,7 @@ public class Automaton {
 	 */
 	public void setStates(HashSet<State> states) {
 		this.states = states;
+		this.acyclic = null;
 	}
 
 	/**
@@ -2372,9 +3075,12 @@ public class Automaton {
 		}
 
 		for (Transition t : this.delta)
-			newDelta.add(new Transition(nameToStates.get(t.getFrom().getState()), nameToStates.get(t.getTo().getState()), t.getInput()));
+			newDelta.add(t.copy(nameToStates.get(t.getFrom().getState()), nameToStates.get(t.getTo().getState())));
 
-		return new Automaton(newDelta, newStates);
+		Automaton a = new Automaton(newDelta, newStates);
+		a.acceptingSink = this.acceptingSink;
+		a.alphabet = this.alphabet;
+		return a;
 	}
 
 	public boolean approxEquals(Object other) {
@@ -2389,22 +3095,8 @@ public class Automaton {
 	 */
 	@Override
 	public boolean equals(Object other) {
-		if (other instanceof Automaton) {
-
-			Automaton first = Automaton.intersection(this, Automaton.complement((Automaton) other));
-
-			first.removeUnreachableStates();
-			if (!first.getFinalStates().isEmpty()) 
-				return false;
-
-			Automaton second = Automaton.intersection(Automaton.complement(this), (Automaton) other);
-
-			second.removeUnreachableStates();
-			if (!second.getFinalStates().isEmpty()) 
-				return false;
-
-			return true;
-		}
+		if (other instanceof Automaton) 
+			return Automaton.isContained(this, (Automaton) other) && Automaton.isContained((Automaton) other, this);
 
 		return false;
 	}
@@ -2425,6 +3117,9 @@ public class Automaton {
 	}
 
 	public HashSet<Vector<State>> pahtsFrom(State init, Vector<State> visited) {
+		if (acceptingSink)
+			return withExplicitSink().pahtsFrom(init, visited);
+
 		HashSet<Vector<State>> result = new HashSet<Vector<State>>();
 
 		if (init.isFinalState() || visited.contains(init)) {
@@ -2541,11 +3236,11 @@ public class Automaton {
 	}
 
 	public static Automaton prefixAtMost(long i, Automaton automaton) {
-		return Automaton.intersection(Automaton.prefix(automaton), Automaton.exactLengthAutomaton(i));
+		return Automaton.intersection(Automaton.prefix(automaton), Automaton.exactLengthAutomaton(i, automaton.alphabet));
 	}
 
 	public static Automaton suffixAtMost(long i, Automaton automaton) {
-		return Automaton.intersection(Automaton.suffix(automaton), Automaton.exactLengthAutomaton(i));
+		return Automaton.intersection(Automaton.suffix(automaton), Automaton.exactLengthAutomaton(i, automaton.alphabet));
 	}
 
 	public static Automaton suffixesAt(long i, Automaton automaton) {
@@ -2561,8 +3256,8 @@ public class Automaton {
 
 		Automaton left = Automaton.suffixesAt(initPoint, a);	
 
-		Automaton noProperSubs = Automaton.intersection(left, Automaton.atMostLengthAutomaton(endPoint-initPoint));
-		return Automaton.union(Automaton.intersection(Automaton.rightQuotient(left,  Automaton.suffixesAt(endPoint, a)), Automaton.exactLengthAutomaton(endPoint-initPoint)), noProperSubs);	
+		Automaton noProperSubs = Automaton.intersection(left, Automaton.atMostLengthAutomaton(endPoint-initPoint, a.alphabet));
+		return Automaton.union(Automaton.intersection(Automaton.rightQuotient(left,  Automaton.suffixesAt(endPoint, a)), Automaton.exactLengthAutomaton(endPoint-initPoint, a.alphabet)), noProperSubs);	
 	}
 
 	public static Automaton substringWithUnknownEndPoint(Automaton a, long i, long j) {	 
@@ -2574,7 +3269,17 @@ public class Automaton {
 		return Automaton.suffix(Automaton.prefix(left));
 	}
 
+	/**
+	 * Returns an automaton recognizing the strings of a length over {@link Alphabet#PRINTABLE_ASCII}.
+	 */
 	public static Automaton exactLengthAutomaton(long max) {
+		return exactLengthAutomaton(max, Alphabet.PRINTABLE_ASCII);
+	}
+
+	/**
+	 * Returns an automaton recognizing the strings of a length over an alphabet.
+	 */
+	public static Automaton exactLengthAutomaton(long max, Alphabet alphabet) {
 		HashSet<State> states = new HashSet<>();
 		HashSet<Transition> delta = new HashSet<>();
 
@@ -2587,18 +3292,29 @@ public class Automaton {
 			State next = new State("q" + i + 1, false, false);
 			states.add(next);
 
-			for (char alphabet = '!'; alphabet <= '~'; ++alphabet) 
-				delta.add(new Transition(prev, next, String.valueOf(alphabet)));
+			delta.add(new Transition(prev, next, alphabet.getFirst(), alphabet.getLast()));
 
 			prev = next;
 		}
 
 		prev.setFinalState(true);
 
-		return new Automaton(delta, states);
+		Automaton a = new Automaton(delta, states);
+		a.alphabet = alphabet;
+		return a;
 	}
 
+	/**
+	 * Returns an automaton recognizing the strings of length at most max over {@link Alphabet#PRINTABLE_ASCII}.
+	 */
 	public static Automaton atMostLengthAutomaton(long max) {
+		return atMostLengthAutomaton(max, Alphabet.PRINTABLE_ASCII);
+	}
+
+	/**
+	 * Returns an automaton recognizing the strings of length at most max over an alphabet.
+	 */
+	public static Automaton atMostLengthAutomaton(long max, Alphabet alphabet) {
 		HashSet<State> states = new HashSet<>();
 		HashSet<Transition> delta = new HashSet<>();
 
@@ -2611,15 +3327,16 @@ public class Automaton {
 			State next = new State("q" + i + 1, false, true);
 			states.add(next);
 
-			for (char alphabet = '!'; alphabet <= '~'; ++alphabet) 
-				delta.add(new Transition(prev, next, String.valueOf(alphabet)));
+			delta.add(new Transition(prev, next, alphabet.getFirst(), alphabet.getLast()));
 
 			prev = next;
 		}
 
 		prev.setFinalState(true);
 
-		return new Automaton(delta, states);
+		Automaton a = new Automaton(delta, states);
+		a.alphabet = alphabet;
+		return a;
 	}
 
 	public static Automaton charAt(Automaton a, long i) {
@@ -2631,141 +3348,73 @@ public class Automaton {
 	}
 
 
-	public LinkedList<State> minimumDijkstra(State target) {
-		Set<State>  settledNodes = new HashSet<State>();
-		Set<State> unSettledNodes = new HashSet<State>();
-		Map<State, Integer> distance = new HashMap<State, Integer>();
-		Map<State, State> predecessors = new HashMap<State, State>();
-
-		distance.put(getInitialState(), 0);
-		unSettledNodes.add(getInitialState());
-
-		while (unSettledNodes.size() > 0) {
-			State node = getMinimum(unSettledNodes, distance);
-			settledNodes.add(node);
-			unSettledNodes.remove(node);
-			findMinimalDistances(node, distance, predecessors, unSettledNodes, settledNodes);
-		}
-
-		return getPath(target, predecessors);
-	}
-
-	public LinkedList<State> maximumDijkstra(State target) {
-		Set<State>  settledNodes = new HashSet<State>();
-		Set<State> unSettledNodes = new HashSet<State>();
-		Map<State, Integer> distance = new HashMap<State, Integer>();
-		Map<State, State> predecessors = new HashMap<State, State>();
-
-		distance.put(getInitialState(), 0);
-		unSettledNodes.add(getInitialState());
-
-		while (unSettledNodes.size() > 0) {
-			State node = getMaximum(unSettledNodes, distance);
-			settledNodes.add(node);
-			unSettledNodes.remove(node);
-			findMaximalDistances(node, distance, predecessors, unSettledNodes, settledNodes);
-		}
-
-		return getPath(target, predecessors);
-	}
-
-	private void findMinimalDistances(State node, Map<State, Integer> distance, Map<State, State> predecessors, Set<State> unSettledNodes, Set<State> settledNodes) {
-		List<State> adjacentNodes = getNeighbors(node, settledNodes);
-		for (State target : adjacentNodes) {
-			if (getShortestDistance(target, distance) > getShortestDistance(node, distance)
-					+ getDistance(node, target)) {
-				distance.put(target, getShortestDistance(node, distance)
-						+ getDistance(node, target));
-				predecessors.put(target, node);
-				unSettledNodes.add(target);
-			}
-		}
+	/**
+	 * Returns a shortest word accepted by the automaton, with a run reading it.
+	 *
+	 * @return the word, or null if the language is empty.
+	 */
+	public AcceptedWord getShortestAcceptedWord() {
+		WordSearch search = new WordSearch(withExplicitSink());
+		return search.shortest(search.finalStates());
 	}
 
-	private void findMaximalDistances(State node, Map<State, Integer> distance, Map<State, State> predecessors, Set<State> unSettledNodes, Set<State> settledNodes) {
-		List<State> adjacentNodes = getNeighbors(node, settledNodes);
-		for (State target : adjacentNodes) {
-			if (getLongestDistance(target, distance) < getLongestDistance(node, distance)
-					+ getDistance(node, target)) {
-				distance.put(target, getShortestDistance(node, distance)
-						+ getDistance(node, target));
-				predecessors.put(target, node);
-				unSettledNodes.add(target);
-			}
-		}
+	/**
+	 * Returns a longest word accepted by the automaton, with a run reading it.
+	 *
+	 * @return the word, or null if the language is empty or infinite.
+	 */
+	public AcceptedWord getLongestAcceptedWord() {
+		WordSearch search = new WordSearch(withExplicitSink());
+		return search.longest(search.finalStates());
 	}
 
-	private int getDistance(State node, State target) {
-		for (Transition edge : getDelta()) {
-			if (edge.getFrom().equals(node)
-					&& edge.getTo().equals(target)) {
-				return 1;
-			}
-		}
-		throw new RuntimeException("Should not happen");
+	/**
+	 * Returns the length of the longest words accepted by the automaton.
+	 *
+	 * @return the length, Long.MAX_VALUE if the language is infinite, or -1 if it is empty.
+	 */
+	public long getLongestAcceptedWordLength() {
+		WordSearch search = new WordSearch(withExplicitSink());
+		return search.longestLength(search.finalStates());
 	}
 
-	private List<State> getNeighbors(State node, Set<State> settledNodes) {
-		List<State> neighbors = new ArrayList<State>();
-		for (Transition edge : getDelta()) {
-			if (edge.getFrom().equals(node)
-					&& !isSettled(edge.getTo(), settledNodes)) {
-				neighbors.add(edge.getTo());
-			}
-		}
-		return neighbors;
-	}
+	/**
+	 * Returns this automaton, or a copy of it with its implicit accepting sink made explicit.
+	 */
+	private Automaton withExplicitSink() {
+		if (!acceptingSink)
+			return this;
 
-	private State getMinimum(Set<State> vertexes, Map<State, Integer> distance) {
-		State minimum = null;
-		for (State vertex : vertexes) {
-			if (minimum == null) {
-				minimum = vertex;
-			} else {
-				if (getShortestDistance(vertex, distance) < getShortestDistance(minimum, distance)) {
-					minimum = vertex;
-				}
-			}
-		}
-		return minimum;
+		Automaton a = this.clone();
+		a.materializeSink();
+		return a;
 	}
 
-	private State getMaximum(Set<State> vertexes, Map<State, Integer> distance) {
-		State maximum = null;
-		for (State vertex : vertexes) {
-			if (maximum == null) {
-				maximum = vertex;
-			} else {
-				if (getShortestDistance(vertex, distance) > getLongestDistance(maximum, distance)) {
-					maximum = vertex;
-				}
-			}
-		}
-
-		return maximum;
-	}
+	/**
+	 * Returns the states of a shortest path from an initial state to a state,
+	 * or only the state if it is not reachable.
+	 */
+	public LinkedList<State> minimumDijkstra(State target) {
+		WordSearch search = new WordSearch(this);
+		AcceptedWord path = search.shortest(search.singleton(target));
 
-	private boolean isSettled(State vertex, Set<State> settledNodes) {
-		return settledNodes.contains(vertex);
+		return new LinkedList<State>(path == null ? Collections.singletonList(target) : path.getPath());
 	}
 
-	private int getShortestDistance(State destination, Map<State, Integer> distance) {
-		Integer d = distance.get(destination);
-		if (d == null) {
-			return Integer.MAX_VALUE;
-		} else {
-			return d;
-		}
-	}
+	/**
+	 * Returns the states of a longest path from an initial state to a state, or only the state
+	 * if it is not reachable. Returns null if the paths to the state are unbounded, namely if
+	 * it is reached from a cycle reading a symbol.
+	 */
+	public LinkedList<State> maximumDijkstra(State target) {
+		WordSearch search = new WordSearch(this);
+		BitSet targets = search.singleton(target);
 
-	private int getLongestDistance(State destination, Map<State, Integer> distance) {
-		Integer d = distance.get(destination);
+		if (search.longestLength(targets) == WordSearch.INFINITE)
+			return null;
 
-		if (d == null) {
-			return Integer.MIN_VALUE;
-		} else {
-			return d;
-		}
+		AcceptedWord path = search.longest(targets);
+		return new LinkedList<State>(path == null ? Collections.singletonList(target) : path.getPath());
 	}
 
 	public LinkedList<State> getPath(State target, Map<State, State> predecessors) {
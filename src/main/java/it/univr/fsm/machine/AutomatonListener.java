@@ -0,0 +1,14 @@
+package it.univr.fsm.machine;
+
+/**
+ * Listener of the operations on automata, registered in {@link Instrumentation}.
+ */
+public interface AutomatonListener {
+
+	/**
+	 * Called at the end of an operation, in the thread that performed it.
+	 *
+	 * @param metrics the measures of the operation.
+	 */
+	void operationCompleted(OperationMetrics metrics);
+}
@@ -0,0 +1,100 @@
+package it.univr.fsm.machine;
+
+/**
+ * Standard approximation policies.
+ */
+public enum Coarsening implements ApproximationPolicy {
+
+	/**
+	 * Merges the states with the same transitions up to k steps, regardless of finality,
+	 * as {@link Automaton#widening(int)}, with the greatest k fitting the number of states.
+	 */
+	WIDENING {
+		@Override
+		public Automaton approximate(Automaton a, int maxStates) {
+			return refineWithin(a, false, maxStates);
+		}
+	},
+
+	/**
+	 * Merges the states with the same k-futures, namely the same strings of length at most k
+	 * leading to a final state, with the greatest k fitting the number of states.
+	 */
+	FUTURES {
+		@Override
+		public Automaton approximate(Automaton a, int maxStates) {
+			Automaton result = refineWithin(a, true, maxStates);
+			return result == null ? Automaton.makeTopLanguage(a.getAlphabet()) : result;
+		}
+	},
+
+	/**
+	 * Collapses the automaton to the strings of length at most the length of its longest string,
+	 * or to the top language if it is unbounded or if that does not fit the number of states.
+	 */
+	LENGTH_BOUNDED_TOP {
+		@Override
+		public Automaton approximate(Automaton a, int maxStates) {
+			long length = a.getLongestAcceptedWordLength();
+
+			if (length < 0) {
+				Automaton empty = Automaton.makeEmptyLanguage();
+				empty.setAlphabet(a.getAlphabet());
+				return empty;
+			}
+
+			return length < maxStates ? Automaton.atMostLengthAutomaton(length, a.getAlphabet()) : Automaton.makeTopLanguage(a.getAlphabet());
+		}
+	};
+
+	/**
+	 * Refines the partition of the states round by round, by {@link MooreRefinement}, and returns the quotient
+	 * by the finest partition with at most a number of blocks, or null if even the first partition is too fine.
+	 *
+	 * @param byFinality whether the first partition separates the final states, otherwise it has a single block.
+	 */
+	private static Automaton refineWithin(Automaton automaton, boolean byFinality, int maxStates) {
+		Automaton a = automaton.clone();
+		a.materializeSink();
+
+		State[] stateArray = a.getStates().toArray(new State[a.getStates().size()]);
+		MooreRefinement refinement = new MooreRefinement(stateArray, a.getTransitionIndex());
+		int[] blocks = new int[stateArray.length];
+
+		if (byFinality)
+			for (int i = 0; i < stateArray.length; ++i)
+				blocks[i] = stateArray[i].isFinalState() ? 1 : 0;
+
+		blocks = refinement.refine(blocks, 0);
+		int count = count(blocks);
+
+		if (count > maxStates)
+			return null;
+
+		while (true) {
+			int[] next = refinement.refine(blocks, 1);
+			int nextCount = count(next);
+
+			// the partition is stable, or too fine
+			if (nextCount == count || nextCount > maxStates)
+				break;
+
+			blocks = next;
+			count = nextCount;
+		}
+
+		return a.quotient(stateArray, blocks);
+	}
+
+	/**
+	 * Returns the number of blocks of a partition, numbered from 0.
+	 */
+	private static int count(int[] blocks) {
+		int max = -1;
+
+		for (int b : blocks)
+			max = Math.max(max, b);
+
+		return max + 1;
+	}
+}
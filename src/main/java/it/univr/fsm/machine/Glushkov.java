@@ -0,0 +1,182 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+
+import it.univr.exception.MalformedInputException;
+import it.univr.fsm.equations.CharRange;
+import it.univr.fsm.equations.Comp;
+import it.univr.fsm.equations.EmptySet;
+import it.univr.fsm.equations.GroundCoeff;
+import it.univr.fsm.equations.Or;
+import it.univr.fsm.equations.RegularExpression;
+import it.univr.fsm.equations.Star;
+
+/**
+ * Glushkov construction of the automaton of a regular expression.
+ *
+ * Each occurrence of a symbol in the expression is a position and a state of the automaton,
+ * besides the initial state. The transitions reading a symbol go to the states of its
+ * positions, from the initial state if the position may begin a string of the language,
+ * from another position if the position may follow it. The automaton is thus epsilon-free
+ * and has as many states as the positions, plus one.
+ */
+final class Glushkov {
+
+	/**
+	 * Symbols of the positions, from 1, as numbered in the {@link SymbolTable}, where a range is a position.
+	 */
+	private final ArrayList<Integer> symbols = new ArrayList<Integer>();
+
+	/**
+	 * Positions that may follow each position.
+	 */
+	private final ArrayList<BitSet> follow = new ArrayList<BitSet>();
+
+	/**
+	 * Nullability, first and last positions of a subexpression.
+	 */
+	private static class Sets {
+		private final boolean nullable;
+		private final BitSet first;
+		private final BitSet last;
+
+		private Sets(boolean nullable, BitSet first, BitSet last) {
+			this.nullable = nullable;
+			this.first = first;
+			this.last = last;
+		}
+	}
+
+	private Glushkov() {
+		// position 0 is the initial state
+		symbols.add(null);
+		follow.add(null);
+	}
+
+	/**
+	 * Builds the Glushkov automaton of a regular expression, which is not minimized.
+	 *
+	 * @param e the regular expression, without variables.
+	 * @return the automaton recognizing the language of the expression.
+	 * @throws MalformedInputException if the expression contains a variable.
+	 */
+	static Automaton toAutomaton(RegularExpression e) {
+		Glushkov glushkov = new Glushkov();
+		Sets root = glushkov.visit(e);
+
+		HashSet<State> states = new HashSet<State>();
+		HashSet<Transition> delta = new HashSet<Transition>();
+		State[] positions = new State[glushkov.symbols.size()];
+
+		positions[0] = new State("q0", true, root.nullable);
+		states.add(positions[0]);
+
+		for (int p = 1; p < positions.length; ++p) {
+			positions[p] = new State("q" + p, false, root.last.get(p));
+			states.add(positions[p]);
+		}
+
+		for (int p = root.first.nextSetBit(0); p >= 0; p = root.first.nextSetBit(p + 1))
+			delta.add(Transition.withSymbol(positions[0], positions[p], glushkov.symbols.get(p)));
+
+		for (int p = 1; p < positions.length; ++p) {
+			BitSet next = glushkov.follow.get(p);
+
+			for (int q = next.nextSetBit(0); q >= 0; q = next.nextSetBit(q + 1))
+				delta.add(Transition.withSymbol(positions[p], positions[q], glushkov.symbols.get(q)));
+		}
+
+		return new Automaton(delta, states);
+	}
+
+	private Sets visit(RegularExpression e) {
+		if (e instanceof GroundCoeff)
+			return string(((GroundCoeff) e).getString());
+
+		if (e instanceof CharRange)
+			return position(SymbolTable.internRange(((CharRange) e).getFirst(), ((CharRange) e).getLast()));
+
+		if (e instanceof EmptySet)
+			return new Sets(false, new BitSet(), new BitSet());
+
+		if (e instanceof Or) {
+			Sets first = visit(((Or) e).getFirst());
+			Sets second = visit(((Or) e).getSecond());
+
+			return new Sets(first.nullable || second.nullable, union(first.first, second.first), union(first.last, second.last));
+		}
+
+		if (e instanceof Comp) {
+			Sets first = visit(((Comp) e).getFirst());
+			Sets second = visit(((Comp) e).getSecond());
+
+			addFollow(first.last, second.first);
+
+			return new Sets(first.nullable && second.nullable,
+					first.nullable ? union(first.first, second.first) : first.first,
+					second.nullable ? union(first.last, second.last) : second.last);
+		}
+
+		if (e instanceof Star) {
+			Sets operand = visit(((Star) e).getOperand());
+
+			addFollow(operand.last, operand.first);
+
+			return new Sets(true, operand.first, operand.last);
+		}
+
+		throw new MalformedInputException("cannot build the automaton of " + e);
+	}
+
+	/**
+	 * Adds the positions of a string, one for each of its characters.
+	 */
+	private Sets string(String s) {
+		if (s.isEmpty())
+			return new Sets(true, new BitSet(), new BitSet());
+
+		BitSet first = new BitSet();
+		first.set(symbols.size());
+
+		for (String symbol : Automaton.toList(s)) {
+			BitSet next = new BitSet();
+			next.set(symbols.size() + 1);
+
+			symbols.add(SymbolTable.intern(symbol));
+			follow.add(next);
+		}
+
+		// the last position has no follower
+		BitSet last = new BitSet();
+		last.set(symbols.size() - 1);
+		follow.get(symbols.size() - 1).clear();
+
+		return new Sets(false, first, last);
+	}
+
+	/**
+	 * Adds a position reading a symbol, given by its number in the {@link SymbolTable}.
+	 */
+	private Sets position(int symbol) {
+		BitSet positions = new BitSet();
+		positions.set(symbols.size());
+
+		symbols.add(symbol);
+		follow.add(new BitSet());
+
+		return new Sets(false, positions, positions);
+	}
+
+	private void addFollow(BitSet positions, BitSet next) {
+		for (int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1))
+			follow.get(p).or(next);
+	}
+
+	private static BitSet union(BitSet first, BitSet second) {
+		BitSet result = (BitSet) first.clone();
+		result.or(second);
+		return result;
+	}
+}
@@ -0,0 +1,427 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Minimal deterministic automaton kept minimal under the addition of strings.
+ *
+ * Strings given in lexicographic order are added by the Daciuk-Mihov algorithm,
+ * any other string by the Carrasco-Forcada algorithm, which clones the path of the
+ * string from the initial state and merges the clones back with equivalent states.
+ * In both cases, a register of the states, indexed by their finality and outgoing
+ * transitions, finds the equivalent states without recomputing the minimization.
+ */
+public class IncrementalMinimalAutomaton {
+
+	/**
+	 * State of the automaton.
+	 */
+	private static class Node {
+		private boolean isFinalState;
+		private final TreeMap<String, Node> next = new TreeMap<String, Node>();
+		private int incoming;
+
+		@Override
+		public int hashCode() {
+			int hash = isFinalState ? 1 : 0;
+
+			for (Map.Entry<String, Node> e : next.entrySet())
+				hash = 31 * hash + e.getKey().hashCode() * 17 + System.identityHashCode(e.getValue());
+
+			return hash;
+		}
+
+		/**
+		 * Two states are equal if they have the same finality and the same transitions,
+		 * reaching the very same states.
+		 */
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Node))
+				return false;
+
+			Node n = (Node) other;
+
+			if (isFinalState != n.isFinalState || next.size() != n.next.size())
+				return false;
+
+			for (Map.Entry<String, Node> e : next.entrySet())
+				if (n.next.get(e.getKey()) != e.getValue())
+					return false;
+
+			return true;
+		}
+	}
+
+	/**
+	 * The register of the states, which contains no pair of equivalent states.
+	 */
+	private final HashMap<Node, Node> register = new HashMap<Node, Node>();
+
+	private Node initialState;
+
+	/**
+	 * Whether only sorted strings have been added so far. In that case, the states on the path
+	 * of the last added string are not registered yet.
+	 */
+	private boolean sortedMode;
+
+	private String lastAdded;
+
+	private int size;
+
+	/**
+	 * Constructs an automaton recognizing the empty language.
+	 */
+	public IncrementalMinimalAutomaton() {
+		initialState = newNode();
+		sortedMode = true;
+	}
+
+	/**
+	 * Constructs an incremental automaton recognizing the language of a given automaton,
+	 * minimized by {@link Automaton#minimizeMoore()}, which trims it, so that the register
+	 * starts with no pair of equivalent states.
+	 *
+	 * @param automaton the automaton, which is not modified.
+	 */
+	public IncrementalMinimalAutomaton(Automaton automaton) {
+		Automaton a = automaton.clone();
+		a.minimizeMoore();
+
+		HashMap<State, Node> mapping = new HashMap<State, Node>();
+
+		for (State s : a.getStates()) {
+			Node n = newNode();
+			n.isFinalState = s.isFinalState();
+			mapping.put(s, n);
+		}
+
+		for (Transition t : a.getDelta())
+			for (String symbol : t.symbols())
+				setTransition(mapping.get(t.getFrom()), symbol, mapping.get(t.getTo()));
+
+		for (Node n : mapping.values())
+			register.put(n, n);
+
+		initialState = mapping.get(a.getInitialState());
+		sortedMode = false;
+	}
+
+	/**
+	 * Builds the minimal automaton recognizing a set of strings.
+	 *
+	 * @param strings the strings.
+	 * @return the minimal automaton recognizing the strings.
+	 */
+	public static Automaton makeAutomaton(Iterable<String> strings) {
+		ArrayList<String> sorted = new ArrayList<String>();
+
+		for (String s : strings)
+			sorted.add(s);
+
+		sorted.sort(null);
+
+		IncrementalMinimalAutomaton result = new IncrementalMinimalAutomaton();
+
+		for (String s : sorted)
+			result.addSorted(s);
+
+		return result.toAutomaton();
+	}
+
+	/**
+	 * Adds a string to the language of the automaton. Strings added in lexicographic order
+	 * to an automaton that has only been built by this method are added in time linear
+	 * in their length, any other string is added as by {@link #add(String)}.
+	 *
+	 * @param s the string.
+	 */
+	public void addSorted(String s) {
+		if (!sortedMode || (lastAdded != null && s.compareTo(lastAdded) < 0)) {
+			add(s);
+			return;
+		}
+
+		List<String> input = Automaton.toList(s);
+		Node q = initialState;
+		int i = 0;
+
+		// common prefix with the last added string
+		while (i < input.size() && q.next.containsKey(input.get(i)))
+			q = q.next.get(input.get(i++));
+
+		if (!q.next.isEmpty())
+			replaceOrRegister(q);
+
+		for (; i < input.size(); ++i) {
+			Node n = newNode();
+			setTransition(q, input.get(i), n);
+			q = n;
+		}
+
+		q.isFinalState = true;
+		lastAdded = s;
+	}
+
+	/**
+	 * Adds a string to the language of the automaton, keeping it minimal.
+	 *
+	 * @param s the string.
+	 */
+	public void add(String s) {
+		finishSortedMode();
+
+		List<String> input = Automaton.toList(s);
+		ArrayList<Node> path = new ArrayList<Node>();
+
+		// clones the path of the string
+		Node q = initialState;
+		Node clone = cloneNode(q);
+		path.add(clone);
+
+		int i = 0;
+
+		for (; i < input.size() && q.next.containsKey(input.get(i)); ++i) {
+			q = q.next.get(input.get(i));
+
+			Node nextClone = cloneNode(q);
+			setTransition(clone, input.get(i), nextClone);
+			path.add(nextClone);
+			clone = nextClone;
+		}
+
+		// adds the states reading the rest of the string
+		for (; i < input.size(); ++i) {
+			Node n = newNode();
+			setTransition(clone, input.get(i), n);
+			path.add(n);
+			clone = n;
+		}
+
+		clone.isFinalState = true;
+
+		// merges the path with the equivalent registered states, from the last state
+		for (int j = path.size() - 1; j >= 1; --j) {
+			Node n = path.get(j);
+			Node equivalent = register.get(n);
+
+			if (equivalent == null)
+				register.put(n, n);
+			else {
+				setTransition(path.get(j - 1), input.get(j - 1), equivalent);
+				deleteNode(n);
+			}
+		}
+
+		Node oldInitialState = initialState;
+		Node newInitialState = path.get(0);
+		Node equivalent = register.get(newInitialState);
+
+		if (equivalent == null) {
+			register.put(newInitialState, newInitialState);
+			initialState = newInitialState;
+		} else {
+			initialState = equivalent;
+			deleteNode(newInitialState);
+		}
+
+		if (oldInitialState != initialState) {
+			if (oldInitialState.incoming == 0)
+				deleteUnreachable(oldInitialState);
+			else
+				// the old initial state lies on a cycle, which may be unreachable now
+				collectUnreachable();
+		}
+	}
+
+	/**
+	 * Returns true if the string is recognized by the automaton.
+	 */
+	public boolean run(String s) {
+		Node q = initialState;
+
+		for (String ch : Automaton.toList(s)) {
+			q = q.next.get(ch);
+
+			if (q == null)
+				return false;
+		}
+
+		return q.isFinalState;
+	}
+
+	/**
+	 * Returns the number of states of the automaton.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the minimal automaton recognizing the added strings.
+	 * After this call, the strings are no longer added in sorted mode.
+	 */
+	public Automaton toAutomaton() {
+		finishSortedMode();
+
+		HashSet<State> states = new HashSet<State>();
+		HashSet<Transition> delta = new HashSet<Transition>();
+		HashMap<Node, State> mapping = new HashMap<Node, State>();
+		LinkedList<Node> worklist = new LinkedList<Node>();
+
+		State initial = new State("q0", true, initialState.isFinalState);
+		states.add(initial);
+		mapping.put(initialState, initial);
+		worklist.add(initialState);
+
+		while (!worklist.isEmpty()) {
+			Node n = worklist.removeFirst();
+
+			for (Map.Entry<String, Node> e : n.next.entrySet()) {
+				State to = mapping.get(e.getValue());
+
+				if (to == null) {
+					to = new State("q" + mapping.size(), false, e.getValue().isFinalState);
+					mapping.put(e.getValue(), to);
+					states.add(to);
+					worklist.addLast(e.getValue());
+				}
+
+				delta.add(new Transition(mapping.get(n), to, e.getKey()));
+			}
+		}
+
+		return new Automaton(delta, states);
+	}
+
+	/**
+	 * Registers the states on the path of the last added string.
+	 */
+	private void finishSortedMode() {
+		if (!sortedMode)
+			return;
+
+		if (!initialState.next.isEmpty())
+			replaceOrRegister(initialState);
+
+		register.put(initialState, initialState);
+		sortedMode = false;
+	}
+
+	/**
+	 * Merges the states on the path of the last child of a state with the equivalent
+	 * registered states, from the last one.
+	 */
+	private void replaceOrRegister(Node q) {
+		ArrayList<Node> chain = new ArrayList<Node>();
+		chain.add(q);
+
+		for (Node n = q; !n.next.isEmpty(); ) {
+			n = n.next.lastEntry().getValue();
+
+			if (register.get(n) == n)
+				break;
+
+			chain.add(n);
+		}
+
+		for (int j = chain.size() - 1; j >= 1; --j) {
+			Node parent = chain.get(j - 1);
+			Node child = chain.get(j);
+			Node equivalent = register.get(child);
+
+			if (equivalent == null)
+				register.put(child, child);
+			else {
+				setTransition(parent, parent.next.lastKey(), equivalent);
+				deleteNode(child);
+			}
+		}
+	}
+
+	private Node newNode() {
+		size++;
+		return new Node();
+	}
+
+	private Node cloneNode(Node n) {
+		Node clone = newNode();
+		clone.isFinalState = n.isFinalState;
+
+		for (Map.Entry<String, Node> e : n.next.entrySet())
+			setTransition(clone, e.getKey(), e.getValue());
+
+		return clone;
+	}
+
+	/**
+	 * Sets the transition of a state, which must not be registered.
+	 */
+	private void setTransition(Node from, String input, Node to) {
+		Node old = from.next.put(input, to);
+
+		if (old != null)
+			old.incoming--;
+		to.incoming++;
+	}
+
+	/**
+	 * Deletes a state which has no incoming transitions and is not registered.
+	 */
+	private void deleteNode(Node n) {
+		for (Node to : n.next.values())
+			to.incoming--;
+
+		n.next.clear();
+		size--;
+	}
+
+	/**
+	 * Deletes a registered state without incoming transitions, together
+	 * with the states that become unreachable.
+	 */
+	private void deleteUnreachable(Node n) {
+		LinkedList<Node> worklist = new LinkedList<Node>();
+		worklist.add(n);
+
+		while (!worklist.isEmpty()) {
+			Node current = worklist.removeFirst();
+			register.remove(current);
+
+			for (Node to : current.next.values())
+				if (--to.incoming == 0 && to != initialState)
+					worklist.add(to);
+
+			current.next.clear();
+			size--;
+		}
+	}
+
+	/**
+	 * Deletes all the states unreachable from the initial state.
+	 */
+	private void collectUnreachable() {
+		HashSet<Node> reachable = new HashSet<Node>();
+		LinkedList<Node> worklist = new LinkedList<Node>();
+		reachable.add(initialState);
+		worklist.add(initialState);
+
+		while (!worklist.isEmpty())
+			for (Node to : worklist.removeFirst().next.values())
+				if (reachable.add(to))
+					worklist.add(to);
+
+		for (Node n : new ArrayList<Node>(register.keySet()))
+			if (!reachable.contains(n)) {
+				register.remove(n);
+				deleteNode(n);
+			}
+	}
+}
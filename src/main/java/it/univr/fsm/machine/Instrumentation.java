@@ -0,0 +1,155 @@
+package it.univr.fsm.machine;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import it.univr.fsm.equations.RegularExpression;
+import jdk.jfr.EventType;
+
+/**
+ * Instrumentation of the operations on automata.
+ *
+ * The main operations, such as determinization, minimization, products, unions, concatenations,
+ * complements, widening and the conversions into regular expressions, report their measures to the
+ * registered listeners and as {@link OperationEvent}s to the flight recorder, when the event is
+ * enabled in a recording. When there are no listeners and the event is disabled, an operation
+ * only checks a field and a flag, and it allocates nothing.
+ */
+public final class Instrumentation {
+
+	private static final AutomatonListener[] NO_LISTENERS = new AutomatonListener[0];
+
+	private static final EventType EVENT_TYPE = EventType.getEventType(OperationEvent.class);
+
+	/**
+	 * The listeners, replaced at each change, so that they are read without locking.
+	 */
+	private static volatile AutomatonListener[] listeners = NO_LISTENERS;
+
+	private Instrumentation() {
+	}
+
+	/**
+	 * Registers a listener of the operations.
+	 */
+	public static synchronized void addListener(AutomatonListener listener) {
+		AutomatonListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+		result[listeners.length] = listener;
+		listeners = result;
+	}
+
+	/**
+	 * Unregisters a listener of the operations.
+	 */
+	public static synchronized void removeListener(AutomatonListener listener) {
+		listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(AutomatonListener[]::new);
+	}
+
+	/**
+	 * Returns true if the operations are measured.
+	 */
+	public static boolean isEnabled() {
+		return listeners.length > 0 || EVENT_TYPE.isEnabled();
+	}
+
+	/**
+	 * Starts measuring an operation.
+	 *
+	 * @return the measures, or null if the operations are not measured.
+	 */
+	static OperationMetrics start(String operation, Automaton input) {
+		if (!isEnabled())
+			return null;
+
+		return start(operation, input.getStates().size(), input.getDelta().size());
+	}
+
+	/**
+	 * Starts measuring an operation on two automata.
+	 *
+	 * @return the measures, or null if the operations are not measured.
+	 */
+	static OperationMetrics start(String operation, Automaton first, Automaton second) {
+		if (!isEnabled())
+			return null;
+
+		return start(operation, first.getStates().size() + second.getStates().size(), first.getDelta().size() + second.getDelta().size());
+	}
+
+	/**
+	 * Starts measuring an operation on a collection of automata.
+	 *
+	 * @return the measures, or null if the operations are not measured.
+	 */
+	static OperationMetrics start(String operation, Collection<Automaton> inputs) {
+		if (!isEnabled())
+			return null;
+
+		int inputStates = 0, inputTransitions = 0;
+
+		for (Automaton a : inputs) {
+			inputStates += a.getStates().size();
+			inputTransitions += a.getDelta().size();
+		}
+
+		return start(operation, inputStates, inputTransitions);
+	}
+
+	private static OperationMetrics start(String operation, int inputStates, int inputTransitions) {
+		OperationEvent event = null;
+
+		if (EVENT_TYPE.isEnabled()) {
+			event = new OperationEvent();
+			event.begin();
+		}
+
+		return new OperationMetrics(operation, inputStates, inputTransitions, event);
+	}
+
+	/**
+	 * Ends measuring an operation, reporting its measures.
+	 *
+	 * @param metrics the measures, null if the operations are not measured.
+	 * @param output the result of the operation.
+	 */
+	static void end(OperationMetrics metrics, Automaton output) {
+		if (metrics == null)
+			return;
+
+		metrics.end(output);
+		report(metrics);
+	}
+
+	/**
+	 * Ends measuring an operation building a regular expression, reporting its measures.
+	 *
+	 * @param metrics the measures, null if the operations are not measured.
+	 * @param output the result of the operation.
+	 */
+	static void end(OperationMetrics metrics, RegularExpression output) {
+		if (metrics == null)
+			return;
+
+		metrics.end(output);
+		report(metrics);
+	}
+
+	private static void report(OperationMetrics metrics) {
+		OperationEvent event = metrics.event;
+
+		if (event != null && event.shouldCommit()) {
+			event.operation = metrics.getOperation();
+			event.inputStates = metrics.getInputStates();
+			event.inputTransitions = metrics.getInputTransitions();
+			event.outputStates = metrics.getOutputStates();
+			event.outputTransitions = metrics.getOutputTransitions();
+			event.maxFrontier = metrics.getMaxFrontier();
+			event.rounds = metrics.getRounds();
+			event.expressionSize = metrics.getExpressionSize();
+			event.commit();
+		}
+
+		for (AutomatonListener listener : listeners)
+			listener.operationCompleted(metrics);
+	}
+}
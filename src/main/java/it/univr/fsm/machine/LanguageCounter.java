@@ -0,0 +1,206 @@
+package it.univr.fsm.machine;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Counter of the strings of each length recognized by an automaton, with uniform sampling and enumeration.
+ *
+ * The counts are computed on the minimum automaton, which is deterministic, by dynamic programming: the
+ * strings of length l recognized from a state are the strings of length l - 1 recognized from its successors,
+ * each preceded by one of the symbols leading to them, so a transition reading a range counts once per code
+ * point of the range. The table of the counts, by length and state, is extended
+ * lazily to the lengths asked for, and it is shared by the sampler and the enumerator. Since each string has a
+ * single run, the strings of a length are ranked in lexicographic order, and the string of a rank is rebuilt by
+ * following the transitions whose counts cover it: a uniform rank gives a uniform string.
+ */
+public class LanguageCounter implements Iterable<String> {
+
+	private final StateSet.Universe universe;
+	private final int initial;
+
+	/**
+	 * The number of strings of length l recognized from state i is counts.get(l)[i].
+	 */
+	private final ArrayList<BigInteger[]> counts = new ArrayList<BigInteger[]>();
+
+	/**
+	 * Length of the longest strings, WordSearch.INFINITE if unbounded, -1 if there are none.
+	 */
+	private final long maxLength;
+
+	/**
+	 * Constructs a counter.
+	 *
+	 * @param automaton the automaton, which is not modified.
+	 */
+	public LanguageCounter(Automaton automaton) {
+		Automaton a = automaton.clone();
+		a.minimize();
+
+		WordSearch search = new WordSearch(a);
+
+		this.universe = new StateSet.Universe(a);
+		this.initial = universe.getId(a.getInitialState());
+		this.maxLength = search.longestLength(search.finalStates());
+	}
+
+	/**
+	 * Returns the number of the recognized strings of a length.
+	 */
+	public BigInteger count(int length) {
+		return counts(length)[initial];
+	}
+
+	/**
+	 * Returns the number of the recognized strings of length at most k.
+	 */
+	public BigInteger countAtMost(int k) {
+		BigInteger result = BigInteger.ZERO;
+
+		for (int length = 0; length <= k; ++length)
+			result = result.add(count(length));
+
+		return result;
+	}
+
+	/**
+	 * Returns a recognized string of a length, drawn uniformly.
+	 *
+	 * @return the string, or null if no string of that length is recognized.
+	 */
+	public String sampleOfLength(int length, Random random) {
+		BigInteger count = count(length);
+		return count.signum() == 0 ? null : get(length, below(count, random));
+	}
+
+	/**
+	 * Returns a recognized string of length at most k, drawn uniformly.
+	 *
+	 * @return the string, or null if no string of length at most k is recognized.
+	 */
+	public String sample(int k, Random random) {
+		BigInteger total = countAtMost(k);
+
+		if (total.signum() == 0)
+			return null;
+
+		BigInteger rank = below(total, random);
+		int length = 0;
+
+		while (rank.compareTo(count(length)) >= 0)
+			rank = rank.subtract(count(length++));
+
+		return get(length, rank);
+	}
+
+	/**
+	 * Returns the recognized string of a length with a rank in lexicographic order.
+	 *
+	 * @param length the length.
+	 * @param rank the rank, from 0 to {@link #count(int)} excluded.
+	 */
+	public String get(int length, BigInteger rank) {
+		if (rank.signum() < 0 || rank.compareTo(count(length)) >= 0)
+			throw new IndexOutOfBoundsException("rank " + rank + " of the strings of length " + length);
+
+		StringBuilder result = new StringBuilder();
+		int state = initial;
+
+		// the transitions of a state are sorted by symbol
+		for (int remaining = length; remaining > 0; --remaining) {
+			BigInteger[] next = counts(remaining - 1);
+
+			for (int j = universe.firstTransition(state); ; ++j) {
+				BigInteger count = next[universe.getTarget(j)];
+				BigInteger weighted = count.multiply(BigInteger.valueOf(universe.getWeight(universe.getLabel(j))));
+
+				if (rank.compareTo(weighted) < 0) {
+					BigInteger[] symbolAndRank = rank.divideAndRemainder(count);
+					result.append(universe.getSymbol(universe.getLabel(j), symbolAndRank[0].intValue()));
+					rank = symbolAndRank[1];
+					state = universe.getTarget(j);
+					break;
+				}
+
+				rank = rank.subtract(weighted);
+			}
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * Returns an iterator over the recognized strings in shortlex order: by length, then lexicographically.
+	 * The strings are built one at a time, and the iteration does not end if the language is infinite.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int length = 0;
+			private BigInteger rank = BigInteger.ZERO;
+
+			@Override
+			public boolean hasNext() {
+				while (length <= maxLength && rank.compareTo(count(length)) >= 0) {
+					++length;
+					rank = BigInteger.ZERO;
+				}
+
+				return length <= maxLength;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				String result = get(length, rank);
+				rank = rank.add(BigInteger.ONE);
+				return result;
+			}
+		};
+	}
+
+	private BigInteger[] counts(int length) {
+		while (counts.size() <= length) {
+			BigInteger[] row = new BigInteger[universe.size()];
+
+			if (counts.isEmpty())
+				for (int i = 0; i < row.length; ++i)
+					row[i] = universe.getState(i).isFinalState() ? BigInteger.ONE : BigInteger.ZERO;
+			else {
+				BigInteger[] previous = counts.get(counts.size() - 1);
+
+				for (int i = 0; i < row.length; ++i) {
+					BigInteger count = BigInteger.ZERO;
+
+					for (int j = universe.firstTransition(i); j < universe.firstTransition(i + 1); ++j)
+						count = count.add(previous[universe.getTarget(j)].multiply(BigInteger.valueOf(universe.getWeight(universe.getLabel(j)))));
+
+					row[i] = count;
+				}
+			}
+
+			counts.add(row);
+		}
+
+		return counts.get(length);
+	}
+
+	/**
+	 * Returns a uniform random number from 0 to a bound excluded.
+	 */
+	private static BigInteger below(BigInteger bound, Random random) {
+		BigInteger result;
+
+		do
+			result = new BigInteger(bound.bitLength(), random);
+		while (result.compareTo(bound) >= 0);
+
+		return result;
+	}
+}
@@ -0,0 +1,243 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Partition of the common alphabet of some automata into classes of symbols that every automaton
+ * reads in the same way: from each state, the symbols of a class lead to the same states. An
+ * operation combining the automata can then follow one symbol for each class, and add the
+ * transitions of the other symbols of the class to the result.
+ *
+ * The symbols are numbered by the {@link SymbolTable}. The common alphabet is made of the symbols read
+ * by the transitions, where the ranges are split into the pieces of a {@link RangePartition} of all the
+ * automata: the other symbols of the {@link Alphabet} lead every state of an automaton to its implicit
+ * accepting sink, if any, so they make a single class that need not be enumerated.
+ */
+public final class Minterms {
+
+	/**
+	 * The symbols of the common alphabet, sorted, and the class of each of them.
+	 */
+	private final int[] symbols;
+	private final int[] classes;
+
+	/**
+	 * The symbols of each class, sorted.
+	 */
+	private final int[][] members;
+
+	/**
+	 * Signature of a symbol: its transitions in all the automata.
+	 */
+	private static final class Signature {
+		private final long[] moves;
+		private final int hash;
+
+		Signature(long[] moves) {
+			this.moves = moves;
+			this.hash = Arrays.hashCode(moves);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Signature && Arrays.equals(moves, ((Signature) other).moves);
+		}
+	}
+
+	/**
+	 * Computes the classes of the symbols of some automata.
+	 */
+	public Minterms(Collection<Automaton> automata) {
+		this(universes(automata), sinks(automata));
+	}
+
+	/**
+	 * Computes the classes of the symbols of some automata, given the alphabets read by their
+	 * implicit accepting sinks, or null for the automata without one. The universes of the
+	 * automata split their ranges by the same partition.
+	 */
+	Minterms(List<StateSet.Universe> universes, Alphabet[] sinkAlphabets) {
+		int[] alphabet = new int[0];
+
+		for (int k = 0; k < universes.size(); ++k)
+			alphabet = merge(alphabet, universes.get(k).getSymbolIds());
+
+		symbols = alphabet;
+
+		// the moves of each symbol, as pairs (source, target) of states numbered across the automata
+		int[] counts = new int[symbols.length];
+		int[][] positions = new int[universes.size()][];
+
+		for (int k = 0; k < universes.size(); ++k) {
+			StateSet.Universe u = universes.get(k);
+			int[] ids = u.getSymbolIds();
+			positions[k] = new int[ids.length];
+
+			for (int c = 0; c < ids.length; ++c)
+				positions[k][c] = Arrays.binarySearch(symbols, ids[c]);
+
+			for (int j = 0; j < u.firstTransition(u.size()); ++j)
+				++counts[positions[k][u.getLabel(j)]];
+
+			if (sinkAlphabets[k] != null)
+				for (int i = 0; i < symbols.length; ++i)
+					if (sinkAlphabets[k].containsSymbol(symbols[i]))
+						++counts[i];
+		}
+
+		long[][] moves = new long[symbols.length][];
+
+		for (int i = 0; i < symbols.length; ++i)
+			moves[i] = new long[counts[i]];
+
+		Arrays.fill(counts, 0);
+
+		for (int k = 0, base = 0; k < universes.size(); base += universes.get(k++).size()) {
+			StateSet.Universe u = universes.get(k);
+
+			for (int p = 0; p < u.size(); ++p)
+				for (int j = u.firstTransition(p); j < u.firstTransition(p + 1); ++j) {
+					int i = positions[k][u.getLabel(j)];
+					moves[i][counts[i]++] = ((long) (base + p) << 32) | u.getTarget(j);
+				}
+
+			// the symbols read by the sink are told apart by a negative move
+			if (sinkAlphabets[k] != null)
+				for (int i = 0; i < symbols.length; ++i)
+					if (sinkAlphabets[k].containsSymbol(symbols[i]))
+						moves[i][counts[i]++] = -(k + 1);
+		}
+
+		HashMap<Signature, Integer> ids = new HashMap<Signature, Integer>();
+		ArrayList<ArrayList<Integer>> classMembers = new ArrayList<ArrayList<Integer>>();
+		classes = new int[symbols.length];
+
+		for (int i = 0; i < symbols.length; ++i) {
+			Arrays.sort(moves[i]);
+			classes[i] = ids.computeIfAbsent(new Signature(moves[i]), s -> ids.size());
+
+			if (classes[i] == classMembers.size())
+				classMembers.add(new ArrayList<Integer>());
+
+			classMembers.get(classes[i]).add(symbols[i]);
+		}
+
+		members = new int[classMembers.size()][];
+
+		for (int c = 0; c < members.length; ++c)
+			members[c] = classMembers.get(c).stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Returns the number of classes.
+	 */
+	public int getClassCount() {
+		return members.length;
+	}
+
+	/**
+	 * Returns the class of a symbol, or -1 if it is not in the common alphabet.
+	 */
+	public int classOf(int symbol) {
+		int i = Arrays.binarySearch(symbols, symbol);
+		return i < 0 ? -1 : classes[i];
+	}
+
+	/**
+	 * Returns the symbols of a class, sorted by their number.
+	 */
+	public int[] getMembers(int c) {
+		return members[c].clone();
+	}
+
+	/**
+	 * Returns the symbol standing for a class.
+	 */
+	public int getRepresentative(int c) {
+		return members[c][0];
+	}
+
+	/**
+	 * Returns the symbols of the common alphabet, sorted by their number.
+	 */
+	public int[] getSymbols() {
+		return symbols.clone();
+	}
+
+	/**
+	 * Returns the index in {@link StateSet.Universe#getSymbols()} of the representative of each class,
+	 * -1 if the automaton does not read it.
+	 */
+	int[] localLabels(StateSet.Universe u) {
+		int[] result = new int[members.length];
+
+		for (int c = 0; c < members.length; ++c)
+			result[c] = u.labelOf(members[c][0]);
+
+		return result;
+	}
+
+	/**
+	 * Returns the members of a class, without copying them.
+	 */
+	int[] members(int c) {
+		return members[c];
+	}
+
+	private static List<StateSet.Universe> universes(Collection<Automaton> automata) {
+		ArrayList<StateSet.Universe> result = new ArrayList<StateSet.Universe>();
+		RangePartition partition = RangePartition.of(automata);
+
+		for (Automaton a : automata)
+			result.add(new StateSet.Universe(a, partition));
+
+		return result;
+	}
+
+	private static Alphabet[] sinks(Collection<Automaton> automata) {
+		Alphabet[] result = new Alphabet[automata.size()];
+		int k = 0;
+
+		for (Automaton a : automata)
+			result[k++] = a.hasAcceptingSink() ? a.getAlphabet() : null;
+
+		return result;
+	}
+
+	/**
+	 * Returns the sorted union of two sorted arrays of distinct numbers.
+	 */
+	private static int[] merge(int[] first, int[] second) {
+		int[] a = second.clone();
+		Arrays.sort(a);
+
+		int[] result = new int[first.length + a.length];
+		int i = 0, j = 0, k = 0;
+
+		while (i < first.length && j < a.length)
+			if (first[i] < a[j])
+				result[k++] = first[i++];
+			else if (first[i] > a[j])
+				result[k++] = a[j++];
+			else {
+				result[k++] = first[i++];
+				++j;
+			}
+
+		while (i < first.length)
+			result[k++] = first[i++];
+		while (j < a.length)
+			result[k++] = a[j++];
+
+		return Arrays.copyOf(result, k);
+	}
+}
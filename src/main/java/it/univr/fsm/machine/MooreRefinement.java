@@ -0,0 +1,199 @@
+package it.univr.fsm.machine;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Moore's partition refinement on integer block ids.
+ *
+ * At each round, the signature of a state is its block together with the pairs (symbol, block of the successor)
+ * of its transitions, and the states with equal signatures form the blocks of the next round. Signatures are
+ * computed independently for each state, in parallel on large automata, and they are hashed into the new block
+ * ids. The refinement stops when a round does not split any block, or after a given number of rounds.
+ */
+final class MooreRefinement {
+
+	/**
+	 * Minimum number of states for which signatures are computed in parallel.
+	 */
+	private static final int PARALLEL_THRESHOLD = 10000;
+
+	/**
+	 * Transitions of the states in compressed rows: the transitions of state i are
+	 * symbols[offsets[i]] to targets[offsets[i]], up to offsets[i + 1] excluded.
+	 */
+	private final IntBuffer offsets;
+	private final IntBuffer symbols;
+	private final IntBuffer targets;
+
+	private int performedRounds;
+
+	/**
+	 * Signature of a state in a round.
+	 */
+	private static final class Signature {
+		private final int block;
+		private final long[] moves;
+		private final int hash;
+
+		private Signature(int block, long[] moves) {
+			this.block = block;
+			this.moves = moves;
+			this.hash = 31 * block + Arrays.hashCode(moves);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Signature))
+				return false;
+
+			Signature s = (Signature) other;
+			return hash == s.hash && block == s.block && Arrays.equals(moves, s.moves);
+		}
+	}
+
+	/**
+	 * Prepares the refinement of a set of states.
+	 *
+	 * @param states the states, numbered by their position in the array. The transitions
+	 *        to states outside the array are ignored.
+	 * @param index the transitions of the states, whose ranges are split by a {@link RangePartition}
+	 *        of the states.
+	 */
+	MooreRefinement(State[] states, TransitionIndex index) {
+		HashMap<State, Integer> ids = new HashMap<State, Integer>();
+		RangePartition partition = RangePartition.of(states, index);
+
+		for (int i = 0; i < states.length; ++i)
+			ids.put(states[i], i);
+
+		int[] offsets = new int[states.length + 1];
+		int size = 0;
+
+		for (int i = 0; i < states.length; ++i) {
+			TransitionIndex.Row row = index.getRow(states[i]);
+
+			for (int j = 0; j < row.size(); ++j)
+				size += row.getTargetCount(j) * partition.split(row.getSymbol(j)).length;
+
+			offsets[i + 1] = size;
+		}
+
+		int[] symbols = new int[size];
+		int[] targets = new int[size];
+		int k = 0;
+
+		for (State s : states) {
+			TransitionIndex.Row row = index.getRow(s);
+
+			// the symbols are numbered by the symbol table
+			for (int j = 0; j < row.size(); ++j)
+				for (int t = 0; t < row.getTargetCount(j); ++t) {
+					Integer to = ids.get(row.getTarget(j, t));
+
+					for (int piece : partition.split(row.getSymbol(j))) {
+						symbols[k] = piece;
+						targets[k++] = to == null ? -1 : to;
+					}
+				}
+		}
+
+		this.offsets = IntBuffer.wrap(offsets);
+		this.symbols = IntBuffer.wrap(symbols);
+		this.targets = IntBuffer.wrap(targets);
+	}
+
+	/**
+	 * Prepares the refinement of states whose transitions are given in compressed rows,
+	 * possibly off-heap.
+	 *
+	 * @param offsets the transitions of state i are from offsets[i] to offsets[i + 1] excluded.
+	 * @param symbols the symbol id of each transition.
+	 * @param targets the target of each transition, -1 if it is ignored.
+	 */
+	MooreRefinement(IntBuffer offsets, IntBuffer symbols, IntBuffer targets) {
+		this.offsets = offsets;
+		this.symbols = symbols;
+		this.targets = targets;
+	}
+
+	/**
+	 * Refines a partition of the states.
+	 *
+	 * @param initial the initial block of each state, by any integer id.
+	 * @param rounds the maximum number of rounds.
+	 * @return the block of each state, numbered from 0.
+	 */
+	int[] refine(int[] initial, int rounds) {
+		HashMap<Integer, Integer> renaming = new HashMap<Integer, Integer>();
+		int[] blocks = new int[initial.length];
+
+		for (int i = 0; i < initial.length; ++i)
+			blocks[i] = renaming.computeIfAbsent(initial[i], b -> renaming.size());
+
+		int count = renaming.size();
+
+		for (int round = 0; round < rounds; ++round) {
+			++performedRounds;
+			int[] current = blocks;
+			Signature[] signatures = new Signature[blocks.length];
+			IntStream states = IntStream.range(0, blocks.length);
+
+			if (blocks.length >= PARALLEL_THRESHOLD)
+				states = states.parallel();
+
+			states.forEach(i -> signatures[i] = signature(i, current));
+
+			HashMap<Signature, Integer> ids = new HashMap<Signature, Integer>();
+			int[] next = new int[blocks.length];
+
+			for (int i = 0; i < next.length; ++i)
+				next[i] = ids.computeIfAbsent(signatures[i], s -> ids.size());
+
+			blocks = next;
+
+			// blocks are only split, so the partition is stable when their number does not change
+			if (ids.size() == count)
+				break;
+
+			count = ids.size();
+		}
+
+		return blocks;
+	}
+
+	/**
+	 * Returns the number of rounds performed by the refinements so far.
+	 */
+	int getRounds() {
+		return performedRounds;
+	}
+
+	private Signature signature(int state, int[] blocks) {
+		int first = offsets.get(state), last = offsets.get(state + 1);
+		long[] moves = new long[last - first];
+
+		for (int j = first, k = 0; j < last; ++j, ++k) {
+			int to = targets.get(j);
+			moves[k] = ((long) symbols.get(j) << 32) | (to < 0 ? 0xFFFFFFFFL : blocks[to]);
+		}
+
+		// the successors of a symbol in nondeterministic automata are a set of blocks
+		Arrays.sort(moves);
+
+		int distinct = 0;
+
+		for (int k = 0; k < moves.length; ++k)
+			if (k == 0 || moves[k] != moves[k - 1])
+				moves[distinct++] = moves[k];
+
+		return new Signature(blocks[state], distinct == moves.length ? moves : Arrays.copyOf(moves, distinct));
+	}
+}
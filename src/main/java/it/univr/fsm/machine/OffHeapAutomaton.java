@@ -0,0 +1,720 @@
+package it.univr.fsm.machine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Automaton whose states and transitions are stored outside the Java heap.
+ *
+ * The states are numbered from 0 and their flags, initial and final, take a byte each. The transitions
+ * leaving a state form a row of integers, sorted by symbol: a symbol id and a target for each transition.
+ * The symbols are numbered by their position in a sorted table, where the empty string, namely epsilon,
+ * comes first. The storage is held by direct buffers, which the garbage collector neither scans nor moves,
+ * so that large automata do not lengthen its pauses. The operations build new automata, and the scratch
+ * data they need on the heap, such as the subsets of the subset construction, are released when they
+ * return.
+ *
+ * The storage is dropped by {@link #close()}, after which the automaton cannot be used any longer. Direct
+ * buffers are freed when they become unreachable, so an automaton should be closed as soon as it is not
+ * needed, rather than kept referenced.
+ */
+public final class OffHeapAutomaton implements AutoCloseable {
+
+	private static final byte INITIAL = 1;
+	private static final byte FINAL = 2;
+
+	private final String[] symbols;
+	private final int stateCount;
+
+	/**
+	 * Flags of each state.
+	 */
+	private ByteBuffer flags;
+
+	/**
+	 * The transitions of state i are labels[offsets[i]] to targets[offsets[i]], up to offsets[i + 1] excluded.
+	 */
+	private IntBuffer offsets;
+	private IntBuffer labels;
+	private IntBuffer targets;
+
+	private OffHeapAutomaton(String[] symbols, Builder builder) {
+		this.symbols = symbols;
+		this.stateCount = builder.states;
+		this.flags = builder.flags.toBuffer();
+		this.offsets = builder.offsets.toBuffer().asIntBuffer();
+		this.labels = builder.labels.toBuffer().asIntBuffer();
+		this.targets = builder.targets.toBuffer().asIntBuffer();
+	}
+
+	/**
+	 * Growable buffer outside the heap.
+	 */
+	private static final class DirectBuffer {
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(64).order(ByteOrder.nativeOrder());
+
+		private void ensure(int bytes) {
+			if (buffer.remaining() < bytes) {
+				ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(2 * buffer.capacity(), buffer.capacity() + bytes)).order(ByteOrder.nativeOrder());
+				buffer.flip();
+				larger.put(buffer);
+				buffer = larger;
+			}
+		}
+
+		void put(byte value) {
+			ensure(1);
+			buffer.put(value);
+		}
+
+		void putInt(int value) {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		int getInt(int position) {
+			return buffer.getInt(position);
+		}
+
+		/**
+		 * Returns the content of the buffer, in a buffer of the same size, and empties this buffer.
+		 */
+		ByteBuffer toBuffer() {
+			ByteBuffer result = ByteBuffer.allocateDirect(buffer.position()).order(ByteOrder.nativeOrder());
+			buffer.flip();
+			result.put(buffer);
+			result.flip();
+			buffer = ByteBuffer.allocateDirect(0);
+			return result;
+		}
+	}
+
+	/**
+	 * Builds an automaton row by row. The states are added in any order, as they are discovered,
+	 * while the rows are added in the order of the states.
+	 */
+	private static final class Builder {
+		private final DirectBuffer flags = new DirectBuffer();
+		private final DirectBuffer offsets = new DirectBuffer();
+		private final DirectBuffer labels = new DirectBuffer();
+		private final DirectBuffer targets = new DirectBuffer();
+		private int states;
+		private int transitions;
+
+		private Builder() {
+			offsets.putInt(0);
+		}
+
+		int addState(boolean isInitial, boolean isFinal) {
+			flags.put((byte) ((isInitial ? INITIAL : 0) | (isFinal ? FINAL : 0)));
+			return states++;
+		}
+
+		void addTransition(int label, int target) {
+			labels.putInt(label);
+			targets.putInt(target);
+			++transitions;
+		}
+
+		void endRow() {
+			offsets.putInt(transitions);
+		}
+	}
+
+	/**
+	 * Copies an automaton outside the heap. Its implicit accepting sink, if any, is made explicit.
+	 *
+	 * @param automaton the automaton, which is not modified.
+	 * @return the copy of the automaton.
+	 */
+	public static OffHeapAutomaton fromAutomaton(Automaton automaton) {
+		Automaton a = automaton;
+
+		if (a.hasAcceptingSink()) {
+			a = a.clone();
+			a.materializeSink();
+		}
+
+		State[] states = a.getStates().toArray(new State[a.getStates().size()]);
+		HashMap<State, Integer> ids = new HashMap<State, Integer>();
+		TransitionIndex index = a.getTransitionIndex();
+		TreeSet<String> alphabet = new TreeSet<String>();
+
+		for (State s : states) {
+			ids.put(s, ids.size());
+			TransitionIndex.Row row = index.getRow(s);
+
+			for (int j = 0; j < row.size(); ++j)
+				alphabet.addAll(SymbolTable.getSymbols(row.getSymbol(j)));
+		}
+
+		String[] symbols = alphabet.toArray(new String[alphabet.size()]);
+		Builder builder = new Builder();
+
+		for (State s : states)
+			builder.addState(s.isInitialState(), s.isFinalState());
+
+		// the rows of the index are sorted by the numbers of the symbols, not as the table of symbols,
+		// and their ranges are read as their code points, which may also be read by other transitions
+		for (State s : states) {
+			TransitionIndex.Row row = index.getRow(s);
+			ArrayList<Long> moves = new ArrayList<Long>();
+
+			for (int j = 0; j < row.size(); ++j)
+				for (String symbol : SymbolTable.getSymbols(row.getSymbol(j))) {
+					long label = Arrays.binarySearch(symbols, symbol);
+
+					for (int t = 0; t < row.getTargetCount(j); ++t)
+						moves.add(label << 32 | ids.get(row.getTarget(j, t)));
+				}
+
+			long[] sorted = moves.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+
+			for (long move : sorted)
+				builder.addTransition((int) (move >>> 32), (int) move);
+
+			builder.endRow();
+		}
+
+		return new OffHeapAutomaton(symbols, builder);
+	}
+
+	/**
+	 * Copies this automaton on the heap, naming its states q0, q1 and so on.
+	 */
+	public Automaton toAutomaton() {
+		ensureOpen();
+
+		State[] states = new State[stateCount];
+		HashSet<State> stateSet = new HashSet<State>();
+		HashSet<Transition> delta = new HashSet<Transition>();
+
+		for (int i = 0; i < stateCount; ++i) {
+			states[i] = new State("q" + i, isInitial(i), isFinal(i));
+			stateSet.add(states[i]);
+		}
+
+		for (int i = 0; i < stateCount; ++i)
+			for (int j = offsets.get(i); j < offsets.get(i + 1); ++j)
+				delta.add(new Transition(states[i], states[targets.get(j)], symbols[labels.get(j)]));
+
+		return new Automaton(delta, stateSet);
+	}
+
+	/**
+	 * Returns the number of states.
+	 */
+	public int getStateCount() {
+		ensureOpen();
+		return stateCount;
+	}
+
+	/**
+	 * Returns the number of transitions.
+	 */
+	public int getTransitionCount() {
+		ensureOpen();
+		return offsets.get(stateCount);
+	}
+
+	/**
+	 * Runs a string on the automaton, following all its runs at once.
+	 *
+	 * @param s the string.
+	 * @return true if the string is accepted by the automaton, false otherwise.
+	 */
+	public boolean run(String s) {
+		ensureOpen();
+
+		BitSet current = new BitSet(stateCount);
+
+		for (int i = 0; i < stateCount; ++i)
+			if (isInitial(i))
+				current.set(i);
+
+		epsilonClosure(current);
+
+		for (String c : Automaton.toList(s)) {
+			int label = Arrays.binarySearch(symbols, c);
+
+			if (label < 0)
+				return false;
+
+			BitSet next = new BitSet(stateCount);
+
+			for (int p = current.nextSetBit(0); p >= 0; p = current.nextSetBit(p + 1))
+				for (int j = firstTransition(p, label); j < offsets.get(p + 1) && labels.get(j) == label; ++j)
+					next.set(targets.get(j));
+
+			if (next.isEmpty())
+				return false;
+
+			epsilonClosure(next);
+			current = next;
+		}
+
+		for (int p = current.nextSetBit(0); p >= 0; p = current.nextSetBit(p + 1))
+			if (isFinal(p))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Returns true if the automaton has a single initial state, no epsilon transition
+	 * and at most a transition for each state and symbol.
+	 */
+	public boolean isDeterministic() {
+		ensureOpen();
+
+		int initialStates = 0;
+
+		for (int i = 0; i < stateCount; ++i) {
+			if (isInitial(i))
+				++initialStates;
+
+			for (int j = offsets.get(i); j < offsets.get(i + 1); ++j)
+				if ((hasEpsilon() && labels.get(j) == 0) || (j > offsets.get(i) && labels.get(j - 1) == labels.get(j)))
+					return false;
+		}
+
+		return initialStates == 1;
+	}
+
+	/**
+	 * Builds the deterministic automaton of the reachable subsets of states.
+	 *
+	 * @return a new deterministic automaton, recognizing the same language.
+	 */
+	public OffHeapAutomaton determinize() {
+		ensureOpen();
+
+		int shift = hasEpsilon() ? 1 : 0;
+		HashMap<Subset, Integer> ids = new HashMap<Subset, Integer>();
+		ArrayList<Subset> subsets = new ArrayList<Subset>();
+		Builder builder = new Builder();
+		BitSet initial = new BitSet(stateCount);
+
+		for (int i = 0; i < stateCount; ++i)
+			if (isInitial(i))
+				initial.set(i);
+
+		epsilonClosure(initial);
+		subsetId(initial, true, ids, subsets, builder);
+
+		for (int id = 0; id < subsets.size(); ++id) {
+			int[] subset = subsets.get(id).states;
+			subsets.set(id, null);
+
+			// the moves of the subset, by symbol
+			int size = 0;
+
+			for (int p : subset)
+				size += offsets.get(p + 1) - offsets.get(p);
+
+			long[] moves = new long[size];
+			int k = 0;
+
+			for (int p : subset)
+				for (int j = offsets.get(p); j < offsets.get(p + 1); ++j)
+					moves[k++] = ((long) labels.get(j) << 32) | targets.get(j);
+
+			Arrays.sort(moves);
+
+			for (int first = 0, last; first < moves.length; first = last) {
+				int label = (int) (moves[first] >>> 32);
+				BitSet next = new BitSet(stateCount);
+
+				for (last = first; last < moves.length && (int) (moves[last] >>> 32) == label; ++last)
+					next.set((int) moves[last]);
+
+				if (label < shift)
+					continue;
+
+				epsilonClosure(next);
+				builder.addTransition(label - shift, subsetId(next, false, ids, subsets, builder));
+			}
+
+			builder.endRow();
+		}
+
+		return new OffHeapAutomaton(shift == 0 ? symbols : Arrays.copyOfRange(symbols, 1, symbols.length), builder);
+	}
+
+	/**
+	 * Subset of states of the subset construction.
+	 */
+	private static final class Subset {
+		private final int[] states;
+		private final int hash;
+
+		private Subset(int[] states) {
+			this.states = states;
+			this.hash = Arrays.hashCode(states);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Subset && Arrays.equals(states, ((Subset) other).states);
+		}
+	}
+
+	private int subsetId(BitSet states, boolean isInitial, HashMap<Subset, Integer> ids, ArrayList<Subset> subsets, Builder builder) {
+		Subset subset = new Subset(states.stream().toArray());
+		Integer id = ids.get(subset);
+
+		if (id == null) {
+			boolean isFinal = false;
+
+			for (int p : subset.states)
+				isFinal |= isFinal(p);
+
+			id = builder.addState(isInitial, isFinal);
+			ids.put(subset, id);
+			subsets.add(subset);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Builds the minimum deterministic automaton by Moore's partition refinement. The states
+	 * that cannot reach a final state are removed, but the initial state.
+	 *
+	 * @return a new minimum automaton, recognizing the same language.
+	 */
+	public OffHeapAutomaton minimize() {
+		ensureOpen();
+
+		OffHeapAutomaton dfa = isDeterministic() ? this : determinize();
+		OffHeapAutomaton useful = dfa.trim();
+
+		if (dfa != this)
+			dfa.close();
+
+		try {
+			int[] initialBlocks = new int[useful.stateCount];
+
+			for (int i = 0; i < initialBlocks.length; ++i)
+				initialBlocks[i] = useful.isFinal(i) ? 1 : 0;
+
+			int[] blocks = new MooreRefinement(useful.offsets, useful.labels, useful.targets).refine(initialBlocks, Integer.MAX_VALUE);
+			int count = 0;
+
+			for (int block : blocks)
+				count = Math.max(count, block + 1);
+
+			int[] representatives = new int[count];
+			byte[] blockFlags = new byte[count];
+			Arrays.fill(representatives, -1);
+
+			for (int i = 0; i < blocks.length; ++i) {
+				if (representatives[blocks[i]] < 0)
+					representatives[blocks[i]] = i;
+
+				blockFlags[blocks[i]] |= useful.flags.get(i);
+			}
+
+			Builder builder = new Builder();
+
+			for (int b = 0; b < count; ++b)
+				builder.addState((blockFlags[b] & INITIAL) != 0, (blockFlags[b] & FINAL) != 0);
+
+			for (int b = 0; b < count; ++b) {
+				int r = representatives[b];
+
+				for (int j = useful.offsets.get(r); j < useful.offsets.get(r + 1); ++j)
+					builder.addTransition(useful.labels.get(j), blocks[useful.targets.get(j)]);
+
+				builder.endRow();
+			}
+
+			return new OffHeapAutomaton(useful.symbols, builder);
+		} finally {
+			useful.close();
+		}
+	}
+
+	/**
+	 * Returns the automaton restricted to the states reachable from an initial state
+	 * and reaching a final state, and to the initial states.
+	 */
+	private OffHeapAutomaton trim() {
+		int transitions = offsets.get(stateCount);
+		IntBuffer worklist = allocateInts(stateCount);
+		BitSet reachable = new BitSet(stateCount);
+		int size = 0;
+
+		for (int i = 0; i < stateCount; ++i)
+			if (isInitial(i)) {
+				reachable.set(i);
+				worklist.put(size++, i);
+			}
+
+		while (size > 0) {
+			int p = worklist.get(--size);
+
+			for (int j = offsets.get(p); j < offsets.get(p + 1); ++j)
+				if (!reachable.get(targets.get(j))) {
+					reachable.set(targets.get(j));
+					worklist.put(size++, targets.get(j));
+				}
+		}
+
+		// the predecessors of each state, in compressed rows
+		IntBuffer reverseOffsets = allocateInts(stateCount + 1);
+		IntBuffer sources = allocateInts(transitions);
+
+		for (int j = 0; j < transitions; ++j)
+			reverseOffsets.put(targets.get(j) + 1, reverseOffsets.get(targets.get(j) + 1) + 1);
+
+		for (int i = 0; i < stateCount; ++i)
+			reverseOffsets.put(i + 1, reverseOffsets.get(i + 1) + reverseOffsets.get(i));
+
+		IntBuffer cursors = allocateInts(stateCount);
+
+		for (int i = 0; i < stateCount; ++i)
+			cursors.put(i, reverseOffsets.get(i));
+
+		for (int i = 0; i < stateCount; ++i)
+			for (int j = offsets.get(i); j < offsets.get(i + 1); ++j) {
+				int to = targets.get(j);
+				sources.put(cursors.get(to), i);
+				cursors.put(to, cursors.get(to) + 1);
+			}
+
+		BitSet coReachable = new BitSet(stateCount);
+
+		for (int i = 0; i < stateCount; ++i)
+			if (isFinal(i)) {
+				coReachable.set(i);
+				worklist.put(size++, i);
+			}
+
+		while (size > 0) {
+			int p = worklist.get(--size);
+
+			for (int j = reverseOffsets.get(p); j < reverseOffsets.get(p + 1); ++j)
+				if (!coReachable.get(sources.get(j))) {
+					coReachable.set(sources.get(j));
+					worklist.put(size++, sources.get(j));
+				}
+		}
+
+		BitSet useful = reachable;
+		useful.and(coReachable);
+
+		for (int i = 0; i < stateCount; ++i)
+			if (isInitial(i))
+				useful.set(i);
+
+		// the useful states are renumbered in order
+		IntBuffer ids = cursors;
+		Builder builder = new Builder();
+
+		for (int i = useful.nextSetBit(0); i >= 0; i = useful.nextSetBit(i + 1))
+			ids.put(i, builder.addState(isInitial(i), isFinal(i)));
+
+		for (int i = useful.nextSetBit(0); i >= 0; i = useful.nextSetBit(i + 1)) {
+			for (int j = offsets.get(i); j < offsets.get(i + 1); ++j)
+				if (useful.get(targets.get(j)))
+					builder.addTransition(labels.get(j), ids.get(targets.get(j)));
+
+			builder.endRow();
+		}
+
+		return new OffHeapAutomaton(symbols, builder);
+	}
+
+	/**
+	 * Product construction between two automata, exploring only the reachable pairs of states.
+	 * The epsilon transitions move a single component of the pairs.
+	 *
+	 * @param first the first automaton.
+	 * @param second the second automaton.
+	 * @return a new automaton recognizing the intersection of the languages, not minimized.
+	 */
+	public static OffHeapAutomaton product(OffHeapAutomaton first, OffHeapAutomaton second) {
+		first.ensureOpen();
+		second.ensureOpen();
+
+		TreeSet<String> alphabet = new TreeSet<String>(Arrays.asList(first.symbols));
+		alphabet.addAll(Arrays.asList(second.symbols));
+
+		String[] symbols = alphabet.toArray(new String[alphabet.size()]);
+		int[] firstLabels = relabel(first.symbols, symbols);
+		int[] secondLabels = relabel(second.symbols, symbols);
+		boolean epsilon = symbols.length > 0 && symbols[0].isEmpty();
+
+		HashMap<Long, Integer> ids = new HashMap<Long, Integer>();
+		DirectBuffer pairs = new DirectBuffer();
+		Builder builder = new Builder();
+
+		for (int p : first.initialStates())
+			for (int q : second.initialStates())
+				pairId(first, p, second, q, true, ids, pairs, builder);
+
+		for (int id = 0; id < builder.states; ++id) {
+			int p = pairs.getInt(8 * id), q = pairs.getInt(8 * id + 4);
+			int i = first.offsets.get(p), iEnd = first.offsets.get(p + 1);
+			int j = second.offsets.get(q), jEnd = second.offsets.get(q + 1);
+
+			// epsilon transitions come first in the rows
+			if (epsilon) {
+				for (; i < iEnd && firstLabels[first.labels.get(i)] == 0; ++i)
+					builder.addTransition(0, pairId(first, first.targets.get(i), second, q, false, ids, pairs, builder));
+				for (; j < jEnd && secondLabels[second.labels.get(j)] == 0; ++j)
+					builder.addTransition(0, pairId(first, p, second, second.targets.get(j), false, ids, pairs, builder));
+			}
+
+			// merges the rows on their symbols
+			while (i < iEnd && j < jEnd) {
+				int a = firstLabels[first.labels.get(i)], b = secondLabels[second.labels.get(j)];
+
+				if (a < b)
+					++i;
+				else if (a > b)
+					++j;
+				else {
+					int iNext = i, jNext = j;
+
+					while (iNext < iEnd && firstLabels[first.labels.get(iNext)] == a)
+						++iNext;
+					while (jNext < jEnd && secondLabels[second.labels.get(jNext)] == a)
+						++jNext;
+
+					for (int x = i; x < iNext; ++x)
+						for (int y = j; y < jNext; ++y)
+							builder.addTransition(a, pairId(first, first.targets.get(x), second, second.targets.get(y), false, ids, pairs, builder));
+
+					i = iNext;
+					j = jNext;
+				}
+			}
+
+			builder.endRow();
+		}
+
+		return new OffHeapAutomaton(symbols, builder);
+	}
+
+	private static int pairId(OffHeapAutomaton first, int p, OffHeapAutomaton second, int q, boolean isInitial, HashMap<Long, Integer> ids, DirectBuffer pairs, Builder builder) {
+		Long key = ((long) p << 32) | q;
+		Integer id = ids.get(key);
+
+		if (id == null) {
+			id = builder.addState(isInitial, first.isFinal(p) && second.isFinal(q));
+			ids.put(key, id);
+			pairs.putInt(p);
+			pairs.putInt(q);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Returns the position of each symbol of a table in a larger table.
+	 */
+	private static int[] relabel(String[] symbols, String[] table) {
+		int[] result = new int[symbols.length];
+
+		for (int i = 0; i < symbols.length; ++i)
+			result[i] = Arrays.binarySearch(table, symbols[i]);
+
+		return result;
+	}
+
+	/**
+	 * Releases the storage of the automaton.
+	 */
+	@Override
+	public void close() {
+		flags = null;
+		offsets = null;
+		labels = null;
+		targets = null;
+	}
+
+	private void ensureOpen() {
+		if (flags == null)
+			throw new IllegalStateException("the automaton has been closed");
+	}
+
+	private int[] initialStates() {
+		return IntStream.range(0, stateCount).filter(this::isInitial).toArray();
+	}
+
+	private boolean isInitial(int state) {
+		return (flags.get(state) & INITIAL) != 0;
+	}
+
+	private boolean isFinal(int state) {
+		return (flags.get(state) & FINAL) != 0;
+	}
+
+	private boolean hasEpsilon() {
+		return symbols.length > 0 && symbols[0].isEmpty();
+	}
+
+	/**
+	 * Returns the position of the first transition of a state reading a symbol, or of the first
+	 * transition reading a larger symbol if there is none.
+	 */
+	private int firstTransition(int state, int label) {
+		int low = offsets.get(state), high = offsets.get(state + 1);
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (labels.get(middle) < label)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		return low;
+	}
+
+	/**
+	 * Adds to a set of states the states reachable from them by epsilon transitions.
+	 */
+	private void epsilonClosure(BitSet states) {
+		if (!hasEpsilon())
+			return;
+
+		int[] worklist = states.stream().toArray();
+		int size = worklist.length;
+
+		while (size > 0) {
+			int p = worklist[--size];
+
+			// epsilon has symbol id 0 and comes first in the rows
+			for (int j = offsets.get(p); j < offsets.get(p + 1) && labels.get(j) == 0; ++j)
+				if (!states.get(targets.get(j))) {
+					states.set(targets.get(j));
+
+					if (size == worklist.length)
+						worklist = Arrays.copyOf(worklist, 2 * size + 1);
+
+					worklist[size++] = targets.get(j);
+				}
+		}
+	}
+
+	private static IntBuffer allocateInts(int size) {
+		return ByteBuffer.allocateDirect(4 * size).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+}
@@ -0,0 +1,219 @@
+package it.univr.fsm.machine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import it.univr.exception.BudgetExceededException;
+
+/**
+ * Budget of the operations on automata: a limit to the number of states and of transitions
+ * they build, a deadline and a cancellation flag.
+ *
+ * A context is installed for the current thread by {@link #call(Supplier)}, and it is checked
+ * cooperatively inside the subset construction, the product exploration, the elimination of
+ * states and the fixpoint of the equations of {@link Automaton#toRegex()}, which throw a
+ * {@link BudgetExceededException} when it is exceeded. Since every operation producing automata
+ * is made of these, {@link #approximate(Supplier)} can replace any of them by the top language,
+ * which is a sound over-approximation. Outside of a context, the checks only read a thread local.
+ *
+ * A context can also bound the size of the results of intersections, unions, concatenations, complements
+ * and differences, replacing those with more than a number of states by the over-approximation of an
+ * {@link ApproximationPolicy}. The automata in the negated operand of a difference or of an inclusion
+ * check are computed {@link #exactly(Supplier)}, since over-approximating them would under-approximate
+ * the result. Whether a result has been approximated is told by {@link #isPrecisionLost()}.
+ *
+ * A context can be cancelled from any thread, and it is installed in the workers of a
+ * {@link ReductionStrategy#PARALLEL} reduction performed in it.
+ */
+public final class OperationContext {
+
+	private static final ThreadLocal<OperationContext> CURRENT = new ThreadLocal<OperationContext>();
+
+	private int stateLimit = Integer.MAX_VALUE;
+	private int transitionLimit = Integer.MAX_VALUE;
+	private long deadline;
+	private boolean hasDeadline;
+	private volatile boolean cancelled;
+
+	private int maxStates = Integer.MAX_VALUE;
+	private ApproximationPolicy policy;
+	private volatile boolean precisionLost;
+
+	/**
+	 * Nesting of the computations that cannot be over-approximated, shared by the threads of
+	 * a parallel reduction: one of them computing exactly at most makes the others more precise.
+	 */
+	private final AtomicInteger exact = new AtomicInteger();
+
+	/**
+	 * Constructs a context without limits.
+	 */
+	public OperationContext() {
+	}
+
+	/**
+	 * Limits the number of states built by a single operation.
+	 */
+	public OperationContext setStateLimit(int stateLimit) {
+		this.stateLimit = stateLimit;
+		return this;
+	}
+
+	/**
+	 * Limits the number of transitions built by a single operation.
+	 */
+	public OperationContext setTransitionLimit(int transitionLimit) {
+		this.transitionLimit = transitionLimit;
+		return this;
+	}
+
+	/**
+	 * Sets the deadline of the operations to a timeout from now.
+	 */
+	public OperationContext setTimeout(long timeout, TimeUnit unit) {
+		this.deadline = System.nanoTime() + unit.toNanos(timeout);
+		this.hasDeadline = true;
+		return this;
+	}
+
+	/**
+	 * Approximates the results of the operations with more than a number of states.
+	 *
+	 * @param maxStates the maximum number of states of the results, at least 1.
+	 * @param policy the approximation, such as a {@link Coarsening}.
+	 */
+	public OperationContext setApproximation(int maxStates, ApproximationPolicy policy) {
+		this.maxStates = maxStates;
+		this.policy = policy;
+		return this;
+	}
+
+	/**
+	 * Returns true if a result has been over-approximated in this context, by its
+	 * approximation policy or by {@link #approximate(Supplier)}.
+	 */
+	public boolean isPrecisionLost() {
+		return precisionLost;
+	}
+
+	/**
+	 * Cancels the operations running in this context, which stop at their next check.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Performs operations in this context, in the current thread.
+	 *
+	 * @throws BudgetExceededException if the context is exceeded.
+	 */
+	public <T> T call(Supplier<T> operations) {
+		OperationContext previous = CURRENT.get();
+		CURRENT.set(this);
+
+		try {
+			return operations.get();
+		} finally {
+			if (previous == null)
+				CURRENT.remove();
+			else
+				CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Performs operations building an automaton in this context, in the current thread.
+	 *
+	 * @return the automaton, or the top language over {@link Alphabet#PRINTABLE_ASCII} if the context is exceeded.
+	 */
+	public Automaton approximate(Supplier<Automaton> operations) {
+		return approximate(operations, Alphabet.PRINTABLE_ASCII);
+	}
+
+	/**
+	 * Performs operations building an automaton over an alphabet in this context, in the current thread.
+	 *
+	 * @return the automaton, or the top language over the alphabet if the context is exceeded.
+	 */
+	public Automaton approximate(Supplier<Automaton> operations, Alphabet alphabet) {
+		try {
+			return call(operations);
+		} catch (BudgetExceededException e) {
+			precisionLost = true;
+			return Automaton.makeTopLanguage(alphabet);
+		}
+	}
+
+	/**
+	 * Returns the context of the current thread, null if there is none.
+	 */
+	static OperationContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Returns the result of an operation, approximated by the policy of the context of the current thread
+	 * if it has too many states.
+	 */
+	static Automaton coarsen(Automaton a) {
+		OperationContext context = CURRENT.get();
+
+		if (context == null || context.policy == null || context.exact.get() > 0 || a.getStates().size() <= context.maxStates)
+			return a;
+
+		context.precisionLost = true;
+		return context.policy.approximate(a, context.maxStates);
+	}
+
+	/**
+	 * Performs operations without approximating their results.
+	 */
+	static <T> T exactly(Supplier<T> operations) {
+		OperationContext context = CURRENT.get();
+
+		if (context == null)
+			return operations.get();
+
+		context.exact.incrementAndGet();
+
+		try {
+			return operations.get();
+		} finally {
+			context.exact.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Checks the deadline and the cancellation flag.
+	 *
+	 * @throws BudgetExceededException if the deadline is passed or the context is cancelled.
+	 */
+	void check() {
+		if (cancelled)
+			throw new BudgetExceededException("operation cancelled");
+
+		if (hasDeadline && System.nanoTime() - deadline > 0)
+			throw new BudgetExceededException("deadline passed");
+	}
+
+	/**
+	 * Checks the size of an automaton under construction, the deadline and the cancellation flag.
+	 *
+	 * @throws BudgetExceededException if the context is exceeded.
+	 */
+	void check(int states, int transitions) {
+		if (states > stateLimit)
+			throw new BudgetExceededException(states + " states, over the limit of " + stateLimit);
+
+		if (transitions > transitionLimit)
+			throw new BudgetExceededException(transitions + " transitions, over the limit of " + transitionLimit);
+
+		check();
+	}
+}
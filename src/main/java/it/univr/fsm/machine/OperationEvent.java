@@ -0,0 +1,44 @@
+package it.univr.fsm.machine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of an operation on automata.
+ */
+@Name("it.univr.fsm.AutomatonOperation")
+@Label("Automaton Operation")
+@Category("Automata")
+@Description("An operation on automata, with the sizes of its input and output")
+final class OperationEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Input States")
+	int inputStates;
+
+	@Label("Input Transitions")
+	int inputTransitions;
+
+	@Label("Output States")
+	int outputStates;
+
+	@Label("Output Transitions")
+	int outputTransitions;
+
+	@Label("Max Frontier")
+	@Description("Maximum size of the worklist of the construction")
+	int maxFrontier;
+
+	@Label("Rounds")
+	@Description("Rounds of partition refinement or of a fixpoint, or eliminated states")
+	int rounds;
+
+	@Label("Expression Size")
+	@Description("Number of symbols of the output regular expression")
+	long expressionSize;
+}
@@ -0,0 +1,163 @@
+package it.univr.fsm.machine;
+
+import java.util.IdentityHashMap;
+
+import it.univr.fsm.equations.Comp;
+import it.univr.fsm.equations.GroundCoeff;
+import it.univr.fsm.equations.Or;
+import it.univr.fsm.equations.RegularExpression;
+import it.univr.fsm.equations.Star;
+
+/**
+ * Measures of an operation on automata, reported to the {@link AutomatonListener}s
+ * registered in {@link Instrumentation}.
+ */
+public final class OperationMetrics {
+
+	private final String operation;
+	private final int inputStates;
+	private final int inputTransitions;
+	private final long start;
+
+	private int outputStates;
+	private int outputTransitions;
+	private int maxFrontier;
+	private int rounds;
+	private long expressionSize;
+	private long nanos;
+
+	/**
+	 * Flight recorder event of the operation, null if the event is disabled.
+	 */
+	final OperationEvent event;
+
+	OperationMetrics(String operation, int inputStates, int inputTransitions, OperationEvent event) {
+		this.operation = operation;
+		this.inputStates = inputStates;
+		this.inputTransitions = inputTransitions;
+		this.event = event;
+		this.start = System.nanoTime();
+	}
+
+	/**
+	 * Records the size of the worklist of a construction, such as the subsets of the subset construction
+	 * or the pairs of the product, keeping the maximum.
+	 */
+	void frontier(int size) {
+		maxFrontier = Math.max(maxFrontier, size);
+	}
+
+	/**
+	 * Records rounds of a refinement or of a fixpoint, such as those of a minimization,
+	 * or the states eliminated one at a time by a conversion into a regular expression.
+	 */
+	void rounds(int count) {
+		rounds += count;
+	}
+
+	void end(Automaton output) {
+		nanos = System.nanoTime() - start;
+		outputStates = output.getStates().size();
+		outputTransitions = output.getDelta().size();
+	}
+
+	void end(RegularExpression output) {
+		nanos = System.nanoTime() - start;
+		expressionSize = size(output, new IdentityHashMap<RegularExpression, Long>());
+	}
+
+	/**
+	 * Returns the number of symbols of an expression, counting each shared subexpression at each occurrence.
+	 */
+	private static long size(RegularExpression e, IdentityHashMap<RegularExpression, Long> sizes) {
+		Long size = sizes.get(e);
+
+		if (size != null)
+			return size;
+
+		if (e instanceof GroundCoeff)
+			size = (long) Math.max(1, ((GroundCoeff) e).getString().length());
+		else if (e instanceof Or)
+			size = size(((Or) e).getFirst(), sizes) + size(((Or) e).getSecond(), sizes);
+		else if (e instanceof Comp)
+			size = size(((Comp) e).getFirst(), sizes) + size(((Comp) e).getSecond(), sizes);
+		else if (e instanceof Star)
+			size = size(((Star) e).getOperand(), sizes);
+		else
+			size = 1L;
+
+		sizes.put(e, size);
+		return size;
+	}
+
+	/**
+	 * Returns the name of the operation.
+	 */
+	public String getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Returns the number of states of the input, or of the inputs.
+	 */
+	public int getInputStates() {
+		return inputStates;
+	}
+
+	/**
+	 * Returns the number of transitions of the input, or of the inputs.
+	 */
+	public int getInputTransitions() {
+		return inputTransitions;
+	}
+
+	/**
+	 * Returns the number of states of the output.
+	 */
+	public int getOutputStates() {
+		return outputStates;
+	}
+
+	/**
+	 * Returns the number of transitions of the output.
+	 */
+	public int getOutputTransitions() {
+		return outputTransitions;
+	}
+
+	/**
+	 * Returns the maximum size of the worklist, 0 if the operation has none.
+	 */
+	public int getMaxFrontier() {
+		return maxFrontier;
+	}
+
+	/**
+	 * Returns the number of refinement rounds, 0 if the operation has none.
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Returns the number of symbols of the regular expression built by the operation,
+	 * 0 if the output is an automaton.
+	 */
+	public long getExpressionSize() {
+		return expressionSize;
+	}
+
+	/**
+	 * Returns the wall time of the operation, in nanoseconds.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	@Override
+	public String toString() {
+		return operation + ": " + inputStates + "/" + inputTransitions + " -> " + outputStates + "/" + outputTransitions
+				+ " states/transitions, frontier " + maxFrontier + ", rounds " + rounds + ", expression " + expressionSize
+				+ ", " + nanos / 1000 + " us";
+	}
+}
@@ -0,0 +1,346 @@
+package it.univr.fsm.machine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+/**
+ * Moore's minimization of deterministic automata stored on disk, for automata that do not fit in memory.
+ *
+ * The automaton is kept in a directory, as a transition table and a table of final states:
+ * <ul>
+ * <li><code>transitions.bin</code>: for each state and each symbol, in this order, the target state
+ * as a 4-byte integer, -1 if there is no transition;</li>
+ * <li><code>finals.bin</code>: for each state, a byte which is 1 if the state is final, 0 otherwise;</li>
+ * <li><code>alphabet.bin</code>: the number of symbols and the symbols, in the format of
+ * {@link DataOutputStream#writeUTF(String)}.</li>
+ * </ul>
+ * The initial state is the state 0. The block of each state is stored in <code>blocks.bin</code>,
+ * as a 4-byte integer.
+ *
+ * Each round of the refinement reads the transition table shard by shard, each shard being a range of
+ * states mapped in memory, and it writes the signature of each state, namely its block and the blocks of
+ * its successors, to one of several bucket files chosen by hashing the signature. Equal signatures thus
+ * fall in the same bucket, and the buckets are numbered one at a time, each one in memory, giving the
+ * blocks of the next round. Only a shard and a bucket are held in memory at a time, while the blocks are
+ * read from and written to memory-mapped files.
+ */
+public class PartitionedMinimizer {
+
+	/**
+	 * Number of blocks held by a segment of a memory-mapped block file.
+	 */
+	private static final int SEGMENT_SIZE = 1 << 26;
+
+	private final Path directory;
+	private final int states;
+	private final String[] alphabet;
+	private final int shardSize;
+
+	/**
+	 * Opens an automaton stored in a directory.
+	 *
+	 * @param directory the directory of the automaton.
+	 * @param shardSize the number of states of each shard, which also bounds
+	 *        the expected number of signatures of each bucket.
+	 * @throws IOException if the files cannot be read.
+	 */
+	public PartitionedMinimizer(Path directory, int shardSize) throws IOException {
+		this.directory = directory;
+		this.shardSize = shardSize;
+		this.states = (int) Files.size(directory.resolve("finals.bin"));
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(directory.resolve("alphabet.bin"))))) {
+			alphabet = new String[in.readInt()];
+
+			for (int i = 0; i < alphabet.length; ++i)
+				alphabet[i] = in.readUTF();
+		}
+	}
+
+	/**
+	 * Stores a deterministic automaton in a directory, in the format read by this class.
+	 * Its implicit accepting sink, if any, is made explicit.
+	 *
+	 * @param automaton the automaton, which must be deterministic and is not modified.
+	 * @param directory the directory, which is created if needed.
+	 * @throws IOException if the files cannot be written.
+	 */
+	public static void write(Automaton automaton, Path directory) throws IOException {
+		Files.createDirectories(directory);
+
+		Automaton a = automaton;
+
+		if (a.hasAcceptingSink()) {
+			a = a.clone();
+			a.materializeSink();
+		}
+
+		State[] stateArray = new State[a.getStates().size()];
+		HashMap<State, Integer> ids = new HashMap<State, Integer>();
+		TransitionIndex index = a.getTransitionIndex();
+		TreeSet<String> symbols = new TreeSet<String>();
+
+		stateArray[0] = a.getInitialState();
+		ids.put(stateArray[0], 0);
+
+		for (State s : a.getStates())
+			if (!ids.containsKey(s)) {
+				stateArray[ids.size()] = s;
+				ids.put(s, ids.size());
+			}
+
+		for (State s : stateArray) {
+			TransitionIndex.Row row = index.getRow(s);
+
+			for (int j = 0; j < row.size(); ++j)
+				symbols.addAll(SymbolTable.getSymbols(row.getSymbol(j)));
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve("alphabet.bin"))))) {
+			out.writeInt(symbols.size());
+
+			for (String symbol : symbols)
+				out.writeUTF(symbol);
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve("transitions.bin"))))) {
+			for (State s : stateArray)
+				for (String symbol : symbols) {
+					State to = index.successor(s, symbol);
+					out.writeInt(to == null ? -1 : ids.get(to));
+				}
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve("finals.bin"))))) {
+			for (State s : stateArray)
+				out.writeByte(s.isFinalState() ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Refines the partition of the states until it is stable, storing the block of each state in <code>blocks.bin</code>.
+	 *
+	 * @return the number of blocks.
+	 * @throws IOException if the files cannot be read or written.
+	 */
+	public int refine() throws IOException {
+		Path blocks = directory.resolve("blocks.bin");
+		Path next = directory.resolve("blocks.next.bin");
+		int count = initialBlocks(blocks);
+
+		while (true) {
+			int newCount = round(blocks, next);
+			Files.move(next, blocks, StandardCopyOption.REPLACE_EXISTING);
+
+			// blocks are only split, so the partition is stable when their number does not change
+			if (newCount == count)
+				return count;
+
+			count = newCount;
+		}
+	}
+
+	/**
+	 * Builds the minimal automaton from the blocks computed by {@link #refine()}.
+	 *
+	 * @return the minimal automaton.
+	 * @throws IOException if the files cannot be read.
+	 */
+	public Automaton toAutomaton() throws IOException {
+		HashMap<Integer, State> macroStates = new HashMap<Integer, State>();
+		HashSet<Transition> delta = new HashSet<Transition>();
+
+		try (RandomAccessFile blockFile = new RandomAccessFile(directory.resolve("blocks.bin").toFile(), "r");
+				DataInputStream transitions = new DataInputStream(new BufferedInputStream(Files.newInputStream(directory.resolve("transitions.bin"))));
+				DataInputStream finals = new DataInputStream(new BufferedInputStream(Files.newInputStream(directory.resolve("finals.bin"))))) {
+			MappedByteBuffer[] blocks = map(blockFile.getChannel(), FileChannel.MapMode.READ_ONLY);
+
+			for (int s = 0; s < states; ++s) {
+				State from = macroState(macroStates, get(blocks, s), s == 0, finals.readByte() == 1);
+
+				for (String symbol : alphabet) {
+					int to = transitions.readInt();
+
+					if (to >= 0)
+						delta.add(new Transition(from, macroState(macroStates, get(blocks, to), false, false), symbol));
+				}
+			}
+		}
+
+		return new Automaton(delta, new HashSet<State>(macroStates.values()));
+	}
+
+	private static State macroState(HashMap<Integer, State> macroStates, int block, boolean isInitial, boolean isFinal) {
+		State s = macroStates.computeIfAbsent(block, b -> new State("q" + b, false, false));
+
+		if (isInitial)
+			s.setInitialState(true);
+		if (isFinal)
+			s.setFinalState(true);
+
+		return s;
+	}
+
+	/**
+	 * Writes the initial partition, by finality, and returns its number of blocks.
+	 */
+	private int initialBlocks(Path blocks) throws IOException {
+		boolean[] found = new boolean[2];
+
+		try (DataInputStream finals = new DataInputStream(new BufferedInputStream(Files.newInputStream(directory.resolve("finals.bin"))));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(blocks)))) {
+			for (int s = 0; s < states; ++s) {
+				int block = finals.readByte();
+				found[block] = true;
+				out.writeInt(block);
+			}
+		}
+
+		return (found[0] ? 1 : 0) + (found[1] ? 1 : 0);
+	}
+
+	/**
+	 * Computes the blocks of the next round and returns their number.
+	 */
+	private int round(Path blocks, Path next) throws IOException {
+		int symbols = alphabet.length;
+		int buckets = Math.max(1, (states + shardSize - 1) / shardSize);
+		Path[] bucketFiles = new Path[buckets];
+		DataOutputStream[] bucketOut = new DataOutputStream[buckets];
+
+		for (int b = 0; b < buckets; ++b) {
+			bucketFiles[b] = directory.resolve("bucket" + b + ".bin");
+			bucketOut[b] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(bucketFiles[b])));
+		}
+
+		// writes the signatures of the states, shard by shard, to the buckets
+		try (RandomAccessFile blockFile = new RandomAccessFile(blocks.toFile(), "r");
+				RandomAccessFile transitionFile = new RandomAccessFile(directory.resolve("transitions.bin").toFile(), "r")) {
+			MappedByteBuffer[] currentBlocks = map(blockFile.getChannel(), FileChannel.MapMode.READ_ONLY);
+			int[] signature = new int[symbols + 1];
+
+			for (int first = 0; first < states; first += shardSize) {
+				int last = Math.min(states, first + shardSize);
+				MappedByteBuffer shard = transitionFile.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						(long) first * symbols * 4, (long) (last - first) * symbols * 4);
+
+				for (int s = first; s < last; ++s) {
+					signature[0] = get(currentBlocks, s);
+
+					for (int c = 0; c < symbols; ++c) {
+						int to = shard.getInt();
+						signature[c + 1] = to < 0 ? -1 : get(currentBlocks, to);
+					}
+
+					DataOutputStream out = bucketOut[Math.floorMod(Arrays.hashCode(signature), buckets)];
+					out.writeInt(s);
+
+					for (int value : signature)
+						out.writeInt(value);
+				}
+			}
+		} finally {
+			for (DataOutputStream out : bucketOut)
+				out.close();
+		}
+
+		// numbers the signatures, bucket by bucket
+		int count = 0;
+
+		try (RandomAccessFile nextFile = new RandomAccessFile(next.toFile(), "rw")) {
+			nextFile.setLength((long) states * 4);
+			MappedByteBuffer[] nextBlocks = map(nextFile.getChannel(), FileChannel.MapMode.READ_WRITE);
+
+			for (Path bucket : bucketFiles) {
+				HashMap<Signature, Integer> ids = new HashMap<Signature, Integer>();
+
+				try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(bucket)))) {
+					while (true) {
+						int s;
+
+						try {
+							s = in.readInt();
+						} catch (EOFException e) {
+							break;
+						}
+
+						int[] signature = new int[symbols + 1];
+
+						for (int i = 0; i < signature.length; ++i)
+							signature[i] = in.readInt();
+
+						int offset = count;
+						put(nextBlocks, s, ids.computeIfAbsent(new Signature(signature), k -> offset + ids.size()));
+					}
+				}
+
+				count += ids.size();
+				Files.delete(bucket);
+			}
+
+			for (MappedByteBuffer segment : nextBlocks)
+				segment.force();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Signature of a state, namely its block and the blocks of its successors.
+	 */
+	private static final class Signature {
+		private final int[] values;
+		private final int hash;
+
+		private Signature(int[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Signature && Arrays.equals(values, ((Signature) other).values);
+		}
+	}
+
+	/**
+	 * Maps a block file in memory, in segments of {@link #SEGMENT_SIZE} blocks.
+	 */
+	private MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+		MappedByteBuffer[] segments = new MappedByteBuffer[(states + SEGMENT_SIZE - 1) / SEGMENT_SIZE];
+
+		for (int i = 0; i < segments.length; ++i) {
+			long first = (long) i * SEGMENT_SIZE;
+			segments[i] = channel.map(mode, first * 4, Math.min(SEGMENT_SIZE, states - first) * 4);
+		}
+
+		return segments;
+	}
+
+	private static int get(MappedByteBuffer[] segments, int s) {
+		return segments[s / SEGMENT_SIZE].getInt((s % SEGMENT_SIZE) * 4);
+	}
+
+	private static void put(MappedByteBuffer[] segments, int s, int block) {
+		segments[s / SEGMENT_SIZE].putInt((s % SEGMENT_SIZE) * 4, block);
+	}
+}
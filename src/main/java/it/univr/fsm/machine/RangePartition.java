@@ -0,0 +1,141 @@
+package it.univr.fsm.machine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Partition of the code points into the intervals that are not split by the ranges and the symbols of
+ * a single code point read by some transitions, nor by the alphabets of their implicit accepting sinks.
+ *
+ * The ranges read by the transitions of distinct states may overlap, or include the symbol of a
+ * code point read by another state, while the operations that follow the transitions symbol by
+ * symbol, such as the subset construction and the refinements of partitions of states, need that
+ * two labels are either equal or disjoint. Each range is thus split into its pieces: the intervals
+ * of the partition, numbered in the {@link SymbolTable} as ranges, or as the symbols of their code
+ * point if they have just one. The other symbols are pieces of their own.
+ */
+final class RangePartition {
+
+	/**
+	 * The first code point of each interval, sorted, or null if no transition reads a range.
+	 */
+	private final int[] cuts;
+
+	/**
+	 * The pieces of the ranges split so far.
+	 */
+	private final HashMap<Integer, int[]> pieces = new HashMap<Integer, int[]>();
+
+	private RangePartition(int[] cuts) {
+		this.cuts = cuts;
+	}
+
+	/**
+	 * Returns the partition of the code points read by the transitions of some automata.
+	 */
+	static RangePartition of(Collection<Automaton> automata) {
+		Cuts cuts = new Cuts();
+
+		for (Automaton a : automata) {
+			TransitionIndex index = a.getTransitionIndex();
+
+			for (State s : a.getStates())
+				cuts.add(index.getRow(s));
+
+			if (a.hasAcceptingSink())
+				cuts.add(a.getAlphabet().getFirst(), a.getAlphabet().getLast());
+		}
+
+		return new RangePartition(cuts.toArray());
+	}
+
+	/**
+	 * Returns the partition of the code points read by the transitions of some states.
+	 */
+	static RangePartition of(State[] states, TransitionIndex index) {
+		Cuts cuts = new Cuts();
+
+		for (State s : states)
+			cuts.add(index.getRow(s));
+
+		return new RangePartition(cuts.toArray());
+	}
+
+	/**
+	 * Returns the pieces of a symbol or range, given by its number in the {@link SymbolTable}, sorted
+	 * by their first code point. The array must not be modified.
+	 */
+	int[] split(int symbol) {
+		if (cuts == null || !SymbolTable.isRange(symbol))
+			return new int[] { symbol };
+
+		return pieces.computeIfAbsent(symbol, r -> {
+			int first = SymbolTable.firstCodePoint(r), last = SymbolTable.lastCodePoint(r);
+			int i = Arrays.binarySearch(cuts, first + 1);
+
+			if (i < 0)
+				i = -i - 1;
+
+			int[] result = new int[1];
+			int size = 0;
+
+			for (; i < cuts.length && cuts[i] <= last; first = cuts[i++]) {
+				if (size == result.length)
+					result = Arrays.copyOf(result, 2 * size);
+
+				result[size++] = SymbolTable.internRange(first, cuts[i] - 1);
+			}
+
+			if (size == result.length)
+				result = Arrays.copyOf(result, size + 1);
+
+			result[size++] = SymbolTable.internRange(first, last);
+			return Arrays.copyOf(result, size);
+		});
+	}
+
+	/**
+	 * The bounds of the intervals, while they are collected.
+	 */
+	private static final class Cuts {
+		private int[] cuts = new int[16];
+		private int size;
+		private boolean ranges;
+
+		void add(TransitionIndex.Row row) {
+			for (int j = 0; j < row.size(); ++j) {
+				int symbol = row.getSymbol(j);
+
+				if (SymbolTable.firstCodePoint(symbol) >= 0) {
+					ranges |= SymbolTable.isRange(symbol);
+					add(SymbolTable.firstCodePoint(symbol), SymbolTable.lastCodePoint(symbol));
+				}
+			}
+		}
+
+		void add(int first, int last) {
+			if (size + 2 > cuts.length)
+				cuts = Arrays.copyOf(cuts, 2 * cuts.length);
+
+			cuts[size++] = first;
+			cuts[size++] = last + 1;
+		}
+
+		int[] toArray() {
+			if (!ranges)
+				return null;
+
+			int[] result = Arrays.copyOf(cuts, size);
+			Arrays.sort(result);
+
+			int distinct = 0;
+
+			for (int k = 0; k < result.length; ++k)
+				if (k == 0 || result[k] != result[k - 1])
+					result[distinct++] = result[k];
+
+			return Arrays.copyOf(result, distinct);
+		}
+	}
+}
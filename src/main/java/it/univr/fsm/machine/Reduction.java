@@ -0,0 +1,140 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Reduction of a list of automata by an associative binary operation,
+ * following a given {@link ReductionStrategy}.
+ */
+final class Reduction {
+
+	/**
+	 * Below this number of automata, the parallel reduction goes sequential.
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = 2;
+
+	private Reduction() {}
+
+	/**
+	 * Reduces the automata by the operation.
+	 * 
+	 * @param automata the automata, in order.
+	 * @param op the associative binary operation.
+	 * @param commutative whether the operation is commutative.
+	 * @param strategy the reduction strategy.
+	 * @return the reduction of the automata, null if there are no automata.
+	 */
+	static Automaton reduce(List<Automaton> automata, BinaryOperator<Automaton> op, boolean commutative, ReductionStrategy strategy) {
+		if (automata.isEmpty())
+			return null;
+
+		switch (strategy) {
+		case BALANCED:
+			return balanced(automata, op, 0, automata.size());
+		case SMALLEST_FIRST:
+			return commutative ? smallestFirst(automata, op) : smallestAdjacentFirst(automata, op);
+		case PARALLEL:
+			return ForkJoinPool.commonPool().invoke(new ReductionTask(automata, op, 0, automata.size()));
+		default:
+			return leftFold(automata, op);
+		}
+	}
+
+	private static Automaton leftFold(List<Automaton> automata, BinaryOperator<Automaton> op) {
+		Automaton result = null;
+
+		for (Automaton a : automata)
+			result = (result == null) ? a : op.apply(result, a);
+
+		return result;
+	}
+
+	private static Automaton balanced(List<Automaton> automata, BinaryOperator<Automaton> op, int from, int to) {
+		if (to - from == 1)
+			return automata.get(from);
+
+		int middle = (from + to) >>> 1;
+		return op.apply(balanced(automata, op, from, middle), balanced(automata, op, middle, to));
+	}
+
+	private static Automaton smallestFirst(List<Automaton> automata, BinaryOperator<Automaton> op) {
+		PriorityQueue<Automaton> queue = new PriorityQueue<Automaton>(automata.size(), Comparator.comparingInt(Reduction::size));
+		queue.addAll(automata);
+
+		while (queue.size() > 1)
+			queue.add(op.apply(queue.poll(), queue.poll()));
+
+		return queue.poll();
+	}
+
+	private static Automaton smallestAdjacentFirst(List<Automaton> automata, BinaryOperator<Automaton> op) {
+		ArrayList<Automaton> list = new ArrayList<Automaton>(automata);
+
+		while (list.size() > 1) {
+			int best = 0;
+
+			for (int i = 1; i < list.size() - 1; ++i)
+				if (size(list.get(i)) + size(list.get(i + 1)) < size(list.get(best)) + size(list.get(best + 1)))
+					best = i;
+
+			list.set(best, op.apply(list.get(best), list.get(best + 1)));
+			list.remove(best + 1);
+		}
+
+		return list.get(0);
+	}
+
+	private static int size(Automaton a) {
+		return a.getStates().size();
+	}
+
+	/**
+	 * Fork/join task reducing the automata in [from, to).
+	 */
+	private static class ReductionTask extends RecursiveTask<Automaton> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Automaton> automata;
+		private final BinaryOperator<Automaton> op;
+		private final int from;
+		private final int to;
+
+		/**
+		 * The context of the thread creating the task, installed in the worker running it.
+		 */
+		private final OperationContext context;
+
+		ReductionTask(List<Automaton> automata, BinaryOperator<Automaton> op, int from, int to) {
+			this.automata = automata;
+			this.op = op;
+			this.from = from;
+			this.to = to;
+			this.context = OperationContext.current();
+		}
+
+		@Override
+		protected Automaton compute() {
+			return context == null ? reduce() : context.call(this::reduce);
+		}
+
+		private Automaton reduce() {
+			if (to - from <= SEQUENTIAL_THRESHOLD)
+				return balanced(automata, op, from, to);
+
+			int middle = (from + to) >>> 1;
+			ReductionTask left = new ReductionTask(automata, op, from, middle);
+			ReductionTask right = new ReductionTask(automata, op, middle, to);
+
+			right.fork();
+			Automaton first = left.compute();
+			return op.apply(first, right.join());
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package it.univr.fsm.machine;
+
+/**
+ * Strategies to reduce a collection of automata by a binary operation.
+ * 
+ * @see Automaton#union(java.util.Collection, ReductionStrategy)
+ * @see Automaton#intersection(java.util.Collection, ReductionStrategy)
+ * @see Automaton#concat(java.util.Collection, ReductionStrategy)
+ * @see Automaton#minus(java.util.Collection, ReductionStrategy)
+ */
+public enum ReductionStrategy {
+
+	/**
+	 * Left-to-right fold: ((a1 op a2) op a3) op ...
+	 */
+	LEFT_FOLD,
+
+	/**
+	 * Balanced binary tree: (a1 op a2) op (a3 op a4) ...
+	 */
+	BALANCED,
+
+	/**
+	 * Combines the two smallest automata first. For non-commutative operations
+	 * only adjacent automata are combined, so that the order is preserved.
+	 */
+	SMALLEST_FIRST,
+
+	/**
+	 * Balanced binary tree whose subtrees are reduced in parallel on the
+	 * common fork/join pool. The order of the operands is preserved.
+	 */
+	PARALLEL
+}
@@ -0,0 +1,360 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Reduction of nondeterministic automata by simulation, without determinization.
+ *
+ * A state q simulates a state p if q is final whenever p is, and each transition of p reading a
+ * symbol to p' is matched by a transition of q reading the same symbol to a state simulating p'.
+ * The states simulating each other recognize the same language, so merging them preserves the
+ * language of the automaton, and so does merging the states simulating each other on the reversed
+ * automaton, where the initial states play the role of the final ones. The two quotients are
+ * alternated until the number of states does not change.
+ *
+ * The greatest simulation is computed by refinement, as in Henzinger, Henzinger and Kopke: starting
+ * from the pairs respecting finality and the symbols read, the states q removed from the simulation
+ * of a state p' are propagated together, removing from the simulation of each predecessor of p' by
+ * a symbol the states without a successor by the same symbol still simulating p'. Only the
+ * simulation and the pending removals take a bit for each pair of states.
+ */
+final class SimulationReduction {
+
+	private SimulationReduction() {
+	}
+
+	/**
+	 * Returns an automaton recognizing the same language as an automaton without an implicit sink,
+	 * with at most as many states and no epsilon transitions.
+	 */
+	static Automaton reduce(Automaton automaton) {
+		Automaton a = removeEpsilonTransitions(automaton);
+		a.trim();
+
+		int size;
+
+		do {
+			size = a.getStates().size();
+			a = quotient(a, true);
+			a = quotient(a, false);
+		} while (a.getStates().size() < size);
+
+		return a;
+	}
+
+	/**
+	 * Returns an automaton without epsilon transitions, where each state reads the symbols read
+	 * by its epsilon closure, and is final if its closure contains a final state.
+	 */
+	private static Automaton removeEpsilonTransitions(Automaton a) {
+		StateSet.Universe universe = new StateSet.Universe(a);
+		int n = universe.size();
+
+		if (universe.firstEpsilonTransition(n) == 0)
+			return a.clone();
+
+		State[] states = new State[n];
+		HashSet<State> newStates = new HashSet<State>();
+		HashSet<Transition> newDelta = new HashSet<Transition>();
+
+		for (int i = 0; i < n; ++i) {
+			states[i] = new State(universe.getState(i).getState(), universe.getState(i).isInitialState(), false);
+			newStates.add(states[i]);
+		}
+
+		for (int i = 0; i < n; ++i) {
+			BitSet closure = new BitSet(n);
+			closure.set(i);
+			universe.epsilonClosure(closure);
+
+			for (int r = closure.nextSetBit(0); r >= 0; r = closure.nextSetBit(r + 1)) {
+				if (universe.getState(r).isFinalState())
+					states[i].setFinalState(true);
+
+				for (int j = universe.firstTransition(r); j < universe.firstTransition(r + 1); ++j)
+					newDelta.add(universe.transition(states[i], states[universe.getTarget(j)], universe.getLabel(j)));
+			}
+		}
+
+		return new Automaton(Transition.mergeRanges(newDelta), newStates);
+	}
+
+	/**
+	 * Returns the quotient of an automaton without epsilon transitions by the forward or the backward simulation equivalence.
+	 */
+	private static Automaton quotient(Automaton a, boolean forward) {
+		StateSet.Universe universe = new StateSet.Universe(a);
+		int n = universe.size();
+		int m = universe.firstTransition(n);
+		int[] sources = new int[m], labels = new int[m], targets = new int[m];
+		boolean[] accepting = new boolean[n];
+
+		for (int p = 0; p < n; ++p) {
+			accepting[p] = forward ? universe.getState(p).isFinalState() : universe.getState(p).isInitialState();
+
+			for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j) {
+				sources[j] = forward ? p : universe.getTarget(j);
+				labels[j] = universe.getLabel(j);
+				targets[j] = forward ? universe.getTarget(j) : p;
+			}
+		}
+
+		BitSet[] simulation = simulation(n, sources, labels, targets, accepting);
+		int[] blocks = new int[n];
+		Arrays.fill(blocks, -1);
+
+		// the simulation is a preorder, so simulating each other is an equivalence
+		for (int p = 0, count = 0; p < n; ++p)
+			if (blocks[p] < 0) {
+				blocks[p] = count++;
+
+				for (int q = simulation[p].nextSetBit(p + 1); q >= 0; q = simulation[p].nextSetBit(q + 1))
+					if (simulation[q].get(p))
+						blocks[q] = blocks[p];
+			}
+
+		State[] stateArray = new State[n];
+
+		for (int p = 0; p < n; ++p)
+			stateArray[p] = universe.getState(p);
+
+		return a.quotient(stateArray, blocks);
+	}
+
+	/**
+	 * Returns the greatest simulation of a transition system, as the set of the states simulating each state.
+	 */
+	static BitSet[] simulation(int n, int[] sources, int[] labels, int[] targets, boolean[] accepting) {
+		Rows successors = new Rows(n, sources, labels, targets);
+		Rows predecessors = new Rows(n, targets, labels, sources);
+		BitSet[] simulation = new BitSet[n];
+
+		// the pairs removed from the simulation of each state and not yet propagated, null if none
+		BitSet[] removed = new BitSet[n];
+		int[] worklist = new int[n];
+		int size = 0;
+
+		// a state cannot be simulated by a state missing one of its symbols, and any other
+		// unmatched transition is found by propagating the removal of the pairs of its targets;
+		// the states are compared once for each set of symbols and finality
+		HashMap<List<Integer>, Integer> classes = new HashMap<List<Integer>, Integer>();
+		ArrayList<Integer> representatives = new ArrayList<Integer>();
+		ArrayList<BitSet> members = new ArrayList<BitSet>();
+		int[] classOf = new int[n];
+
+		for (int p = 0; p < n; ++p) {
+			List<Integer> key = new ArrayList<Integer>();
+			key.add(accepting[p] ? 1 : 0);
+
+			for (int g = successors.firstGroup(p); g < successors.firstGroup(p + 1); ++g)
+				key.add(successors.getLabel(g));
+
+			Integer c = classes.get(key);
+
+			if (c == null) {
+				classes.put(key, c = representatives.size());
+				representatives.add(p);
+				members.add(new BitSet(n));
+			}
+
+			classOf[p] = c;
+			members.get(c).set(p);
+		}
+
+		BitSet[] initial = new BitSet[representatives.size()];
+
+		for (int c = 0; c < initial.length; ++c) {
+			int p = representatives.get(c);
+			initial[c] = new BitSet(n);
+
+			for (int d = 0; d < initial.length; ++d) {
+				int q = representatives.get(d);
+
+				if ((!accepting[p] || accepting[q]) && successors.hasLabelsOf(p, q))
+					initial[c].or(members.get(d));
+			}
+		}
+
+		for (int p = 0; p < n; ++p) {
+			simulation[p] = (BitSet) initial[classOf[p]].clone();
+
+			if (simulation[p].cardinality() < n) {
+				removed[p] = new BitSet(n);
+				removed[p].set(0, n);
+				removed[p].andNot(simulation[p]);
+				worklist[size++] = p;
+			}
+		}
+
+		BitSet candidates = new BitSet(n), unmatched = new BitSet(n);
+
+		while (size > 0) {
+			int p1 = worklist[--size];
+			BitSet q1s = removed[p1];
+			removed[p1] = null;
+
+			// a predecessor of p1 by a symbol is no more simulated by the states it was simulated by
+			// without a successor by the same symbol left simulating p1: these are found among the
+			// predecessors of the removed states or, when these are more, among the simulating states
+			for (int g = predecessors.firstGroup(p1); g < predecessors.firstGroup(p1 + 1); ++g) {
+				int label = predecessors.getLabel(g);
+
+				for (int k = predecessors.firstTarget(g); k < predecessors.firstTarget(g + 1); ++k)
+					candidates.or(simulation[predecessors.getTarget(k)]);
+
+				if (q1s.cardinality() < candidates.cardinality()) {
+					candidates.clear();
+
+					for (int q1 = q1s.nextSetBit(0); q1 >= 0; q1 = q1s.nextSetBit(q1 + 1)) {
+						int h = predecessors.findGroup(q1, label);
+
+						if (h >= 0)
+							for (int k = predecessors.firstTarget(h); k < predecessors.firstTarget(h + 1); ++k)
+								candidates.set(predecessors.getTarget(k));
+					}
+				}
+
+				for (int q = candidates.nextSetBit(0); q >= 0; q = candidates.nextSetBit(q + 1))
+					if (!reaches(successors, q, label, simulation[p1]))
+						unmatched.set(q);
+
+				if (!unmatched.isEmpty())
+					for (int k = predecessors.firstTarget(g); k < predecessors.firstTarget(g + 1); ++k) {
+						int p = predecessors.getTarget(k);
+
+						if (simulation[p].intersects(unmatched)) {
+							if (removed[p] == null) {
+								removed[p] = new BitSet(n);
+								worklist[size++] = p;
+							}
+
+							BitSet lost = (BitSet) unmatched.clone();
+							lost.and(simulation[p]);
+							removed[p].or(lost);
+							simulation[p].andNot(lost);
+						}
+					}
+
+				candidates.clear();
+				unmatched.clear();
+			}
+		}
+
+		return simulation;
+	}
+
+	/**
+	 * Returns true if state q reads a symbol towards one of some states.
+	 */
+	private static boolean reaches(Rows successors, int q, int label, BitSet states) {
+		int h = successors.findGroup(q, label);
+
+		if (h >= 0)
+			for (int k = successors.firstTarget(h); k < successors.firstTarget(h + 1); ++k)
+				if (states.get(successors.getTarget(k)))
+					return true;
+
+		return false;
+	}
+
+	/**
+	 * Transitions grouped by source and symbol: the groups of state i are from firstGroup(i)
+	 * to firstGroup(i + 1) excluded, sorted by symbol, and the targets of group g are from
+	 * firstTarget(g) to firstTarget(g + 1) excluded.
+	 */
+	private static final class Rows {
+		private final int[] offsets;
+		private final int[] labels;
+		private final int[] targetOffsets;
+		private final int[] targets;
+
+		Rows(int n, int[] sources, int[] transitionLabels, int[] transitionTargets) {
+			int m = sources.length;
+			Integer[] order = new Integer[m];
+
+			for (int j = 0; j < m; ++j)
+				order[j] = j;
+
+			Arrays.sort(order, (i, j) -> sources[i] != sources[j] ? Integer.compare(sources[i], sources[j])
+					: transitionLabels[i] != transitionLabels[j] ? Integer.compare(transitionLabels[i], transitionLabels[j])
+					: Integer.compare(transitionTargets[i], transitionTargets[j]));
+
+			int groups = 0, count = 0;
+			int[] groupLabels = new int[m], groupSources = new int[m], starts = new int[m + 1];
+			targets = new int[m];
+
+			for (int k = 0; k < m; ++k) {
+				int j = order[k];
+				boolean newGroup = groups == 0 || groupSources[groups - 1] != sources[j] || groupLabels[groups - 1] != transitionLabels[j];
+
+				if (!newGroup && targets[count - 1] == transitionTargets[j])
+					continue;
+
+				if (newGroup) {
+					groupSources[groups] = sources[j];
+					groupLabels[groups] = transitionLabels[j];
+					starts[groups++] = count;
+				}
+
+				targets[count++] = transitionTargets[j];
+			}
+
+			starts[groups] = count;
+			offsets = new int[n + 1];
+			labels = Arrays.copyOf(groupLabels, groups);
+			targetOffsets = Arrays.copyOf(starts, groups + 1);
+
+			for (int g = 0; g < groups; ++g)
+				++offsets[groupSources[g] + 1];
+
+			for (int i = 0; i < n; ++i)
+				offsets[i + 1] += offsets[i];
+		}
+
+		int firstGroup(int state) {
+			return offsets[state];
+		}
+
+		int getLabel(int group) {
+			return labels[group];
+		}
+
+		int firstTarget(int group) {
+			return targetOffsets[group];
+		}
+
+		int getTarget(int index) {
+			return targets[index];
+		}
+
+		/**
+		 * Returns the group of a state reading a symbol, -1 if there is none.
+		 */
+		int findGroup(int state, int label) {
+			int g = Arrays.binarySearch(labels, offsets[state], offsets[state + 1], label);
+			return g < 0 ? -1 : g;
+		}
+
+		/**
+		 * Returns true if state q reads every symbol read by state p.
+		 */
+		boolean hasLabelsOf(int p, int q) {
+			int h = offsets[q];
+
+			for (int g = offsets[p]; g < offsets[p + 1]; ++g) {
+				while (h < offsets[q + 1] && labels[h] < labels[g])
+					++h;
+
+				if (h == offsets[q + 1] || labels[h] != labels[g])
+					return false;
+			}
+
+			return true;
+		}
+	}
+}
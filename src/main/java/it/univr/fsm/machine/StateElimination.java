@@ -0,0 +1,252 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import it.univr.fsm.equations.Comp;
+import it.univr.fsm.equations.GroundCoeff;
+import it.univr.fsm.equations.Or;
+import it.univr.fsm.equations.RegularExpression;
+import it.univr.fsm.equations.RegularExpressionFactory;
+import it.univr.fsm.equations.Star;
+
+/**
+ * Conversion of automata into regular expressions by state elimination.
+ *
+ * The automaton is extended with a new initial and a new final state, and its transitions
+ * become a matrix of regular expressions, where an absent entry stands for the empty language.
+ * The original states are then eliminated one at a time, each time choosing the state of
+ * minimum weight (Delgado and Morais), namely the state whose elimination adds the smallest
+ * amount of symbols to the expressions around it.
+ */
+final class StateElimination {
+
+	/**
+	 * Outgoing and incoming edges of the states, indexed by the other endpoint.
+	 */
+	private final ArrayList<HashMap<Integer, RegularExpression>> out = new ArrayList<HashMap<Integer, RegularExpression>>();
+	private final ArrayList<HashMap<Integer, RegularExpression>> in = new ArrayList<HashMap<Integer, RegularExpression>>();
+
+	private final RegularExpressionFactory factory = new RegularExpressionFactory();
+
+	/**
+	 * Sizes of the expressions built so far.
+	 */
+	private final IdentityHashMap<RegularExpression, Integer> sizes = new IdentityHashMap<RegularExpression, Integer>();
+
+	private final int start;
+	private final int end;
+
+	/**
+	 * Measures of the conversion, to which the eliminated states are reported, null if it is not measured.
+	 */
+	private final OperationMetrics metrics;
+
+	private StateElimination(Automaton a, OperationMetrics metrics) {
+		this.metrics = metrics;
+
+		HashMap<State, Integer> index = new HashMap<State, Integer>();
+
+		for (State s : a.getStates())
+			index.put(s, newNode());
+
+		start = newNode();
+		end = newNode();
+
+		for (Transition t : a.getDelta())
+			addEdge(index.get(t.getFrom()), index.get(t.getTo()), t.isRange() ? factory.range(t.getFirst(), t.getLast()) : factory.string(t.getInput()));
+
+		for (Map.Entry<State, Integer> e : index.entrySet()) {
+			if (e.getKey().isInitialState())
+				addEdge(start, e.getValue(), factory.emptyString());
+			if (e.getKey().isFinalState())
+				addEdge(e.getValue(), end, factory.emptyString());
+		}
+	}
+
+	/**
+	 * Returns a regular expression recognizing the language of an automaton.
+	 *
+	 * @param a the automaton, which is not modified.
+	 * @param metrics the measures of the conversion, null if it is not measured.
+	 * @return the regular expression, which is ∅ if the language is empty.
+	 */
+	static RegularExpression toRegex(Automaton a, OperationMetrics metrics) {
+		StateElimination matrix = new StateElimination(a, metrics);
+		matrix.trim();
+		matrix.eliminateAll();
+
+		RegularExpression result = matrix.out.get(matrix.start).get(matrix.end);
+		return result == null ? matrix.factory.emptySet() : result;
+	}
+
+	private int newNode() {
+		out.add(new HashMap<Integer, RegularExpression>());
+		in.add(new HashMap<Integer, RegularExpression>());
+		return out.size() - 1;
+	}
+
+	private void addEdge(int from, int to, RegularExpression e) {
+		RegularExpression old = out.get(from).get(to);
+		RegularExpression label = old == null ? e : factory.or(old, e);
+
+		out.get(from).put(to, label);
+		in.get(to).put(from, label);
+	}
+
+	private void removeNode(int n) {
+		for (int to : out.get(n).keySet())
+			in.get(to).remove(n);
+		for (int from : in.get(n).keySet())
+			out.get(from).remove(n);
+
+		out.set(n, null);
+		in.set(n, null);
+	}
+
+	/**
+	 * Removes the states that are not reachable from the initial state or
+	 * that do not reach the final state, since they do not contribute to the language.
+	 */
+	private void trim() {
+		boolean[] reachable = visit(start, out);
+		boolean[] coReachable = visit(end, in);
+
+		for (int n = 0; n < start; ++n)
+			if (!reachable[n] || !coReachable[n])
+				removeNode(n);
+	}
+
+	private boolean[] visit(int from, ArrayList<HashMap<Integer, RegularExpression>> edges) {
+		boolean[] visited = new boolean[edges.size()];
+		LinkedList<Integer> worklist = new LinkedList<Integer>();
+		visited[from] = true;
+		worklist.add(from);
+
+		while (!worklist.isEmpty())
+			for (int next : edges.get(worklist.removeFirst()).keySet())
+				if (!visited[next]) {
+					visited[next] = true;
+					worklist.add(next);
+				}
+
+		return visited;
+	}
+
+	/**
+	 * Eliminates all the original states, in order of minimum weight. The weights
+	 * are recomputed only for the neighbours of the eliminated states.
+	 */
+	private void eliminateAll() {
+		int[] weights = new int[start];
+		boolean[] eliminated = new boolean[start];
+
+		for (int n = 0; n < start; ++n)
+			if (out.get(n) == null)
+				eliminated[n] = true;
+			else
+				weights[n] = weight(n);
+
+		OperationContext context = OperationContext.current();
+
+		while (true) {
+			int min = -1;
+
+			if (context != null)
+				context.check();
+
+			for (int n = 0; n < start; ++n)
+				if (!eliminated[n] && (min == -1 || weights[n] < weights[min]))
+					min = n;
+
+			if (min == -1)
+				return;
+
+			ArrayList<Integer> neighbours = new ArrayList<Integer>(out.get(min).keySet());
+			neighbours.addAll(in.get(min).keySet());
+
+			eliminate(min);
+			eliminated[min] = true;
+
+			if (metrics != null)
+				metrics.rounds(1);
+
+			for (int n : neighbours)
+				if (n < start && !eliminated[n])
+					weights[n] = weight(n);
+		}
+	}
+
+	/**
+	 * Eliminates a state, adding to each pair of its predecessor p and successor s
+	 * the path (p, n)(n, n)*(n, s).
+	 */
+	private void eliminate(int n) {
+		RegularExpression loop = out.get(n).get(n);
+		RegularExpression starLoop = loop == null ? factory.emptyString() : factory.star(loop);
+
+		for (Map.Entry<Integer, RegularExpression> pred : in.get(n).entrySet()) {
+			if (pred.getKey() == n)
+				continue;
+
+			RegularExpression prefix = factory.comp(pred.getValue(), starLoop);
+
+			for (Map.Entry<Integer, RegularExpression> succ : out.get(n).entrySet())
+				if (succ.getKey() != n)
+					addEdge(pred.getKey(), succ.getKey(), factory.comp(prefix, succ.getValue()));
+		}
+
+		removeNode(n);
+	}
+
+	/**
+	 * Returns the Delgado-Morais weight of a state, namely the size of the
+	 * expressions added by its elimination minus the size of those removed.
+	 */
+	private int weight(int n) {
+		RegularExpression loop = out.get(n).get(n);
+		int inDegree = in.get(n).size() - (loop == null ? 0 : 1);
+		int outDegree = out.get(n).size() - (loop == null ? 0 : 1);
+		int weight = 0;
+
+		for (Map.Entry<Integer, RegularExpression> e : in.get(n).entrySet())
+			if (e.getKey() != n)
+				weight += size(e.getValue()) * (outDegree - 1);
+
+		for (Map.Entry<Integer, RegularExpression> e : out.get(n).entrySet())
+			if (e.getKey() != n)
+				weight += size(e.getValue()) * (inDegree - 1);
+
+		if (loop != null)
+			weight += size(loop) * (inDegree * outDegree - 1);
+
+		return weight;
+	}
+
+	/**
+	 * Returns the number of symbols of an expression.
+	 */
+	private int size(RegularExpression e) {
+		Integer size = sizes.get(e);
+
+		if (size != null)
+			return size;
+
+		if (e instanceof GroundCoeff)
+			size = Math.max(1, ((GroundCoeff) e).getString().length());
+		else if (e instanceof Or)
+			size = size(((Or) e).getFirst()) + size(((Or) e).getSecond());
+		else if (e instanceof Comp)
+			size = size(((Comp) e).getFirst()) + size(((Comp) e).getSecond());
+		else if (e instanceof Star)
+			size = size(((Star) e).getOperand());
+		else
+			size = 1;
+
+		sizes.put(e, size);
+		return size;
+	}
+}
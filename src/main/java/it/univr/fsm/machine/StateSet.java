@@ -0,0 +1,493 @@
+package it.univr.fsm.machine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Immutable set of states of an automaton, as the sorted array of their numbers in a {@link Universe}.
+ *
+ * The hash code and whether the set contains a final state are computed once, at construction,
+ * so that sets are cheap keys of hash maps, as in the subset construction, and equal sets are
+ * compared as arrays of integers.
+ */
+final class StateSet {
+
+	private final int[] states;
+	private final int hash;
+	private final boolean containsFinal;
+
+	private StateSet(int[] states, boolean containsFinal) {
+		this.states = states;
+		this.hash = Arrays.hashCode(states);
+		this.containsFinal = containsFinal;
+	}
+
+	/**
+	 * Returns the number of states of the set.
+	 */
+	int size() {
+		return states.length;
+	}
+
+	/**
+	 * Returns the i-th number of the set, in increasing order.
+	 */
+	int get(int i) {
+		return states[i];
+	}
+
+	boolean contains(int state) {
+		return Arrays.binarySearch(states, state) >= 0;
+	}
+
+	/**
+	 * Returns true if the set contains a final state.
+	 */
+	boolean containsFinal() {
+		return containsFinal;
+	}
+
+	/**
+	 * Returns the union of this set and another set of the same universe.
+	 */
+	StateSet union(StateSet other) {
+		int[] result = new int[states.length + other.states.length];
+		int i = 0, j = 0, k = 0;
+
+		while (i < states.length && j < other.states.length)
+			if (states[i] < other.states[j])
+				result[k++] = states[i++];
+			else if (states[i] > other.states[j])
+				result[k++] = other.states[j++];
+			else {
+				result[k++] = states[i++];
+				++j;
+			}
+
+		while (i < states.length)
+			result[k++] = states[i++];
+		while (j < other.states.length)
+			result[k++] = other.states[j++];
+
+		return new StateSet(k == result.length ? result : Arrays.copyOf(result, k), containsFinal || other.containsFinal);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof StateSet))
+			return false;
+
+		StateSet s = (StateSet) other;
+		return hash == s.hash && Arrays.equals(states, s.states);
+	}
+
+	/**
+	 * Numbering of the states of an automaton, with its transitions in compressed rows of numbers.
+	 * The symbols are numbered by their position in a sorted table, without the empty string, and
+	 * the epsilon transitions are kept apart. The ranges are split into the pieces of a
+	 * {@link RangePartition}, which are disjoint and stand in the table for their first code point,
+	 * so that a transition reading a range is a transition for each of its pieces.
+	 */
+	static final class Universe {
+		private final State[] states;
+		private final HashMap<State, Integer> ids = new HashMap<State, Integer>();
+		private final String[] symbols;
+		private final int[] symbolIds;
+
+		/**
+		 * The index in symbols of the number of each symbol.
+		 */
+		private final HashMap<Integer, Integer> labelOf = new HashMap<Integer, Integer>();
+
+		/**
+		 * The transitions of state i reading a symbol are labels[offsets[i]] to targets[offsets[i]],
+		 * up to offsets[i + 1] excluded, sorted by symbol.
+		 */
+		private final int[] offsets;
+		private final int[] labels;
+		private final int[] targets;
+
+		/**
+		 * The epsilon transitions of state i go to epsilonTargets[epsilonOffsets[i]],
+		 * up to epsilonOffsets[i + 1] excluded.
+		 */
+		private final int[] epsilonOffsets;
+		private final int[] epsilonTargets;
+
+		Universe(Automaton a) {
+			this(a, RangePartition.of(Collections.singleton(a)));
+		}
+
+		/**
+		 * Numbers the states of an automaton, splitting its ranges by a partition, which is shared by
+		 * the universes whose symbols are compared.
+		 */
+		Universe(Automaton a, RangePartition partition) {
+			TransitionIndex index = a.getTransitionIndex();
+
+			states = a.getStates().toArray(new State[a.getStates().size()]);
+
+			for (State s : states) {
+				ids.put(s, ids.size());
+				TransitionIndex.Row row = index.getRow(s);
+
+				for (int j = 0; j < row.size(); ++j)
+					if (row.getSymbol(j) != SymbolTable.EPSILON)
+						for (int piece : partition.split(row.getSymbol(j)))
+							labelOf.put(piece, -1);
+			}
+
+			// the labels follow the order of the strings, while the rows follow their numbers
+			Integer[] sorted = labelOf.keySet().toArray(new Integer[labelOf.size()]);
+			Arrays.sort(sorted, (x, y) -> representative(x).compareTo(representative(y)));
+			symbols = new String[sorted.length];
+			symbolIds = new int[sorted.length];
+
+			for (int c = 0; c < symbols.length; ++c) {
+				symbols[c] = representative(sorted[c]);
+				symbolIds[c] = sorted[c];
+				labelOf.put(symbolIds[c], c);
+			}
+
+			offsets = new int[states.length + 1];
+			epsilonOffsets = new int[states.length + 1];
+
+			for (int i = 0; i < states.length; ++i) {
+				TransitionIndex.Row row = index.getRow(states[i]);
+				int size = 0, epsilons = 0;
+
+				for (int j = 0; j < row.size(); ++j)
+					if (row.getSymbol(j) == SymbolTable.EPSILON)
+						epsilons += row.getTargetCount(j);
+					else
+						size += row.getTargetCount(j) * partition.split(row.getSymbol(j)).length;
+
+				offsets[i + 1] = offsets[i] + size;
+				epsilonOffsets[i + 1] = epsilonOffsets[i] + epsilons;
+			}
+
+			int[] labels = new int[offsets[states.length]];
+			int[] targets = new int[offsets[states.length]];
+			epsilonTargets = new int[epsilonOffsets[states.length]];
+
+			for (int i = 0, e = 0, size = 0; i < states.length; ++i) {
+				TransitionIndex.Row row = index.getRow(states[i]);
+				long[] moves = new long[offsets[i + 1] - offsets[i]];
+				int m = 0;
+
+				for (int j = 0; j < row.size(); ++j)
+					for (int t = 0; t < row.getTargetCount(j); ++t)
+						if (row.getSymbol(j) == SymbolTable.EPSILON)
+							epsilonTargets[e++] = ids.get(row.getTarget(j, t));
+						else
+							for (int piece : partition.split(row.getSymbol(j)))
+								moves[m++] = ((long) labelOf.get(piece) << 32) | ids.get(row.getTarget(j, t));
+
+				Arrays.sort(moves);
+				offsets[i] = size;
+
+				// a piece read by overlapping ranges is moved once to each target
+				for (int j = 0; j < moves.length; ++j)
+					if (j == 0 || moves[j] != moves[j - 1]) {
+						labels[size] = (int) (moves[j] >>> 32);
+						targets[size++] = (int) moves[j];
+					}
+
+				if (i == states.length - 1)
+					offsets[i + 1] = size;
+			}
+
+			this.labels = labels.length == offsets[states.length] ? labels : Arrays.copyOf(labels, offsets[states.length]);
+			this.targets = targets.length == offsets[states.length] ? targets : Arrays.copyOf(targets, offsets[states.length]);
+		}
+
+		/**
+		 * Returns the number of states.
+		 */
+		int size() {
+			return states.length;
+		}
+
+		/**
+		 * Returns the state of a number.
+		 */
+		State getState(int id) {
+			return states[id];
+		}
+
+		/**
+		 * Returns the number of a state.
+		 */
+		int getId(State s) {
+			return ids.get(s);
+		}
+
+		/**
+		 * Returns the position of the first transition leaving a state and reading a symbol.
+		 * The transitions of state i are at the positions up to that of state i + 1 excluded.
+		 */
+		int firstTransition(int state) {
+			return offsets[state];
+		}
+
+		/**
+		 * Returns the symbol of the transition at a position, as its index in {@link #getSymbols()}.
+		 */
+		int getLabel(int position) {
+			return labels[position];
+		}
+
+		/**
+		 * Returns the target of the transition at a position.
+		 */
+		int getTarget(int position) {
+			return targets[position];
+		}
+
+		/**
+		 * Returns the position of the first epsilon transition leaving a state.
+		 * The epsilon transitions of state i are at the positions up to that of state i + 1 excluded.
+		 */
+		int firstEpsilonTransition(int state) {
+			return epsilonOffsets[state];
+		}
+
+		/**
+		 * Returns the target of the epsilon transition at a position.
+		 */
+		int getEpsilonTarget(int position) {
+			return epsilonTargets[position];
+		}
+
+		/**
+		 * Returns the symbols read by the transitions, but epsilon, sorted, where a piece of a range
+		 * stands for its first code point.
+		 */
+		String[] getSymbols() {
+			return symbols;
+		}
+
+		/**
+		 * Returns the number of symbols read by a label: the size of a piece of a range, 1 otherwise.
+		 */
+		int getWeight(int label) {
+			int id = symbolIds[label];
+			return SymbolTable.isRange(id) ? SymbolTable.lastCodePoint(id) - SymbolTable.firstCodePoint(id) + 1 : 1;
+		}
+
+		/**
+		 * Returns the i-th symbol read by a label, from 0 to {@link #getWeight(int)} excluded.
+		 */
+		String getSymbol(int label, int i) {
+			int id = symbolIds[label];
+			return SymbolTable.isRange(id) ? new String(Character.toChars(SymbolTable.firstCodePoint(id) + i)) : symbols[label];
+		}
+
+		/**
+		 * Returns a new transition between two states reading a label.
+		 */
+		Transition transition(State from, State to, int label) {
+			return Transition.withSymbol(from, to, symbolIds[label]);
+		}
+
+		/**
+		 * Returns the numbers of the symbols in the {@link SymbolTable}, by their index in {@link #getSymbols()}.
+		 */
+		int[] getSymbolIds() {
+			return symbolIds;
+		}
+
+		/**
+		 * Returns the index in {@link #getSymbols()} of a symbol, given by its number in the
+		 * {@link SymbolTable}, or -1 if no transition reads it.
+		 */
+		int labelOf(int symbol) {
+			Integer label = labelOf.get(symbol);
+			return label == null ? -1 : label;
+		}
+
+		/**
+		 * Returns the position of the first transition of a state reading a symbol, given by its
+		 * index in {@link #getSymbols()}, or -1 if the state does not read it.
+		 */
+		int findTransition(int state, int label) {
+			int low = offsets[state], high = offsets[state + 1];
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+
+				if (labels[middle] < label)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+
+			return low < offsets[state + 1] && labels[low] == label ? low : -1;
+		}
+
+		/**
+		 * Returns the set of the states in a bit set.
+		 */
+		StateSet toStateSet(BitSet set) {
+			return toStateSet(set.stream().toArray());
+		}
+
+		/**
+		 * Returns the set of the states of a sorted array of distinct numbers, which is not copied.
+		 */
+		StateSet toStateSet(int[] sorted) {
+			boolean containsFinal = false;
+
+			for (int i = 0; i < sorted.length && !containsFinal; ++i)
+				containsFinal = states[sorted[i]].isFinalState();
+
+			return new StateSet(sorted, containsFinal);
+		}
+
+		/**
+		 * Returns the targets of a range of sorted moves, closed by epsilon transitions.
+		 */
+		StateSet successors(long[] moves, int first, int last) {
+			int[] result = new int[last - first];
+			int k = 0;
+
+			// the targets of a symbol are sorted
+			for (int j = first; j < last; ++j)
+				if (k == 0 || result[k - 1] != (int) moves[j])
+					result[k++] = (int) moves[j];
+
+			if (epsilonTargets.length > 0) {
+				BitSet set = new BitSet();
+
+				for (int i = 0; i < k; ++i)
+					set.set(result[i]);
+
+				epsilonClosure(set);
+				return toStateSet(set);
+			}
+
+			return toStateSet(k == result.length ? result : Arrays.copyOf(result, k));
+		}
+
+		/**
+		 * Returns the set of the initial states and of the states reachable from them by epsilon transitions.
+		 */
+		StateSet initialClosure() {
+			BitSet result = new BitSet(states.length);
+
+			for (int i = 0; i < states.length; ++i)
+				if (states[i].isInitialState())
+					result.set(i);
+
+			epsilonClosure(result);
+			return toStateSet(result);
+		}
+
+		/**
+		 * Adds to a set of states the states reachable from them by epsilon transitions.
+		 */
+		void epsilonClosure(BitSet set) {
+			if (epsilonTargets.length == 0)
+				return;
+
+			int[] worklist = set.stream().toArray();
+			int size = worklist.length;
+
+			while (size > 0) {
+				int p = worklist[--size];
+
+				for (int j = epsilonOffsets[p]; j < epsilonOffsets[p + 1]; ++j)
+					if (!set.get(epsilonTargets[j])) {
+						set.set(epsilonTargets[j]);
+
+						if (size == worklist.length)
+							worklist = Arrays.copyOf(worklist, 2 * size + 1);
+
+						worklist[size++] = epsilonTargets[j];
+					}
+			}
+		}
+
+		/**
+		 * Returns the moves of a set of states, as pairs (symbol, target) packed in longs, sorted,
+		 * so that the targets of each symbol are adjacent.
+		 */
+		long[] moves(StateSet set) {
+			int size = 0;
+
+			for (int p : set.states)
+				size += offsets[p + 1] - offsets[p];
+
+			long[] moves = new long[size];
+			int k = 0;
+
+			for (int p : set.states)
+				for (int j = offsets[p]; j < offsets[p + 1]; ++j)
+					moves[k++] = ((long) labels[j] << 32) | targets[j];
+
+			Arrays.sort(moves);
+			return moves;
+		}
+
+		/**
+		 * Returns the predecessors of each state by each symbol, in compressed rows: the predecessors of
+		 * state i are result[1][result[0][i]] to result[1][result[0][i + 1] - 1], with their symbols in
+		 * result[2], sorted by symbol.
+		 */
+		int[][] predecessors() {
+			int[] sourceOf = new int[labels.length];
+
+			for (int i = 0; i < states.length; ++i)
+				for (int j = offsets[i]; j < offsets[i + 1]; ++j)
+					sourceOf[j] = i;
+
+			// the transitions are sorted by symbol first, then distributed stably by target
+			int[] bySymbol = new int[labels.length];
+			int[] cursors = new int[Math.max(symbols.length, states.length) + 1];
+
+			for (int label : labels)
+				++cursors[label + 1];
+
+			for (int c = 0; c < symbols.length; ++c)
+				cursors[c + 1] += cursors[c];
+
+			for (int j = 0; j < labels.length; ++j)
+				bySymbol[cursors[labels[j]]++] = j;
+
+			int[] predecessorOffsets = new int[states.length + 1];
+
+			for (int target : targets)
+				++predecessorOffsets[target + 1];
+
+			for (int i = 0; i < states.length; ++i)
+				predecessorOffsets[i + 1] += predecessorOffsets[i];
+
+			int[] sources = new int[labels.length];
+			int[] sourceLabels = new int[labels.length];
+			System.arraycopy(predecessorOffsets, 0, cursors, 0, states.length);
+
+			for (int j : bySymbol) {
+				int k = cursors[targets[j]]++;
+				sources[k] = sourceOf[j];
+				sourceLabels[k] = labels[j];
+			}
+
+			return new int[][] { predecessorOffsets, sources, sourceLabels };
+		}
+
+		/**
+		 * Returns the symbol of a number, or the first code point of a range.
+		 */
+		private static String representative(int id) {
+			return SymbolTable.isRange(id) ? new String(Character.toChars(SymbolTable.firstCodePoint(id))) : SymbolTable.getSymbol(id);
+		}
+	}
+}
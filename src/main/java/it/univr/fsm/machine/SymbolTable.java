@@ -0,0 +1,196 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global table of the symbols read by the transitions of the automata, numbered densely from 0,
+ * which is the empty string of epsilon transitions. A symbol is any string, even of more than a
+ * character, and it is numbered when it is first interned. The ranges of code points read by the
+ * transitions are numbered with the symbols, so that an index can be keyed by the numbers alone,
+ * and a range of a single code point is the symbol of the code point. The table is shared by all
+ * threads: looking up a known symbol does not lock, while numbering a new one does.
+ */
+public final class SymbolTable {
+
+	/**
+	 * The number of the empty string.
+	 */
+	static final int EPSILON = 0;
+
+	private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * The numbers of the ranges, by their bounds packed in a long.
+	 */
+	private static final ConcurrentHashMap<Long, Integer> RANGES = new ConcurrentHashMap<Long, Integer>();
+
+	/**
+	 * The symbol of each number, which is the name of a range. It is written before the number is
+	 * published in IDS or RANGES.
+	 */
+	private static volatile String[] symbols = new String[128];
+
+	/**
+	 * The first and the last code point of each number packed in a long: those of a range, twice the
+	 * code point of a symbol made of one, and -1 for the other symbols. It is written with symbols.
+	 */
+	private static volatile long[] bounds = new long[128];
+
+	private static int size;
+
+	static {
+		intern("");
+	}
+
+	private SymbolTable() {
+	}
+
+	/**
+	 * Returns the number of a symbol, numbering it if it is new.
+	 */
+	public static int intern(String symbol) {
+		Integer id = IDS.get(symbol);
+
+		if (id != null)
+			return id;
+
+		synchronized (SymbolTable.class) {
+			id = IDS.get(symbol);
+
+			if (id == null) {
+				int c = codePoint(symbol);
+				id = add(symbol, c < 0 ? -1L : pack(c, c));
+				IDS.put(symbol, id);
+			}
+
+			return id;
+		}
+	}
+
+	/**
+	 * Returns the number of the range of the code points from first to last included, numbering it
+	 * if it is new. The range of a single code point is numbered as its symbol.
+	 */
+	static int internRange(int first, int last) {
+		if (first == last)
+			return intern(new String(Character.toChars(first)));
+
+		Long key = pack(first, last);
+		Integer id = RANGES.get(key);
+
+		if (id != null)
+			return id;
+
+		synchronized (SymbolTable.class) {
+			id = RANGES.get(key);
+
+			if (id == null) {
+				id = add(rangeName(first, last), key);
+				RANGES.put(key, id);
+			}
+
+			return id;
+		}
+	}
+
+	/**
+	 * Numbers a new symbol, holding the lock of the table.
+	 */
+	private static int add(String symbol, long codePoints) {
+		if (size == symbols.length) {
+			bounds = Arrays.copyOf(bounds, 2 * size);
+			symbols = Arrays.copyOf(symbols, 2 * size);
+		}
+
+		bounds[size] = codePoints;
+		symbols[size] = symbol;
+		return size++;
+	}
+
+	/**
+	 * Returns the number of a symbol, or -1 if it was never interned, without numbering it.
+	 */
+	public static int lookup(String symbol) {
+		Integer id = IDS.get(symbol);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the symbol of a number, or the name of a range, as printed by {@link Alphabet#toString()}.
+	 */
+	public static String getSymbol(int id) {
+		return symbols[id];
+	}
+
+	/**
+	 * Returns true if a number is that of a range of more than one code point.
+	 */
+	static boolean isRange(int id) {
+		long b = bounds[id];
+		return (int) (b >> 32) != (int) b;
+	}
+
+	/**
+	 * Returns the first code point of the range of a number, that of its symbol if it is made of
+	 * one, or -1 if it is not.
+	 */
+	static int firstCodePoint(int id) {
+		return (int) (bounds[id] >> 32);
+	}
+
+	/**
+	 * Returns the last code point of the range of a number, that of its symbol if it is made of
+	 * one, or -1 if it is not.
+	 */
+	static int lastCodePoint(int id) {
+		return (int) bounds[id];
+	}
+
+	/**
+	 * Returns the symbols of a number: the symbol itself, or the code points of a range in increasing order.
+	 */
+	static List<String> getSymbols(int id) {
+		if (!isRange(id))
+			return Collections.singletonList(symbols[id]);
+
+		ArrayList<String> result = new ArrayList<String>();
+
+		for (int c = firstCodePoint(id); c <= lastCodePoint(id); ++c)
+			result.add(new String(Character.toChars(c)));
+
+		return result;
+	}
+
+	/**
+	 * Returns the code point of a symbol made of one, or -1.
+	 */
+	static int codePoint(String symbol) {
+		if (symbol.isEmpty() || symbol.length() > 2)
+			return -1;
+
+		int c = symbol.codePointAt(0);
+		return Character.charCount(c) == symbol.length() ? c : -1;
+	}
+
+	/**
+	 * Returns the name of the range of the code points from first to last included.
+	 */
+	static String rangeName(int first, int last) {
+		return "[U+" + Integer.toHexString(first).toUpperCase() + "-U+" + Integer.toHexString(last).toUpperCase() + "]";
+	}
+
+	/**
+	 * Returns the number of the interned symbols and ranges.
+	 */
+	public static int size() {
+		return IDS.size() + RANGES.size();
+	}
+
+	private static long pack(int first, int last) {
+		return ((long) first << 32) | (last & 0xFFFFFFFFL);
+	}
+}
@@ -1,6 +1,11 @@
 package it.univr.fsm.machine;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 /**
  * Transition Class.
@@ -21,12 +26,20 @@ public class Transition {
 	private State to;
 	
 	/**
-	 * Input string.
+	 * Input string, or the name of the range.
 	 */
 	private String input;
 	
-	public HashSet<State> pfrom;
-	public HashSet<State> pto;
+	/**
+	 * Number of the input string in the {@link SymbolTable}, -1 if not computed yet.
+	 */
+	private int symbol = -1;
+	
+	/**
+	 * The first and the last code point of the range read by the transition, -1 if it reads a string.
+	 */
+	private int first = -1;
+	private int last = -1;
 	
 	/**
 	 * Constructs a new transition.
@@ -37,6 +50,47 @@ public class Transition {
 		this.input = input;
 	}
 	
+	/**
+	 * Constructs a new transition reading each code point of a range, namely each symbol made of one of them.
+	 * A range of a single code point reads its symbol, as {@link #Transition(State, State, String)}.
+	 * 
+	 * @param first the first code point.
+	 * @param last the last code point, included.
+	 */
+	public Transition(State from, State to, int first, int last) {
+		if (first < 0 || last > Character.MAX_CODE_POINT || first > last)
+			throw new IllegalArgumentException("invalid interval of code points [" + first + ", " + last + "]");
+		
+		this.from = from;
+		this.to = to;
+		this.symbol = SymbolTable.internRange(first, last);
+		this.input = SymbolTable.getSymbol(symbol);
+		
+		if (first < last) {
+			this.first = first;
+			this.last = last;
+		}
+	}
+	
+	/**
+	 * Returns a new transition reading a symbol or a range, given by its number in the {@link SymbolTable}.
+	 */
+	static Transition withSymbol(State from, State to, int symbol) {
+		if (SymbolTable.isRange(symbol))
+			return new Transition(from, to, SymbolTable.firstCodePoint(symbol), SymbolTable.lastCodePoint(symbol));
+		
+		Transition t = new Transition(from, to, SymbolTable.getSymbol(symbol));
+		t.symbol = symbol;
+		return t;
+	}
+	
+	/**
+	 * Returns a new transition between two states reading what this transition reads.
+	 */
+	public Transition copy(State from, State to) {
+		return isRange() ? new Transition(from, to, first, last) : new Transition(from, to, input);
+	}
+	
 	/**
 	 * Returns the exiting state.
 	 */
@@ -66,7 +120,7 @@ public class Transition {
 	}
 	
 	/**
-	 * Gets the input string.
+	 * Gets the input string, or the name of the range read by the transition.
 	 */
 	public String getInput() {
 		return input;
@@ -77,6 +131,64 @@ public class Transition {
 	 */
 	public void setInput(String input) {
 		this.input = input;
+		this.symbol = -1;
+		this.first = this.last = -1;
+	}
+	
+	/**
+	 * Returns true if the transition reads a range of more than one code point.
+	 */
+	public boolean isRange() {
+		return first >= 0;
+	}
+	
+	/**
+	 * Returns the first code point of the range, -1 if the transition reads a string.
+	 */
+	public int getFirst() {
+		return first;
+	}
+	
+	/**
+	 * Returns the last code point of the range, -1 if the transition reads a string.
+	 */
+	public int getLast() {
+		return last;
+	}
+	
+	/**
+	 * Returns the number of symbols read by the transition: the size of its range, 1 otherwise.
+	 */
+	int getSymbolCount() {
+		return isRange() ? last - first + 1 : 1;
+	}
+	
+	/**
+	 * Returns true if the transition reads a symbol.
+	 */
+	public boolean reads(String s) {
+		if (!isRange())
+			return input.equals(s);
+		
+		int c = SymbolTable.codePoint(s);
+		return c >= first && c <= last;
+	}
+	
+	/**
+	 * Returns the symbols read by the transition: its input, or the code points of its range, in increasing
+	 * order. It enumerates the range, so it is meant for the operations that enumerate the symbols anyway.
+	 */
+	List<String> symbols() {
+		return isRange() ? SymbolTable.getSymbols(symbol) : Arrays.asList(input);
+	}
+	
+	/**
+	 * Returns the number of the input string in the {@link SymbolTable}, interning it once.
+	 */
+	int getSymbol() {
+		if (symbol < 0)
+			symbol = SymbolTable.intern(input);
+		return symbol;
 	}
 		
 	/**
@@ -86,7 +198,7 @@ public class Transition {
 	 * @return the reached state if the transition is firable from the state, null otherwise.
 	 */
 	public State fire(String s) {
-		if (this.getInput().equals(s))
+		if (this.reads(s))
 			return this.getTo();
 		return null;
 	}
@@ -97,7 +209,7 @@ public class Transition {
 	 * @param input the input.
 	 */
 	public boolean isFirable(State from, String input) {
-		if (this.getFrom().equals(from) && (this.getInput().equals(input) || this.getInput().equals("")))
+		if (this.getFrom().equals(from) && (this.reads(input) || this.getInput().equals("")))
 			return true;
 		return false;
 	}
@@ -116,7 +228,7 @@ public class Transition {
 	
 	@Override
 	public Transition clone() {
-		return new Transition((State) this.getFrom().clone(), (State) this.getTo().clone(), this.getInput());
+		return copy((State) this.getFrom().clone(), (State) this.getTo().clone());
 	}
 	
 	@Override
@@ -129,9 +241,67 @@ public class Transition {
 		if (other instanceof Transition) {
 					return this.getFrom().equals(((Transition) other).getFrom()) &&
 					this.getTo().equals(((Transition) other).getTo()) &&
-					this.getInput().equals(((Transition) other).getInput());
+					this.getInput().equals(((Transition) other).getInput()) &&
+					this.isRange() == ((Transition) other).isRange();
 		}
 		
 		return false;
 	}
+
+	/**
+	 * Merges the ranges read by the transitions between the same two states with the code points read by
+	 * the other transitions between them, so that the transitions between two states joined by a range read
+	 * disjoint ranges, separated by code points read by none of them. The transitions between two states
+	 * joined by no range are kept, so that automata without ranges never get one.
+	 * 
+	 * @param delta the transitions, which are not modified.
+	 * @return the merged transitions, or delta itself if no transition reads a range.
+	 */
+	static HashSet<Transition> mergeRanges(HashSet<Transition> delta) {
+		HashMap<List<State>, ArrayList<Transition>> joined = new HashMap<List<State>, ArrayList<Transition>>();
+		
+		for (Transition t : delta)
+			if (t.isRange())
+				joined.put(Arrays.asList(t.getFrom(), t.getTo()), new ArrayList<Transition>());
+		
+		if (joined.isEmpty())
+			return delta;
+		
+		HashSet<Transition> result = new HashSet<Transition>();
+		
+		for (Transition t : delta) {
+			ArrayList<Transition> same = SymbolTable.firstCodePoint(t.getSymbol()) < 0 ? null : joined.get(Arrays.asList(t.getFrom(), t.getTo()));
+			
+			if (same == null)
+				result.add(t);
+			else
+				same.add(t);
+		}
+		
+		for (Collection<Transition> same : joined.values()) {
+			int[][] intervals = new int[same.size()][];
+			int k = 0;
+			
+			for (Transition t : same)
+				intervals[k++] = new int[] { SymbolTable.firstCodePoint(t.getSymbol()), SymbolTable.lastCodePoint(t.getSymbol()) };
+			
+			Arrays.sort(intervals, (a, b) -> Integer.compare(a[0], b[0]));
+			
+			Transition any = same.iterator().next();
+			int low = intervals[0][0], high = intervals[0][1];
+			
+			for (int[] interval : intervals)
+				if (interval[0] <= high + 1)
+					high = Math.max(high, interval[1]);
+				else {
+					result.add(new Transition(any.getFrom(), any.getTo(), low, high));
+					low = interval[0];
+					high = interval[1];
+				}
+			
+			result.add(new Transition(any.getFrom(), any.getTo(), low, high));
+		}
+		
+		return result;
+	}
 }
@@ -0,0 +1,353 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of the transitions of an automaton by source state and symbol.
+ *
+ * The transitions leaving a state form a row: its distinct symbols, by their number in the
+ * {@link SymbolTable} and sorted, each with the range of its targets. A symbol is found in a row by
+ * binary search on the numbers, or by a direct lookup in a dense array when the row has many symbols
+ * numbered close to each other, so that no string is compared. The ranges of code points read by the
+ * transitions are numbered as the symbols, and a row with ranges also keeps them sorted by their first
+ * code point, so that the ranges reading a code point are found by binary search. The index is
+ * immutable and it is rebuilt when the automaton changes.
+ */
+final class TransitionIndex {
+
+	/**
+	 * Minimum number of symbols of a dense row.
+	 */
+	private static final int DENSE_THRESHOLD = 8;
+
+	/**
+	 * Maximum range of the numbers of the symbols of a dense row.
+	 */
+	private static final int DENSE_RANGE = 256;
+
+	private static final Row EMPTY_ROW = new Row(new TreeMap<Integer, ArrayList<State>>());
+
+	/**
+	 * Transitions leaving a state.
+	 */
+	static final class Row {
+		private final int[] symbols;
+
+		/**
+		 * The targets of symbols[i] are targets[offsets[i]] to targets[offsets[i + 1] - 1].
+		 */
+		private final int[] offsets;
+		private final State[] targets;
+
+		/**
+		 * Position of each symbol numbered from base in symbols, or -1. Null if the row is not dense.
+		 */
+		private final int[] dense;
+		private final int base;
+
+		/**
+		 * The positions of the ranges, sorted by their first code point, and the greatest last code point
+		 * of the ranges up to each of them. Null if the row has no range.
+		 */
+		private final int[] ranges;
+		private final int[] reach;
+
+		private final boolean deterministic;
+
+		private Row(TreeMap<Integer, ArrayList<State>> moves) {
+			symbols = new int[moves.size()];
+			offsets = new int[symbols.length + 1];
+
+			int size = 0;
+
+			for (ArrayList<State> to : moves.values())
+				size += to.size();
+
+			targets = new State[size];
+
+			int i = 0, j = 0;
+
+			for (Map.Entry<Integer, ArrayList<State>> e : moves.entrySet()) {
+				symbols[i] = e.getKey();
+				offsets[i++] = j;
+
+				for (State s : e.getValue())
+					targets[j++] = s;
+			}
+
+			offsets[i] = j;
+
+			if (symbols.length >= DENSE_THRESHOLD && symbols[symbols.length - 1] - symbols[0] < DENSE_RANGE) {
+				base = symbols[0];
+				dense = new int[symbols[symbols.length - 1] - base + 1];
+				Arrays.fill(dense, -1);
+
+				for (int k = 0; k < symbols.length; ++k)
+					dense[symbols[k] - base] = k;
+			} else {
+				base = 0;
+				dense = null;
+			}
+
+			int count = 0;
+
+			for (int symbol : symbols)
+				if (SymbolTable.isRange(symbol))
+					++count;
+
+			if (count > 0) {
+				Integer[] order = new Integer[count];
+
+				for (int k = 0, r = 0; k < symbols.length; ++k)
+					if (SymbolTable.isRange(symbols[k]))
+						order[r++] = k;
+
+				Arrays.sort(order, (a, b) -> Integer.compare(SymbolTable.firstCodePoint(symbols[a]), SymbolTable.firstCodePoint(symbols[b])));
+				ranges = new int[count];
+				reach = new int[count];
+
+				for (int r = 0; r < count; ++r) {
+					ranges[r] = order[r];
+					reach[r] = Math.max(r == 0 ? -1 : reach[r - 1], SymbolTable.lastCodePoint(symbols[order[r]]));
+				}
+			} else {
+				ranges = null;
+				reach = null;
+			}
+
+			// the empty string is numbered first
+			deterministic = targets.length == symbols.length && (symbols.length == 0 || symbols[0] != SymbolTable.EPSILON)
+					&& (ranges == null || !overlaps());
+		}
+
+		/**
+		 * Returns true if a code point is read by two transitions to distinct targets.
+		 */
+		private boolean overlaps() {
+			int[][] intervals = new int[symbols.length][];
+			int count = 0;
+
+			for (int k = 0; k < symbols.length; ++k)
+				if (SymbolTable.firstCodePoint(symbols[k]) >= 0)
+					intervals[count++] = new int[] { SymbolTable.firstCodePoint(symbols[k]), SymbolTable.lastCodePoint(symbols[k]), k };
+
+			Arrays.sort(intervals, 0, count, (a, b) -> Integer.compare(a[0], b[0]));
+
+			for (int k = 1, high = count > 0 ? intervals[0][1] : 0, target = 0; k < count; ++k) {
+				if (intervals[k][0] > high)
+					target = k;
+				else if (!targets[offsets[intervals[k][2]]].equals(targets[offsets[intervals[target][2]]]))
+					return true;
+
+				high = Math.max(high, intervals[k][1]);
+			}
+
+			return false;
+		}
+
+		/**
+		 * Returns the position of a symbol, given by its number, in the row, or -1 if no transition reads it.
+		 */
+		int find(int symbol) {
+			if (dense != null) {
+				int c = symbol - base;
+				return c >= 0 && c < dense.length ? dense[c] : -1;
+			}
+
+			int position = Arrays.binarySearch(symbols, symbol);
+			return position >= 0 ? position : -1;
+		}
+
+		/**
+		 * Returns the position of a symbol in the row, or -1 if no transition reads it.
+		 */
+		int find(String symbol) {
+			int id = SymbolTable.lookup(symbol);
+			return id < 0 ? -1 : find(id);
+		}
+
+		/**
+		 * Returns the position of a range reading a code point, or -1 if there is none.
+		 */
+		int findRange(int codePoint) {
+			if (ranges == null || codePoint < 0)
+				return -1;
+
+			for (int r = rangesUpTo(codePoint) - 1; r >= 0 && reach[r] >= codePoint; --r)
+				if (SymbolTable.lastCodePoint(symbols[ranges[r]]) >= codePoint)
+					return ranges[r];
+
+			return -1;
+		}
+
+		/**
+		 * Adds to a collection the targets of the ranges reading a code point.
+		 */
+		void addRangeTargets(int codePoint, Collection<State> result) {
+			if (ranges == null || codePoint < 0)
+				return;
+
+			for (int r = rangesUpTo(codePoint) - 1; r >= 0 && reach[r] >= codePoint; --r)
+				if (SymbolTable.lastCodePoint(symbols[ranges[r]]) >= codePoint)
+					addTargets(ranges[r], result);
+		}
+
+		/**
+		 * Returns the number of ranges starting at a code point or before it.
+		 */
+		private int rangesUpTo(int codePoint) {
+			int low = 0, high = ranges.length;
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+
+				if (SymbolTable.firstCodePoint(symbols[ranges[middle]]) <= codePoint)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+
+			return low;
+		}
+
+		/**
+		 * Returns the intervals of the code points from first to last read by no transition of the row,
+		 * as the pairs of their bounds.
+		 */
+		int[] gaps(int first, int last) {
+			int[][] intervals = new int[symbols.length][];
+			int count = 0;
+
+			for (int symbol : symbols)
+				if (SymbolTable.firstCodePoint(symbol) >= 0)
+					intervals[count++] = new int[] { SymbolTable.firstCodePoint(symbol), SymbolTable.lastCodePoint(symbol) };
+
+			Arrays.sort(intervals, 0, count, (a, b) -> Integer.compare(a[0], b[0]));
+
+			int[] result = new int[2 * count + 2];
+			int size = 0;
+			long next = first;
+
+			for (int k = 0; k < count && next <= last; ++k) {
+				if (intervals[k][0] > next) {
+					result[size++] = (int) next;
+					result[size++] = Math.min(intervals[k][0] - 1, last);
+				}
+
+				next = Math.max(next, intervals[k][1] + 1L);
+			}
+
+			if (next <= last) {
+				result[size++] = (int) next;
+				result[size++] = last;
+			}
+
+			return Arrays.copyOf(result, size);
+		}
+
+		/**
+		 * Returns true if the row has no epsilon transition and at most one target for each symbol,
+		 * even when read by more than one range.
+		 */
+		boolean isDeterministic() {
+			return deterministic;
+		}
+
+		/**
+		 * Returns the number of distinct symbols of the row.
+		 */
+		int size() {
+			return symbols.length;
+		}
+
+		/**
+		 * Returns the number of the symbol at a position of the row.
+		 */
+		int getSymbol(int position) {
+			return symbols[position];
+		}
+
+		/**
+		 * Returns the first target of the symbol at a position of the row.
+		 */
+		State getTarget(int position) {
+			return targets[offsets[position]];
+		}
+
+		/**
+		 * Returns the number of targets of the symbol at a position of the row.
+		 */
+		int getTargetCount(int position) {
+			return offsets[position + 1] - offsets[position];
+		}
+
+		/**
+		 * Returns the i-th target of the symbol at a position of the row.
+		 */
+		State getTarget(int position, int i) {
+			return targets[offsets[position] + i];
+		}
+
+		/**
+		 * Adds to a collection the targets of the symbol at a position of the row.
+		 */
+		void addTargets(int position, Collection<State> result) {
+			for (int j = offsets[position]; j < offsets[position + 1]; ++j)
+				result.add(targets[j]);
+		}
+	}
+
+	private final HashMap<State, Row> rows = new HashMap<State, Row>();
+
+	TransitionIndex(Map<State, HashSet<Transition>> adjacencyListOutgoing) {
+		for (Map.Entry<State, HashSet<Transition>> e : adjacencyListOutgoing.entrySet()) {
+			TreeMap<Integer, ArrayList<State>> moves = new TreeMap<Integer, ArrayList<State>>();
+
+			for (Transition t : e.getValue())
+				moves.computeIfAbsent(t.getSymbol(), k -> new ArrayList<State>()).add(t.getTo());
+
+			rows.put(e.getKey(), new Row(moves));
+		}
+	}
+
+	/**
+	 * Returns the row of a state, which is empty if no transition leaves the state.
+	 */
+	Row getRow(State s) {
+		Row row = rows.get(s);
+		return row == null ? EMPTY_ROW : row;
+	}
+
+	/**
+	 * Returns a state reached from a state reading a symbol, or null if there is none.
+	 */
+	State successor(State s, String symbol) {
+		Row row = getRow(s);
+		int position = row.find(symbol);
+
+		if (position < 0)
+			position = row.findRange(SymbolTable.codePoint(symbol));
+
+		return position < 0 ? null : row.getTarget(position);
+	}
+
+	/**
+	 * Adds to a collection the states reached from a state reading a symbol, given by its number, or -1
+	 * if it was never interned, and by its code point, or -1 if it is not made of one.
+	 */
+	void addSuccessors(State s, int symbol, int codePoint, Collection<State> result) {
+		Row row = getRow(s);
+		int position = symbol < 0 ? -1 : row.find(symbol);
+
+		if (position >= 0)
+			row.addTargets(position, result);
+
+		row.addRangeTargets(codePoint, result);
+	}
+}
@@ -0,0 +1,415 @@
+package it.univr.fsm.machine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+
+/**
+ * Shortest and longest words read from the initial states of an automaton to a set of target states.
+ *
+ * The shortest word is found by a breadth-first visit, where epsilon transitions weigh 0 and are
+ * followed first. The longest word is found on the condensation of the automaton into its strongly
+ * connected components: it is unbounded if a component on a path to a target has a transition
+ * reading a symbol inside it, and otherwise it is the longest path of the acyclic condensation,
+ * computed in topological order. Both take time linear in the size of the automaton.
+ */
+final class WordSearch {
+
+	/**
+	 * Length of the words of unbounded length.
+	 */
+	static final long INFINITE = Long.MAX_VALUE;
+
+	private final StateSet.Universe universe;
+	private final int n;
+
+	/**
+	 * The predecessor of each state in the visits, and the symbol read from it,
+	 * -1 for epsilon transitions and -2 for the initial states.
+	 */
+	private final int[] predecessors;
+	private final int[] predecessorLabels;
+
+	/**
+	 * Strongly connected components of the states reachable from the initial states,
+	 * and longest distances to them.
+	 */
+	private int[] component;
+	private int components;
+	private long[] longest;
+
+	/**
+	 * The transition entering each component on a longest path: its source, -1 for
+	 * the initial states, its symbol, -1 for epsilon, and its target.
+	 */
+	private int[] entrySources;
+	private int[] entryLabels;
+	private int[] entryTargets;
+
+	WordSearch(Automaton a) {
+		this.universe = new StateSet.Universe(a);
+		this.n = universe.size();
+		this.predecessors = new int[n];
+		this.predecessorLabels = new int[n];
+	}
+
+	/**
+	 * Returns the states that are final.
+	 */
+	BitSet finalStates() {
+		BitSet result = new BitSet(n);
+
+		for (int i = 0; i < n; ++i)
+			if (universe.getState(i).isFinalState())
+				result.set(i);
+
+		return result;
+	}
+
+	/**
+	 * Returns the set made of a single state.
+	 */
+	BitSet singleton(State s) {
+		BitSet result = new BitSet(n);
+		result.set(universe.getId(s));
+		return result;
+	}
+
+	/**
+	 * Returns a shortest word leading from an initial state to a target, or null if no target is reachable.
+	 */
+	AcceptedWord shortest(BitSet targets) {
+		int[] distance = new int[n];
+		BitSet settled = new BitSet(n);
+		ArrayDeque<Integer> worklist = new ArrayDeque<Integer>();
+
+		Arrays.fill(distance, Integer.MAX_VALUE);
+
+		for (int i = 0; i < n; ++i)
+			if (universe.getState(i).isInitialState()) {
+				distance[i] = 0;
+				predecessorLabels[i] = -2;
+				worklist.addLast(i);
+			}
+
+		while (!worklist.isEmpty()) {
+			int p = worklist.removeFirst();
+
+			if (settled.get(p))
+				continue;
+
+			settled.set(p);
+
+			if (targets.get(p))
+				return witness(p);
+
+			// epsilon transitions do not lengthen the word, so their targets go first
+			for (int j = universe.firstEpsilonTransition(p); j < universe.firstEpsilonTransition(p + 1); ++j) {
+				int t = universe.getEpsilonTarget(j);
+
+				if (distance[p] < distance[t]) {
+					distance[t] = distance[p];
+					predecessors[t] = p;
+					predecessorLabels[t] = -1;
+					worklist.addFirst(t);
+				}
+			}
+
+			for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j) {
+				int t = universe.getTarget(j);
+
+				if (distance[p] + 1 < distance[t]) {
+					distance[t] = distance[p] + 1;
+					predecessors[t] = p;
+					predecessorLabels[t] = universe.getLabel(j);
+					worklist.addLast(t);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the length of the longest word leading from an initial state to a target,
+	 * {@link #INFINITE} if it is unbounded, or -1 if no target is reachable.
+	 */
+	long longestLength(BitSet targets) {
+		int c = longestComponent(targets);
+
+		if (c < 0)
+			return c == -1 ? -1 : INFINITE;
+
+		return longest[c];
+	}
+
+	/**
+	 * Returns a longest word leading from an initial state to a target, or null
+	 * if no target is reachable or if the length of the words is unbounded.
+	 */
+	AcceptedWord longest(BitSet targets) {
+		int c = longestComponent(targets);
+
+		if (c < 0)
+			return null;
+
+		int x = -1;
+
+		for (int i = targets.nextSetBit(0); i >= 0 && x < 0; i = targets.nextSetBit(i + 1))
+			if (component[i] == c)
+				x = i;
+
+		// goes back through the entries of the components, and through epsilon transitions inside them
+		int last = x;
+
+		while (true) {
+			int d = component[x];
+			int to = entryTargets[d];
+
+			epsilonPath(to, x);
+
+			if (entrySources[d] < 0) {
+				predecessorLabels[to] = -2;
+				break;
+			}
+
+			predecessors[to] = entrySources[d];
+			predecessorLabels[to] = entryLabels[d];
+			x = entrySources[d];
+		}
+
+		return witness(last);
+	}
+
+	/**
+	 * Computes the components and the longest distances, returning the component of a target
+	 * with the longest distance, -1 if no target is reachable and -2 if the distance is unbounded.
+	 */
+	private int longestComponent(BitSet targets) {
+		computeComponents();
+
+		// the components are numbered in reverse topological order, so the successors of a component come first
+		boolean[] live = new boolean[components];
+
+		for (int i = 0; i < n; ++i)
+			if (component[i] >= 0 && targets.get(i))
+				live[component[i]] = true;
+
+		int[][] members = members();
+
+		for (int c = 0; c < components; ++c) {
+			for (int p : members[c])
+				for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j)
+					live[c] |= live[component[universe.getTarget(j)]];
+
+			for (int p : members[c])
+				for (int j = universe.firstEpsilonTransition(p); j < universe.firstEpsilonTransition(p + 1); ++j)
+					live[c] |= live[component[universe.getEpsilonTarget(j)]];
+		}
+
+		// a symbol read inside a component leading to a target gives words of any length
+		for (int c = 0; c < components; ++c)
+			if (live[c])
+				for (int p : members[c])
+					for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j)
+						if (component[universe.getTarget(j)] == c)
+							return -2;
+
+		longest = new long[components];
+		entrySources = new int[components];
+		entryLabels = new int[components];
+		entryTargets = new int[components];
+		Arrays.fill(longest, -1);
+
+		for (int i = 0; i < n; ++i)
+			if (component[i] >= 0 && universe.getState(i).isInitialState() && longest[component[i]] < 0)
+				enter(component[i], 0, -1, -1, i);
+
+		int result = -1;
+
+		for (int c = components - 1; c >= 0; --c) {
+			if (longest[c] < 0 || !live[c])
+				continue;
+
+			for (int p : members[c]) {
+				for (int j = universe.firstTransition(p); j < universe.firstTransition(p + 1); ++j) {
+					int d = component[universe.getTarget(j)];
+
+					if (d != c && longest[c] + 1 > longest[d])
+						enter(d, longest[c] + 1, p, universe.getLabel(j), universe.getTarget(j));
+				}
+
+				for (int j = universe.firstEpsilonTransition(p); j < universe.firstEpsilonTransition(p + 1); ++j) {
+					int d = component[universe.getEpsilonTarget(j)];
+
+					if (d != c && longest[c] > longest[d])
+						enter(d, longest[c], p, -1, universe.getEpsilonTarget(j));
+				}
+
+				if (targets.get(p) && (result < 0 || longest[c] > longest[result]))
+					result = c;
+			}
+		}
+
+		return result;
+	}
+
+	private void enter(int c, long distance, int source, int label, int target) {
+		longest[c] = distance;
+		entrySources[c] = source;
+		entryLabels[c] = label;
+		entryTargets[c] = target;
+	}
+
+	/**
+	 * Returns the states of each component.
+	 */
+	private int[][] members() {
+		int[] sizes = new int[components];
+
+		for (int i = 0; i < n; ++i)
+			if (component[i] >= 0)
+				++sizes[component[i]];
+
+		int[][] result = new int[components][];
+
+		for (int c = 0; c < components; ++c)
+			result[c] = new int[sizes[c]];
+
+		for (int i = 0; i < n; ++i)
+			if (component[i] >= 0)
+				result[component[i]][--sizes[component[i]]] = i;
+
+		return result;
+	}
+
+	/**
+	 * Computes the strongly connected components of the states reachable from the initial states
+	 * by Tarjan's algorithm, with an explicit stack. The unreachable states have component -1.
+	 */
+	private void computeComponents() {
+		if (component != null)
+			return;
+
+		component = new int[n];
+		components = 0;
+
+		int[] index = new int[n];
+		int[] lowLink = new int[n];
+		int[] edge = new int[n];
+		int[] callStack = new int[n];
+		int[] stack = new int[n];
+		boolean[] onStack = new boolean[n];
+		int counter = 0, stackSize = 0;
+
+		Arrays.fill(component, -1);
+		Arrays.fill(index, -1);
+
+		for (int root = 0; root < n; ++root) {
+			if (!universe.getState(root).isInitialState() || index[root] >= 0)
+				continue;
+
+			int depth = 0;
+			callStack[depth++] = root;
+			index[root] = lowLink[root] = counter++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			edge[root] = 0;
+
+			while (depth > 0) {
+				int p = callStack[depth - 1];
+				int epsilons = universe.firstEpsilonTransition(p + 1) - universe.firstEpsilonTransition(p);
+				int degree = epsilons + universe.firstTransition(p + 1) - universe.firstTransition(p);
+
+				if (edge[p] < degree) {
+					int k = edge[p]++;
+					int t = k < epsilons ? universe.getEpsilonTarget(universe.firstEpsilonTransition(p) + k)
+							: universe.getTarget(universe.firstTransition(p) + k - epsilons);
+
+					if (index[t] < 0) {
+						index[t] = lowLink[t] = counter++;
+						stack[stackSize++] = t;
+						onStack[t] = true;
+						edge[t] = 0;
+						callStack[depth++] = t;
+					} else if (onStack[t])
+						lowLink[p] = Math.min(lowLink[p], index[t]);
+				} else {
+					--depth;
+
+					if (depth > 0)
+						lowLink[callStack[depth - 1]] = Math.min(lowLink[callStack[depth - 1]], lowLink[p]);
+
+					if (lowLink[p] == index[p]) {
+						int t;
+
+						do {
+							t = stack[--stackSize];
+							onStack[t] = false;
+							component[t] = components;
+						} while (t != p);
+
+						++components;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the predecessors along a path of epsilon transitions from a state to another one
+	 * of the same component, by a breadth-first visit of the component.
+	 */
+	private void epsilonPath(int from, int to) {
+		if (from == to)
+			return;
+
+		int c = component[from];
+		BitSet visited = new BitSet(n);
+		LinkedList<Integer> worklist = new LinkedList<Integer>();
+
+		visited.set(from);
+		worklist.add(from);
+
+		while (!worklist.isEmpty()) {
+			int p = worklist.removeFirst();
+
+			for (int j = universe.firstEpsilonTransition(p); j < universe.firstEpsilonTransition(p + 1); ++j) {
+				int t = universe.getEpsilonTarget(j);
+
+				if (component[t] == c && !visited.get(t)) {
+					visited.set(t);
+					predecessors[t] = p;
+					predecessorLabels[t] = -1;
+
+					if (t == to)
+						return;
+
+					worklist.addLast(t);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the word and the path leading to a state, following the predecessors.
+	 */
+	private AcceptedWord witness(int state) {
+		LinkedList<State> path = new LinkedList<State>();
+		StringBuilder word = new StringBuilder();
+		int p = state;
+
+		path.addFirst(universe.getState(p));
+
+		while (predecessorLabels[p] != -2) {
+			if (predecessorLabels[p] >= 0)
+				word.append(new StringBuilder(universe.getSymbols()[predecessorLabels[p]]).reverse());
+
+			p = predecessors[p];
+			path.addFirst(universe.getState(p));
+		}
+
+		return new AcceptedWord(word.reverse().toString(), path);
+	}
+}
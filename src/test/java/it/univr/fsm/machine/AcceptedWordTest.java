@@ -0,0 +1,71 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class AcceptedWordTest {
+
+	@Test
+	public void acceptedWordTest1() {
+		Automaton a = Automaton.makeAutomatonFromRegex("abc+de+abcde");
+
+		Assert.assertEquals("de", a.getShortestAcceptedWord().getWord());
+		Assert.assertEquals("abcde", a.getLongestAcceptedWord().getWord());
+		Assert.assertEquals(5, a.getLongestAcceptedWordLength());
+		Assert.assertEquals(6, a.getLongestAcceptedWord().getPath().size());
+		Assert.assertTrue(a.getLongestAcceptedWord().getPath().get(0).isInitialState());
+		Assert.assertTrue(a.getLongestAcceptedWord().getPath().get(5).isFinalState());
+	}
+
+	@Test
+	public void acceptedWordTest2() {
+		Automaton a = Automaton.makeAutomatonFromRegex("ab(c)*d+e");
+
+		Assert.assertEquals("e", a.getShortestAcceptedWord().getWord());
+		Assert.assertNull(a.getLongestAcceptedWord());
+		Assert.assertEquals(Long.MAX_VALUE, a.getLongestAcceptedWordLength());
+
+		Automaton empty = Automaton.makeEmptyLanguage();
+
+		Assert.assertNull(empty.getShortestAcceptedWord());
+		Assert.assertEquals(-1, empty.getLongestAcceptedWordLength());
+	}
+
+	@Test
+	public void acceptedWordTest3() {
+		// epsilon transitions, with a cycle of epsilon transitions and a cycle reading a symbol after the final state
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, false);
+		State q2 = new State("q2", false, false);
+		State q3 = new State("q3", false, true);
+		State q4 = new State("q4", false, false);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+		states.add(q3);
+		states.add(q4);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q1, q2, ""));
+		delta.add(new Transition(q2, q1, ""));
+		delta.add(new Transition(q2, q3, "b"));
+		delta.add(new Transition(q0, q3, ""));
+		delta.add(new Transition(q3, q4, "c"));
+		delta.add(new Transition(q4, q4, "c"));
+
+		Automaton a = new Automaton(delta, states);
+
+		Assert.assertEquals("", a.getShortestAcceptedWord().getWord());
+		Assert.assertEquals("ab", a.getLongestAcceptedWord().getWord());
+		Assert.assertEquals(4, a.getLongestAcceptedWord().getPath().size());
+		Assert.assertEquals(2, a.minimumDijkstra(q3).size());
+		Assert.assertEquals(4, a.maximumDijkstra(q3).size());
+		Assert.assertNull(a.maximumDijkstra(q4));
+	}
+}
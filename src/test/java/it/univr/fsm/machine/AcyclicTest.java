@@ -0,0 +1,61 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+public class AcyclicTest {
+
+	@Test
+	public void acyclicTest1() {
+		Assert.assertTrue(Automaton.makeAutomaton("hello").isAcyclic());
+		Assert.assertFalse(Automaton.makeTopLanguage().isAcyclic());
+
+		// no stack overflow on long chains
+		Assert.assertTrue(Automaton.makeAutomaton(String.join("", Collections.nCopies(100000, "a"))).isAcyclic());
+	}
+
+	@Test
+	public void minimizeTest1() {
+		ArrayList<Automaton> automata = new ArrayList<>();
+
+		for (String s : Arrays.asList("tap", "taps", "top", "tops"))
+			automata.add(Automaton.makeAutomaton(s));
+
+		Automaton a = Automaton.union(automata, true);
+
+		// t (a + o) p (s + ε)
+		Assert.assertEquals(5, a.getStates().size());
+		Assert.assertTrue(Automaton.isDeterministic(a));
+		Assert.assertTrue(a.run("taps"));
+		Assert.assertFalse(a.run("tapss"));
+	}
+
+	@Test
+	public void minimizeTest2() {
+		Automaton a = Automaton.concat(Arrays.asList(Automaton.makeAutomaton("a"), Automaton.makeEmptyLanguage()), false);
+		a.minimize();
+
+		Assert.assertTrue(Automaton.isEmptyLanguageAccepted(a));
+		Assert.assertEquals(1, a.getStates().size());
+	}
+
+	@Test
+	public void countTest() {
+		Automaton a = Automaton.concat(Arrays.asList(
+				Automaton.union(Automaton.makeAutomaton("a"), Automaton.makeAutomaton("b")),
+				Automaton.union(Automaton.makeAutomaton("c"), Automaton.makeEmptyString())), true);
+
+		Assert.assertEquals(BigInteger.valueOf(4), a.countStrings());
+		Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "ac", "bc")), a.getStrings());
+
+		Assert.assertNull(Automaton.makeTopLanguage().countStrings());
+		Assert.assertNull(Automaton.makeTopLanguage().getStrings());
+		Assert.assertEquals(BigInteger.ZERO, Automaton.makeEmptyLanguage().countStrings());
+	}
+}
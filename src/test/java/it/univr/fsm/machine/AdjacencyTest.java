@@ -0,0 +1,85 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class AdjacencyTest {
+
+	@Test
+	public void incomingTest1() {
+		Automaton a = Automaton.union(Automaton.makeAutomaton("ab"), Automaton.makeAutomaton("cb"));
+		State last = null;
+
+		for (State s : a.getStates())
+			if (s.isFinalState())
+				last = s;
+
+		Assert.assertEquals(1, a.getIncomingTransitionsTo(last).size());
+		Assert.assertTrue(a.getIncomingTransitionsTo(a.getInitialState()).isEmpty());
+
+		Transition t = a.getIncomingTransitionsTo(last).iterator().next();
+		a.removeTransition(t);
+
+		Assert.assertTrue(a.getIncomingTransitionsTo(last).isEmpty());
+		Assert.assertFalse(a.getOutgoingTransitionsFrom(t.getFrom()).contains(t));
+		Assert.assertFalse(Automaton.isReachable(last, a));
+
+		a.addTransition(t);
+
+		Assert.assertTrue(a.getIncomingTransitionsTo(last).contains(t));
+		Assert.assertTrue(a.getOutgoingTransitionsFrom(t.getFrom()).contains(t));
+		Assert.assertTrue(Automaton.isReachable(last, a));
+	}
+
+	@Test
+	public void incomingTest2() {
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+
+		states.add(q0);
+		states.add(q1);
+
+		Automaton a = new Automaton(delta, states);
+		Assert.assertFalse(Automaton.isReachable(q1, a));
+
+		// setDelta updates the adjacency lists
+		delta = new HashSet<>();
+		delta.add(new Transition(q0, q1, "a"));
+		a.setDelta(delta);
+
+		Assert.assertTrue(Automaton.isReachable(q1, a));
+		Assert.assertNotNull(a.hasTransitionFrom(q0, q1));
+		Assert.assertNull(a.hasTransitionFrom(q1, q0));
+	}
+
+	@Test
+	public void isReachableTest1() {
+		// a chain with many parallel transitions, exponential for a recursive search
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+		State previous = new State("q0", true, false);
+		states.add(previous);
+
+		for (int i = 1; i <= 200; ++i) {
+			State next = new State("q" + i, false, i == 200);
+			states.add(next);
+			delta.add(new Transition(previous, next, "a"));
+			delta.add(new Transition(previous, next, "b"));
+			previous = next;
+		}
+
+		State unreachable = new State("q201", false, false);
+		states.add(unreachable);
+		delta.add(new Transition(unreachable, previous, "a"));
+
+		Automaton a = new Automaton(delta, states);
+
+		Assert.assertTrue(Automaton.isReachable(previous, a));
+		Assert.assertFalse(Automaton.isReachable(unreachable, a));
+	}
+}
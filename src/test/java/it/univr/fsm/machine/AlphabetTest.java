@@ -0,0 +1,119 @@
+package it.univr.fsm.machine;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Vector;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AlphabetTest {
+
+	@Test
+	public void alphabetTest1() {
+		Assert.assertTrue(Alphabet.PRINTABLE_ASCII.contains("a"));
+		Assert.assertFalse(Alphabet.PRINTABLE_ASCII.contains(" "));
+		Assert.assertFalse(Alphabet.PRINTABLE_ASCII.contains("ab"));
+		Assert.assertTrue(Alphabet.UNICODE.contains("😀"));
+		Assert.assertFalse(Alphabet.BMP.contains("😀"));
+		Assert.assertEquals(94, Alphabet.PRINTABLE_ASCII.size());
+		Assert.assertEquals("~", Alphabet.PRINTABLE_ASCII.getSymbol(93));
+		Assert.assertEquals(2, Automaton.toList("a😀").size());
+	}
+
+	@Test
+	public void alphabetTest2() {
+		// the top language and the complements do not enumerate the alphabet
+		Automaton top = Automaton.makeTopLanguage(Alphabet.UNICODE);
+		Automaton a = Automaton.makeAutomaton("héllo wörld");
+		a.setAlphabet(Alphabet.UNICODE);
+		Automaton complement = Automaton.complement(a, false);
+
+		Assert.assertEquals(0, top.getDelta().size());
+		Assert.assertEquals(a.getDelta().size(), complement.getDelta().size());
+		Assert.assertEquals(Alphabet.UNICODE, complement.getAlphabet());
+		Assert.assertTrue(top.run("日本語 \n😀"));
+		Assert.assertTrue(complement.run("héllo world"));
+		Assert.assertFalse(complement.run("héllo wörld"));
+
+		Assert.assertTrue(Automaton.isContained(a, top));
+		Assert.assertFalse(Automaton.isContained(top, a));
+		Assert.assertTrue(Automaton.isEmptyLanguageAccepted(Automaton.intersection(a, complement)));
+		Assert.assertFalse(top.isAcyclic());
+	}
+
+	@Test
+	public void alphabetTest3() {
+		// the automata over an alphabet do not change the language of the automata over another one
+		Automaton printable = Automaton.complement(Automaton.makeAutomaton("a"), false);
+		Automaton ascii = Automaton.makeTopLanguage(Alphabet.ASCII);
+
+		Assert.assertTrue(printable.run("b"));
+		Assert.assertFalse(printable.run("\t"));
+		Assert.assertTrue(ascii.run("\t"));
+
+		Automaton product = Automaton.intersection(printable, ascii);
+		Assert.assertTrue(product.run("b"));
+		Assert.assertFalse(product.run("\t"));
+		Assert.assertFalse(product.run("a"));
+
+		Automaton union = Automaton.union(printable, ascii);
+		Assert.assertEquals(Alphabet.ASCII, union.getAlphabet());
+		Assert.assertTrue(union.run("\t"));
+		Assert.assertTrue(union.run("a"));
+
+		// setting the alphabet keeps the language
+		printable.setAlphabet(Alphabet.ASCII);
+		Assert.assertTrue(printable.run("b"));
+		Assert.assertFalse(printable.run("\t"));
+		Assert.assertTrue(Automaton.complement(printable, false).run("\t"));
+	}
+
+	@Test
+	public void alphabetTest4() {
+		// the queries reading the transitions follow the implicit accepting sink
+		Automaton top = Automaton.makeTopLanguage();
+		Automaton complement = Automaton.complement(Automaton.makeAutomaton("a"), false);
+		Automaton nonEmpty = Automaton.complement(Automaton.makeAutomaton(""), false);
+		Automaton explicit = nonEmpty.clone();
+		explicit.materializeSink();
+
+		Assert.assertTrue(top.hasAcceptingSink());
+		Assert.assertFalse(top.recognizesExactlyOneString());
+		Assert.assertTrue(Automaton.makeAutomaton("abc").recognizesExactlyOneString());
+		Assert.assertEquals(94, top.getStringsAtMost(top.getInitialState(), 1).size());
+
+		HashSet<String> strings = complement.getStringsAtMost(complement.getInitialState(), 1);
+		Assert.assertEquals(94, strings.size());
+		Assert.assertTrue(strings.contains("a"));
+		Assert.assertTrue(strings.contains("b"));
+
+		Assert.assertTrue(nonEmpty.hasAcceptingSink());
+		Assert.assertEquals(1, nonEmpty.maxLengthString());
+		Assert.assertEquals(explicit.maxLengthString(), nonEmpty.maxLengthString());
+		Assert.assertEquals(2, nonEmpty.bfs().size());
+		Assert.assertEquals(explicit.getMaximalPrefixNumber(explicit.getInitialState(), new Vector<State>()),
+				nonEmpty.getMaximalPrefixNumber(nonEmpty.getInitialState(), new Vector<State>()));
+		Assert.assertFalse(nonEmpty.getMaximalPrefixNumber(nonEmpty.getInitialState(), new Vector<State>()).isEmpty());
+	}
+
+	@Test
+	public void alphabetTest5() {
+		// the operands with an implicit sink gain just the sink, as an explicit state
+		Automaton complement = Automaton.complement(Automaton.makeAutomaton("a"), false);
+		Automaton union = Automaton.union(Arrays.asList(complement, Automaton.makeAutomaton("a")), false);
+		Automaton concat = Automaton.concat(Arrays.asList(Automaton.makeAutomaton("b"), complement), false);
+
+		Assert.assertEquals(4, union.getStates().size());
+		Assert.assertEquals(6, union.getDelta().size());
+		Assert.assertTrue(union.run("a"));
+		Assert.assertTrue(union.run("ab"));
+		Assert.assertTrue(union.run(""));
+
+		Assert.assertEquals(4, concat.getStates().size());
+		Assert.assertEquals(6, concat.getDelta().size());
+		Assert.assertTrue(concat.run("b"));
+		Assert.assertFalse(concat.run("ba"));
+		Assert.assertTrue(concat.run("bab"));
+	}
+}
@@ -0,0 +1,57 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class CoarseningTest {
+
+	private static Automaton words(String... words) {
+		ArrayList<Automaton> automata = new ArrayList<>();
+
+		for (String w : words)
+			automata.add(Automaton.makeAutomaton(w));
+
+		return Automaton.union(automata, ReductionStrategy.LEFT_FOLD);
+	}
+
+	private static final String[] WORDS = { "abcd", "bcda", "cdab", "dabc", "aabb", "ccdd", "abab", "dcdc" };
+
+	@Test
+	public void coarseningTest1() {
+		Automaton exact = words(WORDS);
+
+		for (Coarsening c : Coarsening.values()) {
+			OperationContext context = new OperationContext().setApproximation(5, c);
+			Automaton a = context.call(() -> words(WORDS));
+
+			Assert.assertTrue(c.toString(), context.isPrecisionLost());
+			Assert.assertTrue(c.toString(), a.getStates().size() <= 5);
+			Assert.assertTrue(c.toString(), Automaton.isContained(exact, a));
+		}
+
+		// small results are left alone
+		OperationContext context = new OperationContext().setApproximation(100, Coarsening.FUTURES);
+		Automaton a = context.call(() -> words(WORDS));
+
+		Assert.assertFalse(context.isPrecisionLost());
+		Assert.assertEquals(exact, a);
+	}
+
+	@Test
+	public void coarseningTest2() {
+		Automaton words = words(WORDS);
+		Automaton exact = Automaton.minus(Automaton.makeTopLanguage(), words);
+
+		// the complement of the subtracted automaton is not over-approximated, so the difference still contains the exact one
+		for (Coarsening c : Coarsening.values()) {
+			OperationContext context = new OperationContext().setApproximation(3, c);
+			Automaton a = context.call(() -> Automaton.minus(Automaton.makeTopLanguage(), words));
+
+			Assert.assertTrue(c.toString(), context.isPrecisionLost());
+			Assert.assertTrue(c.toString(), a.getStates().size() <= 3);
+			Assert.assertTrue(c.toString(), Automaton.isContained(exact, a));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ComplementTest {
+
+	@Test
+	public void complementTest1() {
+		Automaton a = Automaton.makeAutomaton("ab");
+		Automaton complement = Automaton.complement(a, false);
+
+		Assert.assertTrue(complement.hasAcceptingSink());
+		Assert.assertFalse(complement.run("ab"));
+		Assert.assertTrue(complement.run(""));
+		Assert.assertTrue(complement.run("a"));
+		Assert.assertTrue(complement.run("abc"));
+		Assert.assertTrue(complement.run("zz"));
+	}
+
+	@Test
+	public void complementTest2() {
+		Automaton a = Automaton.makeAutomaton("ab");
+
+		Automaton implicitSink = Automaton.complement(a, false);
+		Automaton minimized = Automaton.complement(a);
+
+		Assert.assertFalse(minimized.hasAcceptingSink());
+		Assert.assertTrue(minimized.equals(implicitSink));
+		Assert.assertTrue(Automaton.complement(implicitSink, false).equals(a));
+	}
+
+	@Test
+	public void complementTest3() {
+		// nondeterministic automaton
+		Automaton a = Automaton.union(Arrays.asList(Automaton.makeAutomaton("ab"), Automaton.makeAutomaton("ac")), false);
+		Automaton complement = Automaton.complement(a, false);
+
+		Assert.assertFalse(complement.run("ab"));
+		Assert.assertFalse(complement.run("ac"));
+		Assert.assertTrue(complement.run("a"));
+		Assert.assertTrue(complement.run("ad"));
+	}
+
+	@Test
+	public void complementTest4() {
+		Assert.assertTrue(Automaton.isEmptyLanguageAccepted(Automaton.complement(Automaton.makeTopLanguage(), false)));
+		Assert.assertTrue(Automaton.complement(Automaton.makeEmptyLanguage(), false).equals(Automaton.makeTopLanguage()));
+	}
+
+	@Test
+	public void complementTest5() {
+		// reading an automaton with an implicit sink leaves the sink implicit
+		Automaton complement = Automaton.complement(Automaton.makeAutomaton("ab"), false);
+
+		complement.determinize();
+		complement.toRegex();
+		complement.toString();
+		complement.widening(1);
+
+		Assert.assertTrue(complement.hasAcceptingSink());
+		Assert.assertEquals(3, complement.getStates().size());
+		Assert.assertEquals(2, complement.getDelta().size());
+	}
+
+	@Test
+	public void minusTest() {
+		Automaton ab = Automaton.makeAutomaton("ab");
+		Automaton abc = Automaton.makeAutomaton("abc");
+		Automaton union = Automaton.union(ab, abc);
+
+		Assert.assertTrue(Automaton.minus(union, ab).equals(abc));
+		Assert.assertFalse(Automaton.minus(union, ab).equals(union));
+		Assert.assertTrue(Automaton.isContained(ab, union));
+		Assert.assertFalse(Automaton.isContained(union, ab));
+	}
+}
@@ -5,6 +5,7 @@ import it.univr.fsm.machine.Automaton;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 
 public class ConcatTest {
@@ -62,4 +63,18 @@ public class ConcatTest {
     	// abdc
     	Assert.assertTrue(concat.equals(expectedResult));
     }
+
+    @Test
+    public void concatTest5() {
+    	ArrayList<Automaton> automata = new ArrayList<>();
+    	automata.add(Automaton.makeAutomaton("ab"));
+    	automata.add(Automaton.makeEmptyString());
+    	automata.add(Automaton.union(Automaton.makeAutomaton("c"), Automaton.makeEmptyString()));
+    	automata.add(Automaton.makeAutomaton("d"));
+
+    	Automaton concat = Automaton.concat(automata, false);
+    	Automaton expectedResult = Automaton.union(Automaton.makeAutomaton("abcd"), Automaton.makeAutomaton("abd"));
+
+    	Assert.assertTrue(concat.equals(expectedResult));
+    }
 }
@@ -0,0 +1,46 @@
+package it.univr.fsm.machine;
+
+import it.univr.fsm.equations.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DerivativeMatcherTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void derivativeTest1() {
+		DerivativeMatcher matcher = new DerivativeMatcher(RegularExpressionParser.parse("a(b + d)*c + ε"));
+
+		Assert.assertTrue(matcher.matches(""));
+		Assert.assertTrue(matcher.matches("ac"));
+		Assert.assertTrue(matcher.matches("abddbc"));
+		Assert.assertFalse(matcher.matches("abd"));
+		Assert.assertFalse(matcher.matches("acc"));
+	}
+
+	@Test
+	public void derivativeTest2() {
+		Automaton a = Automaton.loadAutomata(path + "automata/automaton0016");
+		DerivativeMatcher matcher = new DerivativeMatcher(a.toRegex());
+
+		for (String s : new String[] { "", "a", "ac", "abc", "adbdc", "abdca", "c" })
+			Assert.assertEquals(s, a.run(s), matcher.matches(s));
+	}
+
+	@Test
+	public void derivativeTest3() {
+		// the derivatives are finitely many
+		DerivativeMatcher matcher = new DerivativeMatcher(RegularExpressionParser.parse("(a + b)*a(a + b)(a + b)"));
+		StringBuilder s = new StringBuilder();
+
+		for (int i = 0; i < 10000; ++i)
+			s.append(i % 3 == 0 ? 'a' : 'b');
+
+		Assert.assertFalse(matcher.matches(s.toString()));
+		Assert.assertTrue(matcher.matches(s.append("abb").toString()));
+		Assert.assertFalse(matcher.matches(s.append("b").toString()));
+		Assert.assertTrue(matcher.size() < 50);
+	}
+}
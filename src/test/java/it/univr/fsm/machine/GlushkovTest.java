@@ -0,0 +1,70 @@
+package it.univr.fsm.machine;
+
+import it.univr.exception.MalformedInputException;
+import it.univr.fsm.equations.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GlushkovTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void glushkovTest1() {
+		Automaton a = Automaton.makeAutomaton(new Comp(new GroundCoeff("a"),
+				new Comp(new Star(new Or(new GroundCoeff("b"), new GroundCoeff("d"))), new GroundCoeff("c"))));
+
+		Automaton expected = Automaton.loadAutomata(path + "automata/automaton0016");
+
+		Assert.assertTrue(expected.equals(a));
+		Assert.assertEquals(3, a.getStates().size());
+	}
+
+	@Test
+	public void glushkovTest2() {
+		Automaton a = Automaton.makeAutomatonFromRegex("(ab + c)* | ε");
+
+		Assert.assertTrue(a.run(""));
+		Assert.assertTrue(a.run("abcab"));
+		Assert.assertFalse(a.run("aab"));
+		Assert.assertTrue(Automaton.makeAutomatonFromRegex("∅").equals(Automaton.makeEmptyLanguage()));
+		Assert.assertTrue(Automaton.makeAutomatonFromRegex("").equals(Automaton.makeEmptyString()));
+		Assert.assertTrue(Automaton.makeAutomatonFromRegex("\\(\\+\\*").equals(Automaton.makeAutomaton("(+*")));
+	}
+
+	@Test
+	public void glushkovTest3() {
+		// round trip through the printed regular expression
+		Automaton a = Automaton.loadAutomata(path + "automata/automaton0016");
+
+		Assert.assertTrue(a.equals(Automaton.makeAutomatonFromRegex(a.toRegexByStateElimination().toString())));
+	}
+
+	@Test(expected = MalformedInputException.class)
+	public void glushkovTest4() {
+		Automaton.makeAutomatonFromRegex("(ab + c");
+	}
+
+	@Test(expected = MalformedInputException.class)
+	public void glushkovTest5() {
+		Automaton.makeAutomaton(new Comp(new GroundCoeff("a"), new Var(new State("q0", true, false))));
+	}
+
+	@Test
+	public void glushkovTest6() {
+		// the printed expressions escape the operators, so they read back as the same language
+		Automaton[] automata = { Automaton.makeAutomaton("a+b"), Automaton.makeAutomaton("(x)"), Automaton.makeAutomaton("a*"),
+				Automaton.makeAutomaton("\\"), Automaton.makeAutomaton("a b|ε∅"), Automaton.union(Automaton.makeAutomaton("+"), Automaton.makeAutomaton("ab")) };
+
+		for (Automaton a : automata) {
+			String byElimination = a.toRegexByStateElimination().toString();
+			String byEquations = a.toRegex().toString();
+
+			Assert.assertTrue(byElimination, a.equals(Automaton.makeAutomatonFromRegex(byElimination)));
+			Assert.assertTrue(byEquations, a.equals(Automaton.makeAutomatonFromRegex(byEquations)));
+		}
+
+		Assert.assertEquals("\\(x\\)", Automaton.makeAutomaton("(x)").toRegexByStateElimination().toString());
+	}
+}
@@ -2,6 +2,8 @@ package it.univr.fsm.machine;
 
 import it.univr.fsm.machine.Automaton;
 
+import java.util.HashSet;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -71,4 +73,35 @@ public class HopcroftTest {
 
         Assert.assertTrue(a.equals(solution));
     }
+
+    @Test
+    public void reductionTest7(){
+        // a partial automaton, whose non-final states must be splitters too
+        HashSet<State> states = new HashSet<State>();
+        HashSet<Transition> delta = new HashSet<Transition>();
+        State q0 = new State("q0", true, false);
+        State q1 = new State("q1", false, true);
+        State q2 = new State("q2", false, false);
+
+        states.add(q0);
+        states.add(q1);
+        states.add(q2);
+        delta.add(new Transition(q0, q0, "a"));
+        delta.add(new Transition(q0, q0, "b"));
+        delta.add(new Transition(q0, q1, "c"));
+        delta.add(new Transition(q1, q2, "a"));
+        delta.add(new Transition(q1, q1, "c"));
+        delta.add(new Transition(q2, q1, "c"));
+
+        Automaton a = new Automaton(delta, states);
+        Automaton moore = a.clone();
+        a.minimizeHopcroft();
+        moore.minimizeMoore();
+
+        Assert.assertEquals(3, a.getStates().size());
+        Assert.assertEquals(moore.getStates().size(), a.getStates().size());
+        Assert.assertFalse(a.run("caac"));
+        Assert.assertTrue(a.run("bcac"));
+        Assert.assertTrue(a.equals(moore));
+    }
 }
@@ -0,0 +1,112 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class IncrementalMinimalAutomatonTest {
+
+	@Test
+	public void sortedTest() {
+		ArrayList<String> strings = new ArrayList<>(Arrays.asList("tap", "taps", "top", "tops", "stop"));
+		Automaton a = IncrementalMinimalAutomaton.makeAutomaton(strings);
+
+		Automaton minimized = a.clone();
+		minimized.minimize();
+
+		Assert.assertEquals(minimized.getStates().size(), a.getStates().size());
+
+		for (String s : strings)
+			Assert.assertTrue(a.run(s));
+		Assert.assertFalse(a.run("tops2"));
+		Assert.assertFalse(a.run("st"));
+	}
+
+	@Test
+	public void unsortedTest() {
+		IncrementalMinimalAutomaton a = new IncrementalMinimalAutomaton();
+		ArrayList<Automaton> automata = new ArrayList<>();
+
+		for (String s : Arrays.asList("tops", "tap", "stop", "taps", "top", "", "tap")) {
+			a.add(s);
+			automata.add(Automaton.makeAutomaton(s));
+
+			Automaton expectedResult = Automaton.union(automata, true);
+			Assert.assertTrue(a.toAutomaton().equals(expectedResult));
+			Assert.assertEquals(expectedResult.getStates().size(), a.size());
+		}
+	}
+
+	@Test
+	public void cyclicTest() {
+		// (ab)*
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, true);
+		State q1 = new State("q1", false, false);
+
+		states.add(q0);
+		states.add(q1);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q1, q0, "b"));
+
+		Automaton ab = new Automaton(delta, states);
+
+		IncrementalMinimalAutomaton a = new IncrementalMinimalAutomaton(ab);
+		a.add("aba");
+		a.add("b");
+
+		Automaton expectedResult = Automaton.union(Arrays.asList(ab, Automaton.makeAutomaton("aba"), Automaton.makeAutomaton("b")), true);
+
+		Assert.assertTrue(a.toAutomaton().equals(expectedResult));
+		Assert.assertEquals(expectedResult.getStates().size(), a.size());
+		Assert.assertTrue(a.run("ababab"));
+		Assert.assertTrue(a.run("b"));
+		Assert.assertFalse(a.run("abb"));
+	}
+
+	@Test
+	public void seededTest() {
+		// (a + b)*, whose initial state lies on a cycle
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, true);
+		State q1 = new State("q1", false, true);
+
+		states.add(q0);
+		states.add(q1);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q0, q0, "b"));
+		delta.add(new Transition(q1, q1, "a"));
+		delta.add(new Transition(q1, q0, "b"));
+
+		Automaton ab = new Automaton(delta, states);
+		IncrementalMinimalAutomaton a = new IncrementalMinimalAutomaton(ab);
+
+		Assert.assertEquals(1, a.size());
+		a.add("ab");
+		Assert.assertEquals(1, a.size());
+
+		// the size is the one of the minimal automaton after each addition
+		ArrayList<Automaton> automata = new ArrayList<>();
+		automata.add(Automaton.makeAutomatonFromRegex("(ab)*c + a(ba)*"));
+		IncrementalMinimalAutomaton b = new IncrementalMinimalAutomaton(automata.get(0));
+
+		for (String s : Arrays.asList("abc", "bb", "", "ababa", "cab", "abab", "b", "ababc")) {
+			b.add(s);
+			automata.add(Automaton.makeAutomaton(s));
+
+			Automaton expectedResult = Automaton.union(automata, false);
+			expectedResult.minimizeMoore();
+			Assert.assertTrue(b.toAutomaton().equals(expectedResult));
+			Assert.assertEquals(expectedResult.getStates().size(), b.size());
+		}
+	}
+}
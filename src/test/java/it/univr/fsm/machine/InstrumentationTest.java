@@ -0,0 +1,111 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class InstrumentationTest {
+
+	@Test
+	public void instrumentationTest1() {
+		ArrayList<OperationMetrics> reported = new ArrayList<>();
+		AutomatonListener listener = reported::add;
+
+		Automaton a = Automaton.makeAutomaton("ab");
+		Automaton b = Automaton.makeAutomaton("abc");
+
+		Instrumentation.addListener(listener);
+
+		try {
+			Automaton u = Automaton.union(a, b);
+			Automaton d = u.determinize();
+			d.minimizeMoore();
+			d.minimizeHopcroft();
+			d.toRegexByStateElimination();
+			d.toRegex();
+		} finally {
+			Instrumentation.removeListener(listener);
+		}
+
+		OperationMetrics union = last(reported, "union");
+		Assert.assertEquals(7, union.getInputStates());
+		Assert.assertEquals(4, union.getOutputStates());
+
+		OperationMetrics determinize = last(reported, "determinize");
+		Assert.assertTrue(determinize.getMaxFrontier() >= 1);
+		Assert.assertTrue(determinize.getOutputStates() > 0);
+		Assert.assertTrue(determinize.getNanos() >= 0);
+
+		OperationMetrics moore = last(reported, "minimizeMoore");
+		Assert.assertTrue(moore.getRounds() >= 1);
+		Assert.assertEquals(4, moore.getOutputStates());
+
+		OperationMetrics hopcroft = last(reported, "minimizeHopcroft");
+		Assert.assertEquals(4, hopcroft.getInputStates());
+		Assert.assertTrue(hopcroft.getRounds() >= 1);
+
+		OperationMetrics elimination = last(reported, "toRegexByStateElimination");
+		Assert.assertEquals(4, elimination.getInputStates());
+		Assert.assertEquals(4, elimination.getRounds());
+		Assert.assertTrue(elimination.getExpressionSize() >= 4);
+
+		OperationMetrics equations = last(reported, "toRegex");
+		Assert.assertTrue(equations.getExpressionSize() >= 4);
+		Assert.assertEquals(0, equations.getOutputStates());
+
+		// nothing is reported once the listener is removed
+		int size = reported.size();
+		a.determinize();
+		Assert.assertEquals(size, reported.size());
+	}
+
+	@Test
+	public void instrumentationTest2() throws IOException {
+		Path file = Files.createTempFile("automata", ".jfr");
+
+		try (Recording recording = new Recording()) {
+			recording.enable(OperationEvent.class);
+			recording.start();
+
+			Assert.assertTrue(Instrumentation.isEnabled());
+			Automaton.intersection(Automaton.makeAutomaton("ab"), Automaton.makeAutomaton("ab"));
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+
+		boolean product = false;
+
+		for (RecordedEvent event : events)
+			if (event.getEventType().getName().equals("it.univr.fsm.AutomatonOperation") && event.getString("operation").equals("product")) {
+				product = true;
+				Assert.assertEquals(6, event.getInt("inputStates"));
+				Assert.assertEquals(3, event.getInt("outputStates"));
+			}
+
+		Assert.assertTrue(product);
+	}
+
+	private static OperationMetrics last(List<OperationMetrics> reported, String operation) {
+		OperationMetrics result = null;
+
+		for (OperationMetrics m : reported)
+			if (m.getOperation().equals(operation))
+				result = m;
+
+		Assert.assertNotNull(operation + " not reported", result);
+		return result;
+	}
+}
@@ -0,0 +1,71 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+
+public class LanguageCounterTest {
+
+	@Test
+	public void languageCounterTest1() {
+		Automaton a = Automaton.makeAutomatonFromRegex("(a+b)*c");
+		LanguageCounter counter = new LanguageCounter(a);
+
+		Assert.assertEquals(BigInteger.ZERO, counter.count(0));
+		Assert.assertEquals(BigInteger.valueOf(8), counter.count(4));
+		Assert.assertEquals(BigInteger.valueOf(15), a.countStringsAtMost(4));
+		Assert.assertEquals(BigInteger.ONE.shiftLeft(2000), counter.count(2001));
+
+		Automaton finite = Automaton.makeAutomatonFromRegex("abc+de+abcde");
+		Assert.assertEquals(finite.countStrings(), finite.countStringsAtMost(10));
+	}
+
+	@Test
+	public void languageCounterTest2() {
+		Automaton a = Automaton.makeAutomatonFromRegex("(a+b)*c");
+		ArrayList<String> strings = new ArrayList<>();
+		Iterator<String> iterator = new LanguageCounter(a).iterator();
+
+		for (int i = 0; i < 7; ++i)
+			strings.add(iterator.next());
+
+		Assert.assertArrayEquals(new String[] { "c", "ac", "bc", "aac", "abc", "bac", "bbc" }, strings.toArray());
+
+		ArrayList<String> finite = new ArrayList<>();
+
+		for (String s : new LanguageCounter(Automaton.makeAutomatonFromRegex("abc+de+abcde")))
+			finite.add(s);
+
+		Assert.assertArrayEquals(new String[] { "de", "abc", "abcde" }, finite.toArray());
+	}
+
+	@Test
+	public void languageCounterTest3() {
+		Automaton a = Automaton.makeAutomatonFromRegex("(a+b)*c");
+		LanguageCounter counter = new LanguageCounter(a);
+		Random random = new Random(0);
+		HashMap<String, Integer> frequencies = new HashMap<>();
+
+		// the 7 strings of length at most 3 are drawn about 1000 times each
+		for (int i = 0; i < 7000; ++i) {
+			String s = counter.sample(3, random);
+			Assert.assertTrue(s, a.run(s));
+			frequencies.merge(s, 1, Integer::sum);
+		}
+
+		Assert.assertEquals(7, frequencies.size());
+
+		for (int frequency : frequencies.values())
+			Assert.assertTrue(frequency > 850 && frequency < 1150);
+
+		String s = counter.sampleOfLength(1000, random);
+		Assert.assertEquals(1000, s.length());
+		Assert.assertTrue(a.run(s));
+		Assert.assertNull(new LanguageCounter(Automaton.makeEmptyLanguage()).sample(10, random));
+	}
+}
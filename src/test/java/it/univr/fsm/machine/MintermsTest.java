@@ -0,0 +1,52 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class MintermsTest {
+
+	@Test
+	public void mintermsTest1() {
+		Assert.assertEquals(0, SymbolTable.intern(""));
+
+		// concurrent interning gives a single number to each symbol
+		int[] ids = IntStream.range(0, 1000).parallel().map(i -> SymbolTable.intern("symbol" + (i % 10))).toArray();
+
+		for (int i = 0; i < ids.length; ++i) {
+			Assert.assertEquals(ids[i % 10], ids[i]);
+			Assert.assertEquals("symbol" + (i % 10), SymbolTable.getSymbol(ids[i]));
+		}
+
+		Assert.assertEquals(SymbolTable.intern("ab"), SymbolTable.intern(new String("ab")));
+	}
+
+	@Test
+	public void mintermsTest2() {
+		// a and b are read in the same way by both automata, c and d are not
+		Automaton first = Automaton.union(Automaton.makeAutomaton("ac"), Automaton.makeAutomaton("bc"));
+		Automaton second = Automaton.union(Automaton.makeAutomaton("ad"), Automaton.makeAutomaton("bd"));
+		Minterms minterms = new Minterms(Arrays.asList(first, second));
+
+		int a = SymbolTable.intern("a"), b = SymbolTable.intern("b"), c = SymbolTable.intern("c"), d = SymbolTable.intern("d");
+
+		Assert.assertEquals(3, minterms.getClassCount());
+		Assert.assertEquals(minterms.classOf(a), minterms.classOf(b));
+		Assert.assertNotEquals(minterms.classOf(c), minterms.classOf(d));
+		Assert.assertEquals(-1, minterms.classOf(SymbolTable.intern("e")));
+
+		// the symbols read only by an implicit accepting sink are not enumerated
+		Automaton complement = Automaton.complement(Automaton.makeAutomaton("ab"), false);
+		minterms = new Minterms(Arrays.asList(complement, first));
+
+		Assert.assertEquals(3, minterms.getSymbols().length);
+		Assert.assertEquals(3, minterms.getClassCount());
+		Assert.assertEquals(-1, minterms.classOf(SymbolTable.intern("z")));
+
+		Automaton intersection = Automaton.intersection(complement, first);
+		Assert.assertTrue(intersection.run("ac"));
+		Assert.assertFalse(intersection.run("ab"));
+	}
+}
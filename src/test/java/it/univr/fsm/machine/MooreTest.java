@@ -0,0 +1,54 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class MooreTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void mooreTest1() {
+		for (String name : new String[] { "automaton0008", "automaton0010", "automaton0017" }) {
+			Automaton a = Automaton.loadAutomataWithJFLAPPattern(path + "JFLAPautomata_NFA/" + name + ".jff");
+			a.minimizeMoore();
+			Automaton solution = Automaton.loadAutomataWithJFLAPPattern(path + "automataminimized/" + name + ".jff");
+
+			Assert.assertTrue(name, a.equals(solution));
+			Assert.assertEquals(name, solution.getStates().size(), a.getStates().size());
+		}
+	}
+
+	@Test
+	public void mooreTest2() {
+		// q1 and q2 are equivalent, q3 cannot reach a final state
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+		State q2 = new State("q2", false, true);
+		State q3 = new State("q3", false, false);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+		states.add(q3);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q0, q2, "b"));
+		delta.add(new Transition(q0, q3, "c"));
+		delta.add(new Transition(q1, q1, "a"));
+		delta.add(new Transition(q2, q2, "a"));
+		delta.add(new Transition(q3, q3, "a"));
+
+		Automaton a = new Automaton(delta, states);
+		Automaton expected = a.clone();
+		a.minimizeMoore();
+
+		Assert.assertEquals(2, a.getStates().size());
+		Assert.assertTrue(a.equals(expected));
+	}
+}
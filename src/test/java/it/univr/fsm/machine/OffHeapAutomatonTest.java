@@ -0,0 +1,51 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapAutomatonTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void offHeapTest1() {
+		for (String name : new String[] { "automaton0008", "automaton0010", "automaton0017", "automaton0026" }) {
+			Automaton a = Automaton.loadAutomataWithJFLAPPattern(path + "JFLAPautomata_NFA/" + name + ".jff");
+
+			try (OffHeapAutomaton offHeap = OffHeapAutomaton.fromAutomaton(a);
+					OffHeapAutomaton dfa = offHeap.determinize();
+					OffHeapAutomaton minimum = offHeap.minimize()) {
+				Assert.assertTrue(name, dfa.isDeterministic());
+				Assert.assertTrue(name, offHeap.toAutomaton().equals(a));
+				Assert.assertTrue(name, dfa.toAutomaton().equals(a));
+				Assert.assertTrue(name, minimum.toAutomaton().equals(a));
+
+				a.minimizeMoore();
+				Assert.assertEquals(name, a.getStates().size(), minimum.getStateCount());
+			}
+		}
+	}
+
+	@Test
+	public void offHeapTest2() {
+		Automaton first = Automaton.makeAutomatonFromRegex("(ab)*c");
+		Automaton second = Automaton.makeAutomatonFromRegex("a(ba)*bc+c");
+
+		try (OffHeapAutomaton a = OffHeapAutomaton.fromAutomaton(first);
+				OffHeapAutomaton b = OffHeapAutomaton.fromAutomaton(second);
+				OffHeapAutomaton product = OffHeapAutomaton.product(a, b)) {
+			Assert.assertTrue(product.run("c"));
+			Assert.assertTrue(product.run("ababc"));
+			Assert.assertFalse(product.run("abab"));
+			Assert.assertFalse(product.run("aba"));
+			Assert.assertTrue(product.toAutomaton().equals(Automaton.intersection(first, second)));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void offHeapTest3() {
+		OffHeapAutomaton a = OffHeapAutomaton.fromAutomaton(Automaton.makeAutomaton("abc"));
+		a.close();
+		a.run("abc");
+	}
+}
@@ -0,0 +1,102 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import it.univr.exception.BudgetExceededException;
+
+public class OperationContextTest {
+
+	/**
+	 * Returns the automaton of (a + b)*a(a + b)^n, whose deterministic automaton has 2^(n + 1) states.
+	 */
+	private static Automaton nthFromLast(int n) {
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+		State[] q = new State[n + 2];
+
+		for (int i = 0; i < q.length; ++i) {
+			q[i] = new State("q" + i, i == 0, i == q.length - 1);
+			states.add(q[i]);
+		}
+
+		delta.add(new Transition(q[0], q[0], "a"));
+		delta.add(new Transition(q[0], q[0], "b"));
+		delta.add(new Transition(q[0], q[1], "a"));
+
+		for (int i = 1; i < q.length - 1; ++i) {
+			delta.add(new Transition(q[i], q[i + 1], "a"));
+			delta.add(new Transition(q[i], q[i + 1], "b"));
+		}
+
+		return new Automaton(delta, states);
+	}
+
+	@Test
+	public void operationContextTest1() {
+		Automaton a = nthFromLast(12);
+		OperationContext context = new OperationContext().setStateLimit(1000);
+
+		try {
+			context.call(a::determinize);
+			Assert.fail();
+		} catch (BudgetExceededException e) {
+			Assert.assertNull(OperationContext.current());
+		}
+
+		Automaton approximation = context.approximate(() -> Automaton.intersection(a, nthFromLast(11)));
+		Assert.assertTrue(Automaton.isContained(a, approximation));
+
+		// within the limits, the result is exact
+		Automaton d = new OperationContext().setStateLimit(100).call(nthFromLast(4)::determinize);
+		Assert.assertEquals(32, d.getStates().size());
+	}
+
+	@Test
+	public void operationContextTest2() {
+		OperationContext cancelled = new OperationContext();
+		cancelled.cancel();
+
+		try {
+			cancelled.call(nthFromLast(3)::toRegex);
+			Assert.fail();
+		} catch (BudgetExceededException e) {
+			Assert.assertTrue(cancelled.isCancelled());
+		}
+
+		OperationContext expired = new OperationContext().setTimeout(0, TimeUnit.NANOSECONDS);
+
+		try {
+			expired.call(nthFromLast(3)::toRegexByStateElimination);
+			Assert.fail();
+		} catch (BudgetExceededException e) {
+			Assert.assertEquals("deadline passed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void operationContextTest3() {
+		// the operations of a parallel reduction run in the context of the caller
+		OperationContext context = new OperationContext();
+		List<OperationContext> contexts = Collections.synchronizedList(new ArrayList<>());
+		List<Automaton> automata = new ArrayList<>();
+
+		for (int i = 0; i < 32; ++i)
+			automata.add(Automaton.makeAutomaton("a" + i));
+
+		Automaton union = context.call(() -> Reduction.reduce(automata, (first, second) -> {
+			contexts.add(OperationContext.current());
+			return Automaton.union(first, second);
+		}, true, ReductionStrategy.PARALLEL));
+
+		Assert.assertEquals(31, contexts.size());
+		Assert.assertTrue(contexts.stream().allMatch(c -> c == context));
+		Assert.assertTrue(union.run("a17"));
+	}
+}
@@ -0,0 +1,90 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+
+public class PartitionedMinimizerTest {
+
+	String path = "src/test/resources/";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void partitionedMinimizerTest1() throws IOException {
+		for (String name : new String[] { "automaton0008", "automaton0010", "automaton0017" }) {
+			Automaton a = Automaton.loadAutomataWithJFLAPPattern(path + "JFLAPautomata_NFA/" + name + ".jff").determinize();
+			Path directory = folder.newFolder().toPath();
+			PartitionedMinimizer.write(a, directory);
+
+			PartitionedMinimizer minimizer = new PartitionedMinimizer(directory, 2);
+			int blocks = minimizer.refine();
+			Automaton result = minimizer.toAutomaton();
+			Automaton solution = Automaton.loadAutomataWithJFLAPPattern(path + "automataminimized/" + name + ".jff");
+
+			Assert.assertTrue(name, result.equals(solution));
+			Assert.assertEquals(name, blocks, result.getStates().size());
+			Assert.assertTrue(name, blocks <= a.getStates().size());
+		}
+	}
+
+	@Test
+	public void partitionedMinimizerTest2() throws IOException {
+		// q1 and q2 are equivalent, as q3 and q4, which cannot reach a final state
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+		State q2 = new State("q2", false, true);
+		State q3 = new State("q3", false, false);
+		State q4 = new State("q4", false, false);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+		states.add(q3);
+		states.add(q4);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q0, q2, "b"));
+		delta.add(new Transition(q0, q3, "c"));
+		delta.add(new Transition(q0, q4, "d"));
+		delta.add(new Transition(q1, q2, "a"));
+		delta.add(new Transition(q2, q1, "a"));
+		delta.add(new Transition(q3, q4, "a"));
+		delta.add(new Transition(q4, q3, "a"));
+
+		Automaton a = new Automaton(delta, states);
+		Path directory = folder.newFolder().toPath();
+		PartitionedMinimizer.write(a, directory);
+
+		PartitionedMinimizer minimizer = new PartitionedMinimizer(directory, 1);
+		Assert.assertEquals(3, minimizer.refine());
+		Assert.assertTrue(minimizer.toAutomaton().equals(a));
+	}
+
+	@Test
+	public void partitionedMinimizerTest3() throws IOException {
+		// the implicit accepting sink of the complement is written explicitly
+		Automaton complement = Automaton.complement(Automaton.makeAutomaton("ab"), false);
+		Path directory = folder.newFolder().toPath();
+		PartitionedMinimizer.write(complement, directory);
+
+		PartitionedMinimizer minimizer = new PartitionedMinimizer(directory, 2);
+		minimizer.refine();
+		Automaton result = minimizer.toAutomaton();
+
+		Assert.assertTrue(complement.hasAcceptingSink());
+		Assert.assertFalse(result.run("ab"));
+		Assert.assertTrue(result.run("b"));
+		Assert.assertTrue(result.run("aba"));
+		Assert.assertTrue(result.run(""));
+	}
+}
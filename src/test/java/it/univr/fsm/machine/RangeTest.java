@@ -0,0 +1,166 @@
+package it.univr.fsm.machine;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+
+import it.univr.fsm.equations.DerivativeMatcher;
+import it.univr.fsm.equations.RegularExpression;
+import it.univr.fsm.equations.RegularExpressionParser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RangeTest {
+
+	@Test
+	public void rangeTest1() {
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+		HashSet<State> states = new HashSet<State>();
+		HashSet<Transition> delta = new HashSet<Transition>();
+		states.add(q0);
+		states.add(q1);
+		delta.add(new Transition(q0, q1, 'a', 'z'));
+		delta.add(new Transition(q0, q1, 'é', 'é'));
+
+		Automaton a = new Automaton(delta, states);
+		Assert.assertTrue(a.run("m"));
+		Assert.assertTrue(a.run("é"));
+		Assert.assertFalse(a.run("A"));
+		Assert.assertFalse(a.run("mm"));
+		Assert.assertTrue(Automaton.isDeterministic(a));
+		Assert.assertEquals(27, Automaton.getAlphabet(a).size());
+
+		// a range of a single code point reads its symbol
+		Assert.assertEquals(new Transition(q0, q1, "é"), new Transition(q0, q1, 'é', 'é'));
+		Assert.assertNotEquals(new Transition(q0, q1, "a"), new Transition(q0, q1, 'a', 'b'));
+	}
+
+	@Test
+	public void rangeTest2() {
+		// overlapping ranges to distinct states make the automaton nondeterministic
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+		State q2 = new State("q2", false, false);
+		HashSet<State> states = new HashSet<State>();
+		HashSet<Transition> delta = new HashSet<Transition>();
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+		delta.add(new Transition(q0, q1, 'a', 'm'));
+		delta.add(new Transition(q0, q2, 'k', 'z'));
+		delta.add(new Transition(q2, q1, "!"));
+
+		Automaton a = new Automaton(delta, states);
+		Assert.assertFalse(Automaton.isDeterministic(a));
+		Assert.assertTrue(a.run("l"));
+		Assert.assertTrue(a.run("l!"));
+		Assert.assertFalse(a.run("b!"));
+
+		Automaton d = a.determinize();
+		Assert.assertTrue(Automaton.isDeterministic(d));
+		Assert.assertTrue(d.run("l"));
+		Assert.assertTrue(d.run("l!"));
+		Assert.assertTrue(d.run("z!"));
+		Assert.assertFalse(d.run("b!"));
+		Assert.assertFalse(d.run("z"));
+	}
+
+	@Test
+	public void rangeTest3() {
+		// the sink reads the alphabet by ranges, so the size does not depend on the alphabet
+		Automaton a = Automaton.makeAutomaton("abcdefghij");
+		a.setAlphabet(Alphabet.BMP);
+		Automaton complement = Automaton.complement(a);
+
+		Assert.assertTrue(complement.getDelta().size() < 100);
+		Assert.assertTrue(complement.run("abcdefghi"));
+		Assert.assertTrue(complement.run("abcdefghij日本"));
+		Assert.assertFalse(complement.run("abcdefghij"));
+		Assert.assertTrue(Automaton.isEmptyLanguageAccepted(Automaton.intersection(a, complement)));
+
+		Automaton top = Automaton.makeTopLanguage(Alphabet.BMP);
+		Automaton moore = top.clone(), hopcroft = top.clone();
+		top.minimize();
+		moore.minimizeMoore();
+		hopcroft.minimizeHopcroft();
+		Assert.assertTrue(top.getDelta().size() <= 2);
+		Assert.assertEquals(1, moore.getDelta().size());
+		Assert.assertEquals(1, hopcroft.getDelta().size());
+		Assert.assertTrue(top.run("日本語"));
+		Assert.assertTrue(hopcroft.run("日本語"));
+
+		Automaton minus = Automaton.minus(top, a);
+		Assert.assertTrue(minus.run("abcdefghi"));
+		Assert.assertFalse(minus.run("abcdefghij"));
+		Assert.assertTrue(Automaton.isContained(minus, complement));
+		Assert.assertTrue(Automaton.isContained(complement, minus));
+	}
+
+	@Test
+	public void rangeTest4() {
+		Automaton atMost = Automaton.atMostLengthAutomaton(10, Alphabet.BMP);
+		Automaton exact = Automaton.exactLengthAutomaton(3, Alphabet.BMP);
+
+		Assert.assertEquals(10, atMost.getDelta().size());
+		Assert.assertEquals(3, exact.getDelta().size());
+		Assert.assertTrue(atMost.run("日本語"));
+		Assert.assertFalse(atMost.run("日本語日本語日本語日本語"));
+		Assert.assertTrue(exact.run("日本語"));
+		Assert.assertFalse(exact.run("日本"));
+
+		Automaton copy = atMost.clone();
+		copy.minimize();
+		Assert.assertEquals(10, copy.getDelta().size());
+		Assert.assertTrue(Automaton.isContained(exact, atMost));
+	}
+
+	@Test
+	public void rangeTest5() {
+		// the operations enumerating the strings read the code points of the ranges, the regular expressions read the ranges
+		Automaton a = Automaton.exactLengthAutomaton(1, new Alphabet('a', 'c'));
+		LanguageCounter counter = new LanguageCounter(Automaton.concat(a, a));
+
+		Assert.assertEquals(9, counter.count(2).intValue());
+		Assert.assertEquals("ab", counter.get(2, BigInteger.ONE));
+		Assert.assertEquals("cc", counter.get(2, BigInteger.valueOf(8)));
+		Assert.assertEquals("[a-c]", a.toRegex().toString());
+		Assert.assertEquals("[a-c]", a.toRegexByStateElimination().toString());
+	}
+
+	@Test
+	public void rangeTest6() {
+		// a range counts once per code point
+		Automaton exact = Automaton.exactLengthAutomaton(2);
+		Automaton atMost = Automaton.atMostLengthAutomaton(1);
+
+		Assert.assertEquals(BigInteger.valueOf(94 * 94), exact.countStrings());
+		Assert.assertEquals(exact.countStringsAtMost(2), exact.countStrings());
+		Assert.assertEquals(BigInteger.valueOf(95), atMost.countStrings());
+		Assert.assertEquals(BigInteger.valueOf(3), Automaton.exactLengthAutomaton(1, new Alphabet('a', 'c')).countStrings());
+	}
+
+	@Test
+	public void rangeTest7() {
+		// a range is a single term of the regular expressions
+		Automaton top = Automaton.makeTopLanguage(Alphabet.UNICODE);
+		Automaton letters = Automaton.exactLengthAutomaton(1, new Alphabet('a', 'z'));
+
+		Assert.assertEquals("[a-z]", letters.toString());
+		Assert.assertTrue(top.toString().length() < 30);
+		Assert.assertTrue(top.toRegex().toString().length() < 30);
+		Assert.assertTrue(Automaton.makeAutomatonFromRegex(top.toString()).run("日本語😀"));
+		Assert.assertTrue(Automaton.makeAutomatonFromRegex(Automaton.makeTopLanguage(Alphabet.BMP).toString()).run("日本語"));
+
+		RegularExpression e = RegularExpressionParser.parse("x[\\--\\]]*[😀-😂]");
+		Automaton a = Automaton.makeAutomaton(e);
+		DerivativeMatcher matcher = new DerivativeMatcher(e);
+
+		for (String s : new String[] { "x😁", "x-]😀", "x.😂", "x😃", "x", "xa😀" }) {
+			Assert.assertEquals(s, matcher.matches(s), a.run(s));
+			Assert.assertEquals(s, !s.equals("x😃") && !s.equals("x") && !s.equals("xa😀"), a.run(s));
+		}
+
+		Assert.assertEquals("[\\--\\\\]", RegularExpressionParser.parse("[--\\\\]").toString());
+	}
+}
@@ -0,0 +1,120 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ReductionTest {
+
+	private ArrayList<Automaton> strings(String... strings) {
+		ArrayList<Automaton> automata = new ArrayList<>();
+
+		for (String s : strings)
+			automata.add(Automaton.makeAutomaton(s));
+
+		return automata;
+	}
+
+	@Test
+	public void unionTest() {
+		Automaton expectedResult = Automaton.union(strings("a", "bb", "ccc", "dd", "e"), true);
+
+		for (ReductionStrategy strategy : ReductionStrategy.values()) {
+			Automaton union = Automaton.union(strings("a", "bb", "ccc", "dd", "e"), strategy);
+			Assert.assertTrue(strategy.toString(), union.equals(expectedResult));
+		}
+	}
+
+	@Test
+	public void concatTest() {
+		Automaton expectedResult = Automaton.makeAutomaton("abbcccdde");
+
+		for (ReductionStrategy strategy : ReductionStrategy.values()) {
+			Automaton concat = Automaton.concat(strings("a", "bb", "ccc", "dd", "e"), strategy);
+			Assert.assertTrue(strategy.toString(), concat.equals(expectedResult));
+		}
+	}
+
+	@Test
+	public void intersectionTest() {
+		Automaton ab = Automaton.union(strings("a", "b"), true);
+		Automaton bc = Automaton.union(strings("b", "c"), true);
+		Automaton abc = Automaton.union(strings("a", "b", "c"), true);
+
+		for (ReductionStrategy strategy : ReductionStrategy.values()) {
+			ArrayList<Automaton> automata = new ArrayList<>();
+			automata.add(abc.clone());
+			automata.add(ab.clone());
+			automata.add(bc.clone());
+
+			Automaton intersection = Automaton.intersection(automata, strategy);
+			Assert.assertTrue(strategy.toString(), intersection.equals(Automaton.makeAutomaton("b")));
+		}
+	}
+
+	@Test
+	public void minusTest() {
+		Automaton abc = Automaton.union(strings("a", "b", "c"), true);
+
+		for (ReductionStrategy strategy : ReductionStrategy.values()) {
+			ArrayList<Automaton> automata = strings("a", "c");
+			automata.add(0, abc.clone());
+
+			Automaton minus = Automaton.minus(automata, strategy);
+			Assert.assertTrue(strategy.toString(), minus.equals(Automaton.makeAutomaton("b")));
+		}
+	}
+
+	@Test
+	public void minimizeOnceTest() {
+		// the automata are combined without minimizing, then the result is minimized once
+		List<OperationMetrics> reported = Collections.synchronizedList(new ArrayList<>());
+		AutomatonListener listener = reported::add;
+		Automaton ab = Automaton.union(strings("a", "b"), true);
+		Automaton bc = Automaton.union(strings("b", "c"), true);
+		Automaton abc = Automaton.union(strings("a", "b", "c"), true);
+
+		for (ReductionStrategy strategy : ReductionStrategy.values()) {
+			ArrayList<Automaton> automata = new ArrayList<>();
+			automata.add(abc.clone());
+			automata.add(ab.clone());
+			automata.add(bc.clone());
+			automata.add(abc.clone());
+
+			Instrumentation.addListener(listener);
+
+			try {
+				Assert.assertTrue(strategy.toString(), Automaton.union(strings("a", "bb", "ccc", "dd", "e"), strategy).run("ccc"));
+				Assert.assertEquals(strategy.toString(), 1, minimizations(reported));
+
+				Assert.assertTrue(strategy.toString(), Automaton.concat(strings("a", "bb", "ccc", "dd", "e"), strategy).run("abbcccdde"));
+				Assert.assertEquals(strategy.toString(), 1, minimizations(reported));
+
+				Assert.assertTrue(strategy.toString(), Automaton.intersection(automata, strategy).equals(Automaton.makeAutomaton("b")));
+				Assert.assertEquals(strategy.toString(), 1, minimizations(reported));
+			} finally {
+				Instrumentation.removeListener(listener);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of the reported minimizations, clearing the reports.
+	 */
+	private int minimizations(List<OperationMetrics> reported) {
+		int count = 0;
+
+		synchronized (reported) {
+			for (OperationMetrics metrics : reported)
+				if (metrics.getOperation().equals("minimize"))
+					count++;
+
+			reported.clear();
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,78 @@
+package it.univr.fsm.machine;
+
+import it.univr.fsm.equations.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegularExpressionFactoryTest {
+
+	@Test
+	public void internTest1() {
+		RegularExpressionFactory factory = new RegularExpressionFactory();
+
+		RegularExpression first = factory.comp(factory.string("a"), factory.star(factory.or(factory.string("b"), factory.string("c"))));
+		RegularExpression second = factory.comp(factory.string("a"), factory.star(factory.or(factory.string("b"), factory.string("c"))));
+
+		Assert.assertSame(first, second);
+		Assert.assertSame(first, factory.intern(new Comp(new GroundCoeff("a"), new Star(new Or(new GroundCoeff("b"), new GroundCoeff("c"))))));
+	}
+
+	@Test
+	public void smartConstructorsTest1() {
+		RegularExpressionFactory factory = new RegularExpressionFactory();
+		RegularExpression a = factory.string("a");
+
+		Assert.assertSame(a, factory.or(a, factory.emptySet()));
+		Assert.assertSame(a, factory.comp(factory.emptyString(), a));
+		Assert.assertTrue(factory.comp(a, factory.emptySet()).equals(new EmptySet()));
+		Assert.assertTrue(factory.comp(a, factory.string("b")).equals(new GroundCoeff("ab")));
+		Assert.assertSame(factory.star(a), factory.star(factory.star(a)));
+		Assert.assertSame(factory.star(a), factory.star(factory.or(factory.emptyString(), a)));
+		Assert.assertSame(factory.star(a), factory.or(factory.emptyString(), factory.star(a)));
+	}
+
+	@Test
+	public void variablesTest1() {
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+		State q2 = new State("q2", false, false);
+
+		RegularExpression e = new Or(new Comp(new GroundCoeff("a"), new Var(q0)), new Comp(new GroundCoeff("b"), new Var(q1)));
+
+		Assert.assertFalse(e.isGround());
+		Assert.assertTrue(e.contains(q0));
+		Assert.assertFalse(e.contains(q2));
+		Assert.assertFalse(e.containsOnly(q0));
+		Assert.assertTrue(e.replace(q1, new GroundCoeff("")).containsOnly(q0));
+		Assert.assertSame(e, e.replace(q2, new GroundCoeff("c")));
+	}
+
+	@Test
+	public void replaceTest1() {
+		RegularExpressionFactory factory = new RegularExpressionFactory();
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+
+		RegularExpression shared = new Comp(new GroundCoeff("a"), new Var(q0));
+		RegularExpression e = new Or(shared, new Comp(new GroundCoeff("b"), shared));
+		RegularExpression c = factory.string("c");
+		RegularExpression replaced = factory.replace(e, q0, c);
+
+		// the shared subterm is rewritten once
+		Assert.assertTrue(replaced.equals(e.replace(q0, c)));
+		Assert.assertSame(((Or) replaced).getFirst(), ((Comp) ((Or) replaced).getSecond()).getSecond());
+		Assert.assertSame(replaced, factory.replace(e, q0, c));
+		Assert.assertSame(e, factory.replace(e, q1, c));
+	}
+
+	@Test
+	public void removeTest1() {
+		State q0 = new State("q0", true, false);
+		Comp e = new Comp(new GroundCoeff("a"), new Var(q0));
+
+		// expressions are immutable
+		Assert.assertTrue(e.remove(new Var(q0)).equals(new GroundCoeff("a")));
+		Assert.assertTrue(e.getSecond().equals(new Var(q0)));
+	}
+}
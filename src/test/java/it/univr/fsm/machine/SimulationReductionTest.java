@@ -0,0 +1,92 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class SimulationReductionTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void simulationReductionTest1() {
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		// two copies of (a + b)*a(a + b)^2, joined by their initial state
+		State q0 = new State("q0", true, false);
+		states.add(q0);
+
+		for (int c = 0; c < 2; ++c) {
+			State[] q = new State[4];
+
+			for (int i = 0; i < q.length; ++i) {
+				q[i] = new State("p" + c + i, false, i == q.length - 1);
+				states.add(q[i]);
+			}
+
+			delta.add(new Transition(q0, q[1], "a"));
+			delta.add(new Transition(q0, q[0], ""));
+			delta.add(new Transition(q[0], q[0], "a"));
+			delta.add(new Transition(q[0], q[0], "b"));
+			delta.add(new Transition(q[0], q[1], "a"));
+
+			for (int i = 1; i < q.length - 1; ++i) {
+				delta.add(new Transition(q[i], q[i + 1], "a"));
+				delta.add(new Transition(q[i], q[i + 1], "b"));
+			}
+		}
+
+		Automaton a = new Automaton(delta, states);
+		Automaton reduced = a.clone();
+		reduced.reduceBySimulation();
+
+		Automaton d = a.clone();
+		d.minimizeMoore();
+
+		// the copies are merged, while the deterministic automaton has 8 states
+		Assert.assertEquals(4, reduced.getStates().size());
+		Assert.assertEquals(8, d.getStates().size());
+		Assert.assertTrue(Automaton.isContained(a, reduced));
+		Assert.assertTrue(Automaton.isContained(reduced, a));
+	}
+
+	@Test
+	public void simulationReductionTest2() {
+		for (String name : new String[] { "automaton0008", "automaton0010", "automaton0017" }) {
+			Automaton a = Automaton.loadAutomataWithJFLAPPattern(path + "JFLAPautomata_NFA/" + name + ".jff");
+			Automaton reduced = a.clone();
+			reduced.reduceBySimulation();
+
+			Assert.assertTrue(name, reduced.getStates().size() <= a.getStates().size());
+			Assert.assertTrue(name, Automaton.isContained(a, reduced));
+			Assert.assertTrue(name, Automaton.isContained(reduced, a));
+		}
+	}
+
+	@Test
+	public void simulationReductionTest3() {
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+		State q0 = new State("q0", true, false);
+		states.add(q0);
+
+		// two copies of a chain reading 1000 symbols, each simulating the other
+		for (int c = 0; c < 2; ++c) {
+			State previous = q0;
+
+			for (int i = 1; i <= 1000; ++i) {
+				State q = new State("p" + c + "_" + i, false, i == 1000);
+				states.add(q);
+				delta.add(new Transition(previous, q, i % 2 == 0 ? "a" : "b"));
+				previous = q;
+			}
+		}
+
+		Automaton a = new Automaton(delta, states);
+		a.reduceBySimulation();
+
+		Assert.assertEquals(1001, a.getStates().size());
+	}
+}
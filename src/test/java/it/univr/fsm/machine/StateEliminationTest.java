@@ -0,0 +1,70 @@
+package it.univr.fsm.machine;
+
+import it.univr.fsm.equations.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class StateEliminationTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void stateEliminationTest1() {
+		Assert.assertTrue(Automaton.makeAutomaton("abc").toRegexByStateElimination().equals(new GroundCoeff("abc")));
+		Assert.assertTrue(Automaton.makeEmptyString().toRegexByStateElimination().equals(new GroundCoeff("")));
+		Assert.assertTrue(Automaton.makeEmptyLanguage().toRegexByStateElimination().equals(new EmptySet()));
+	}
+
+	@Test
+	public void stateEliminationTest2() {
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, true);
+		State q1 = new State("q1", false, false);
+
+		states.add(q0);
+		states.add(q1);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q1, q0, "b"));
+
+		Automaton a = new Automaton(delta, states);
+
+		Assert.assertTrue(a.toRegexByStateElimination().equals(new Star(new GroundCoeff("ab"))));
+	}
+
+	@Test
+	public void stateEliminationTest3() {
+		Automaton a = Automaton.loadAutomata(path + "automata/automaton0016");
+		a.minimize();
+
+		Assert.assertEquals(a.toRegex().toString(), a.toRegexByStateElimination().toString());
+	}
+
+	@Test
+	public void stateEliminationTest4() {
+		// states not reaching a final state are dropped
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, true);
+		State q2 = new State("q2", false, false);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q0, q2, "b"));
+		delta.add(new Transition(q2, q2, "c"));
+
+		Automaton a = new Automaton(delta, states);
+
+		Assert.assertTrue(a.toRegexByStateElimination().equals(new GroundCoeff("a")));
+	}
+}
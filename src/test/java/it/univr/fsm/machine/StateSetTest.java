@@ -0,0 +1,78 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.HashSet;
+
+public class StateSetTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void stateSetTest1() {
+		Automaton a = Automaton.loadAutomataWithJFLAPPattern(path + "JFLAPautomata_NFA/automaton0008.jff");
+		StateSet.Universe universe = new StateSet.Universe(a);
+
+		BitSet first = new BitSet(), second = new BitSet(), both = new BitSet();
+		first.set(0);
+		first.set(2);
+		second.set(1);
+		second.set(2);
+		both.or(first);
+		both.or(second);
+
+		StateSet union = universe.toStateSet(first).union(universe.toStateSet(second));
+
+		Assert.assertEquals(universe.toStateSet(both), union);
+		Assert.assertEquals(universe.toStateSet(both).hashCode(), union.hashCode());
+		Assert.assertEquals(3, union.size());
+		Assert.assertTrue(union.contains(1));
+		Assert.assertFalse(union.contains(3));
+
+		boolean containsFinal = false;
+
+		for (int i = 0; i < 3; ++i)
+			containsFinal |= universe.getState(i).isFinalState();
+
+		Assert.assertEquals(containsFinal, union.containsFinal());
+	}
+
+	@Test
+	public void stateSetTest2() {
+		// epsilon transitions are closed in the subsets
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, false);
+		State q2 = new State("q2", false, true);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+
+		delta.add(new Transition(q0, q1, ""));
+		delta.add(new Transition(q1, q2, "a"));
+		delta.add(new Transition(q2, q0, ""));
+		delta.add(new Transition(q0, q0, "b"));
+
+		Automaton a = new Automaton(delta, states);
+		Automaton dfa = a.determinize();
+
+		Assert.assertTrue(Automaton.isDeterministic(dfa));
+		Assert.assertTrue(dfa.equals(a));
+		Assert.assertTrue(dfa.run("baba"));
+		Assert.assertFalse(dfa.run("ab"));
+		Assert.assertEquals(3, a.epsilonClosure(q2).size());
+
+		Automaton hopcroft = dfa.clone();
+		Automaton moore = dfa.clone();
+		hopcroft.minimizeHopcroft();
+		moore.minimizeMoore();
+
+		Assert.assertTrue(hopcroft.equals(a));
+		Assert.assertEquals(moore.getStates().size(), hopcroft.getStates().size());
+	}
+}
@@ -0,0 +1,71 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class TransitionIndexTest {
+
+	@Test
+	public void deltaTest1() {
+		// dense rows
+		Automaton a = Automaton.totalize(Automaton.makeAutomaton("ab"));
+		State q1 = a.delta(a.getInitialState(), "a");
+
+		Assert.assertNotNull(q1);
+		Assert.assertTrue(a.delta(q1, "b").isFinalState());
+		Assert.assertFalse(a.delta(q1, "c").isFinalState());
+		Assert.assertNull(a.delta(q1, " "));
+		Assert.assertNull(a.delta(q1, ""));
+		Assert.assertTrue(Automaton.isDeterministic(a));
+	}
+
+	@Test
+	public void deltaTest2() {
+		// sparse rows, with a nondeterministic choice and an epsilon transition
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, false);
+		State q2 = new State("q2", false, true);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q0, q2, "a"));
+		delta.add(new Transition(q1, q2, ""));
+		delta.add(new Transition(q1, q1, "ab"));
+
+		Automaton a = new Automaton(delta, states);
+
+		Assert.assertNotNull(a.delta(q0, "a"));
+		Assert.assertNull(a.delta(q0, "b"));
+		Assert.assertEquals(q1, a.delta(q1, "ab"));
+		Assert.assertEquals(q2, a.delta(q1, ""));
+		Assert.assertFalse(Automaton.isDeterministic(a));
+
+		Assert.assertTrue(a.run("a"));
+
+		// the index follows the changes of the automaton
+		a.removeTransition(new Transition(q0, q2, "a"));
+		Assert.assertEquals(q1, a.delta(q0, "a"));
+	}
+
+	@Test
+	public void deltaTest3() {
+		// the rows are keyed by the numbers of the symbols, and reading does not number new symbols
+		Automaton a = Automaton.makeAutomaton("ab");
+		Assert.assertTrue(a.run("ab"));
+		int size = SymbolTable.size();
+
+		Assert.assertFalse(a.run("a\u2603"));
+		Assert.assertNull(a.delta(a.getInitialState(), "\u2603b"));
+		Assert.assertEquals(size, SymbolTable.size());
+		Assert.assertEquals(-1, SymbolTable.lookup("\u2603b"));
+		Assert.assertEquals(SymbolTable.intern("a"), SymbolTable.lookup("a"));
+	}
+}
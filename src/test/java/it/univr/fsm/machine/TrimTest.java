@@ -0,0 +1,68 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class TrimTest {
+
+	@Test
+	public void trimTest1() {
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, false);
+		State q2 = new State("q2", false, true);
+		State dead = new State("q3", false, false);
+		State unreachable = new State("q4", false, true);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+		states.add(dead);
+		states.add(unreachable);
+
+		delta.add(new Transition(q0, q1, ""));
+		delta.add(new Transition(q1, q2, "a"));
+		delta.add(new Transition(q1, dead, "b"));
+		delta.add(new Transition(dead, dead, "b"));
+		delta.add(new Transition(unreachable, q2, "a"));
+
+		Automaton a = new Automaton(delta, states);
+		Automaton b = a.clone();
+
+		a.trim();
+
+		Assert.assertEquals(3, a.getStates().size());
+		Assert.assertEquals(2, a.getDelta().size());
+		Assert.assertTrue(a.run("a"));
+		Assert.assertFalse(a.run("b"));
+
+		b.removeUnreachableStates();
+
+		Assert.assertEquals(4, b.getStates().size());
+		Assert.assertEquals(4, b.getDelta().size());
+	}
+
+	@Test
+	public void trimTest2() {
+		// the empty language keeps its initial state
+		Automaton empty = Automaton.makeEmptyLanguage();
+		empty.trim();
+		Assert.assertEquals(1, empty.getStates().size());
+
+		// with an implicit accepting sink, the states not reaching a final state are kept
+		Automaton complement = Automaton.complement(Automaton.makeAutomaton("ab"), false);
+		int size = complement.getStates().size();
+		complement.trim();
+		Assert.assertEquals(size, complement.getStates().size());
+		Assert.assertTrue(complement.run("abb"));
+		Assert.assertFalse(complement.run("ab"));
+
+		// the product does not keep the pairs that cannot reach a final pair
+		Automaton intersection = Automaton.intersection(Automaton.makeAutomaton("abc"), Automaton.makeAutomaton("abd"));
+		Assert.assertEquals(1, intersection.getStates().size());
+	}
+}
@@ -10,6 +10,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 
+import java.util.ArrayList;
 import java.util.HashSet;
 
 
@@ -40,5 +41,36 @@ public class UnionTests {
         Assert.assertTrue(expectedResult.equals(union));
     }
 
+    @Test
+    public void UnionTest2() {
+        ArrayList<Automaton> automata = new ArrayList<>();
+
+        for (int i = 0; i < 100; ++i)
+            automata.add(Automaton.makeAutomaton("s" + i));
+
+        Automaton union = Automaton.union(automata, false);
+
+        Assert.assertTrue(union.run("s0"));
+        Assert.assertTrue(union.run("s57"));
+        Assert.assertFalse(union.run("s100"));
+        Assert.assertFalse(union.run(""));
+    }
 
+    @Test
+    public void UnionTest3() {
+        ArrayList<Automaton> automata = new ArrayList<>();
+        automata.add(Automaton.makeAutomaton("ab"));
+        automata.add(Automaton.makeEmptyString());
+        automata.add(Automaton.makeAutomaton("b"));
+
+        Automaton union = Automaton.union(automata, false);
+
+        ArrayList<Automaton> expected = new ArrayList<>();
+        expected.add(Automaton.makeAutomaton("ab"));
+        expected.add(Automaton.makeEmptyString());
+        expected.add(Automaton.makeAutomaton("b"));
+
+        Assert.assertTrue(union.run(""));
+        Assert.assertTrue(union.equals(Automaton.union(expected, true)));
+    }
 }
@@ -0,0 +1,59 @@
+package it.univr.fsm.machine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class WideningTest {
+
+	String path = "src/test/resources/";
+
+	@Test
+	public void wideningTest1() {
+		HashSet<State> states = new HashSet<>();
+		HashSet<Transition> delta = new HashSet<>();
+
+		State q0 = new State("q0", true, false);
+		State q1 = new State("q1", false, false);
+		State q2 = new State("q2", false, false);
+		State q3 = new State("q3", false, true);
+
+		states.add(q0);
+		states.add(q1);
+		states.add(q2);
+		states.add(q3);
+
+		delta.add(new Transition(q0, q1, "a"));
+		delta.add(new Transition(q1, q2, "a"));
+		delta.add(new Transition(q2, q3, "a"));
+
+		Automaton a = new Automaton(delta, states);
+		Automaton widened1 = a.widening(1);
+		Automaton widened2 = a.widening(2);
+
+		Assert.assertEquals(2, widened1.getStates().size());
+		Assert.assertEquals(3, widened2.getStates().size());
+		Assert.assertTrue(widened1.run("a"));
+		Assert.assertTrue(widened2.run("aaaaa"));
+		Assert.assertFalse(widened2.run("a"));
+		Assert.assertTrue(Automaton.isContained(a, widened1));
+		Assert.assertTrue(Automaton.isContained(a, widened2));
+	}
+
+	@Test
+	public void wideningTest2() {
+		// on deterministic automata, the blocks are the states with the same strings of length at most n
+		for (String name : new String[] { "automaton0008", "automaton0010", "automaton0017" })
+			for (int n = 1; n <= 3; ++n) {
+				Automaton a = Automaton.loadAutomataWithJFLAPPattern(path + "JFLAPautomata_NFA/" + name + ".jff").determinize();
+				HashMap<HashSet<String>, Integer> languages = new HashMap<>();
+
+				for (State s : a.getStates())
+					languages.putIfAbsent(a.getStringsAtMost(s, n), languages.size());
+
+				Assert.assertEquals(name, languages.size(), a.widening(n).getStates().size());
+			}
+	}
+}